@@ -0,0 +1,223 @@
+import com.sun.management.ThreadMXBean;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lab: InstanceInitializerDemo and StaticAndThisDemo create small objects with `new`, run initializers and use
+// `this`. Does every `new` in a hot loop really allocate? Not after the JIT: C2's escape analysis proves when an
+// object never leaves the compiled method, then replaces it by its fields in registers (scalar replacement).
+// Each case below creates an object per iteration in a different idiom. Two child JVMs measure the heap bytes
+// allocated per iteration, one with escape analysis on (the default) and one with -XX:-DoEscapeAnalysis:
+//   0 B/op with EA on  -> the idiom stays allocation-free once compiled
+//   same B/op both ways -> the object is allocated every time: it escapes (stored in a field, passed to a call
+//                          that isn't inlined, `this` leaked from an initializer), or two allocations merge into one
+//                          variable, which C2 in Java 8-17 cannot scalar-replace even though nothing escapes
+//   0 B/op both ways    -> the JIT removed the object without escape analysis, by forwarding each field store to
+//                          the load that follows it (this can't see past the barrier that final fields add)
+// Both children run with -XX:CompileCommand=dontinline for consume(), so "passed to a non-inlined method" is real.
+// Run: java EscapeAnalysisLab [iterations per call] [calls]    (numbers are bytes and ns per loop iteration)
+public class EscapeAnalysisLab {
+
+    static final class Point {
+        final int x, y;
+        Point(int x, int y) { this.x = x; this.y = y; }
+        int sum() { return this.x + this.y; }
+    }
+
+    // Like InstanceInitializerDemo: an initializer block, plus methods that work on and return `this`
+    static final class Tally {
+        int count;
+        { count = 1; }                                   // instance initializer, runs before the constructor body
+        Tally add(int v) { this.count += v; return this; }
+    }
+
+    // The initializer publishes `this` to a static field, so every instance escapes the moment it's created
+    static final class Registered {
+        static Registered last;
+        int value;
+        { last = this; }
+        Registered(int value) { this.value = value; }
+    }
+
+    static Point lastPoint;
+
+    // Kept out of line by -XX:CompileCommand=dontinline (see childCommand), so the JIT can't see what it does with p
+    static int consume(Point p) { return p.x; }
+
+    static int sumOf(int... xs) {
+        int s = 0;
+        for (int x : xs) s += x;
+        return s;
+    }
+
+    // ---- cases: each returns a value that depends on every object, so nothing is dead code ----
+
+    static long localObject(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) {
+            Point p = new Point(i, i + 1);
+            s += p.sum();
+        }
+        return s;
+    }
+
+    static long initializerAndThis(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) s += new Tally().add(i).add(1).count;
+        return s;
+    }
+
+    static long varargsArray(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) s += sumOf(i, 1, 2);   // new int[] { i, 1, 2 } at the call site
+        return s;
+    }
+
+    static long boxedInteger(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) {
+            Integer boxed = i + 1000;                        // outside the Integer cache: valueOf calls new Integer
+            s += boxed;
+        }
+        return s;
+    }
+
+    static long mergedAllocations(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) {
+            Point p = (i & 1) == 0 ? new Point(i, 0) : new Point(0, i);   // two allocations flow into one variable
+            s += p.sum();
+        }
+        return s;
+    }
+
+    static long storedToField(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) {
+            Point p = new Point(i, 1);
+            lastPoint = p;
+            s += p.x;
+        }
+        return s;
+    }
+
+    static long passedToNonInlinedMethod(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) s += consume(new Point(i, 1));
+        return s;
+    }
+
+    static long thisLeakedFromInitializer(int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) s += new Registered(i).value;
+        return s;
+    }
+
+    interface Body { long run(int n); }
+
+    static final class Case {
+        final String name;
+        final String idiom;
+        final Body body;
+        Case(String name, String idiom, Body body) { this.name = name; this.idiom = idiom; this.body = body; }
+    }
+
+    static List<Case> cases() {
+        List<Case> c = new ArrayList<>();
+        c.add(new Case("localObject", "new Point(..) used only in the loop", EscapeAnalysisLab::localObject));
+        c.add(new Case("initializerAndThis", "initializer block + methods returning this", EscapeAnalysisLab::initializerAndThis));
+        c.add(new Case("varargsArray", "sumOf(i, 1, 2) varargs array", EscapeAnalysisLab::varargsArray));
+        c.add(new Case("boxedInteger", "Integer boxed = i + 1000", EscapeAnalysisLab::boxedInteger));
+        c.add(new Case("mergedAllocations", "cond ? new Point(..) : new Point(..)", EscapeAnalysisLab::mergedAllocations));
+        c.add(new Case("storedToField", "lastPoint = p (static field)", EscapeAnalysisLab::storedToField));
+        c.add(new Case("passedToNonInlined", "consume(p), not inlined", EscapeAnalysisLab::passedToNonInlinedMethod));
+        c.add(new Case("thisLeakedFromInit", "{ last = this; } in the initializer", EscapeAnalysisLab::thisLeakedFromInitializer));
+        return c;
+    }
+
+    // ---- measurement (runs in the child JVMs) ----
+
+    static volatile long sink;
+
+    // Warm up until the loop is C2-compiled, then report {bytes per iteration, best ns per iteration}
+    static double[] measure(Body body, int n, int calls) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        for (int i = 0; i < 200; i++) sink += body.run(n);
+        long a0 = threads.getThreadAllocatedBytes(self);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < calls; i++) {
+            long t0 = System.nanoTime();
+            sink += body.run(n);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        long bytes = threads.getThreadAllocatedBytes(self) - a0;
+        return new double[] { (double) bytes / ((long) n * calls), (double) best / n };
+    }
+
+    static List<String> childCommand(boolean escapeAnalysis, int n, int calls) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("java.home") + "/bin/java");
+        cmd.add("-XX:CompileCommand=quiet");
+        cmd.add("-XX:CompileCommand=dontinline,EscapeAnalysisLab::consume");
+        if (!escapeAnalysis) cmd.add("-XX:-DoEscapeAnalysis");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("EscapeAnalysisLab");
+        cmd.add("--raw");
+        cmd.add(String.valueOf(n));
+        cmd.add(String.valueOf(calls));
+        return cmd;
+    }
+
+    // case name -> {bytes/op, ns/op}
+    static Map<String, double[]> runChild(boolean escapeAnalysis, int n, int calls) throws IOException, InterruptedException {
+        Process p = new ProcessBuilder(childCommand(escapeAnalysis, n, calls)).redirectErrorStream(true).start();
+        Map<String, double[]> result = new LinkedHashMap<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length == 3) result.put(parts[0], new double[] { Double.parseDouble(parts[1]), Double.parseDouble(parts[2]) });
+                else System.out.println("[child] " + line);
+            }
+        }
+        p.waitFor();
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean raw = args.length > 0 && args[0].equals("--raw");
+        int offset = raw ? 1 : 0;
+        int n = args.length > offset ? Integer.parseInt(args[offset]) : 100_000;
+        int calls = args.length > offset + 1 ? Integer.parseInt(args[offset + 1]) : 20;
+
+        if (raw) {
+            for (Case c : cases()) {
+                double[] m = measure(c.body, n, calls);
+                System.out.println(c.name + "\t" + m[0] + "\t" + m[1]);
+            }
+            return;
+        }
+
+        Map<String, double[]> on = runChild(true, n, calls);
+        Map<String, double[]> off = runChild(false, n, calls);
+
+        System.out.printf("%-20s %-44s %16s %18s  %s%n", "case", "idiom", "EA on  B/op ns/op", "EA off  B/op ns/op", "after JIT");
+        for (Case c : cases()) {
+            double[] a = on.get(c.name), b = off.get(c.name);
+            if (a == null || b == null) continue;
+            String verdict = a[0] < 0.5 ? (b[0] < 0.5 ? "allocation-free, even without EA" : "allocation-free")
+                    : a[0] >= b[0] * 0.9 ? "allocates every time" : "partly allocates";
+            System.out.printf("%-20s %-44s %9.1f %6.2f %11.1f %6.2f  %s%n", c.name, c.idiom, a[0], a[1], b[0], b[1], verdict);
+        }
+        System.out.println();
+        System.out.println("B/op: heap bytes allocated per loop iteration after warm-up (a Point is 24 B with compressed oops).");
+        System.out.println("The same bytes with EA off show what the idiom would cost if every `new` were a real allocation.");
+    }
+}
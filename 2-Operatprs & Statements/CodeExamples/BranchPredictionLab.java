@@ -0,0 +1,145 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Lab: the same logical test written with &&, &, ?: and branchless mask arithmetic, run over sorted and
+// random data. Sorted data makes every branch predictable; random data exposes branch mispredictions.
+// Run: java BranchPredictionLab [elements] [rounds]   (numbers are millions of elements per second)
+public class BranchPredictionLab {
+    static final int LOW = 128;   // values are 0..255, so the range test below is true for ~25% of them
+    static final int HIGH = 192;
+
+    // Short-circuit: compiles to two conditional jumps
+    static long shortCircuit(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            if (v >= LOW && v < HIGH) sum += v;
+        }
+        return sum;
+    }
+
+    // Short-circuit ||: the RHS is skipped for about half of the values
+    static long shortCircuitOr(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            if (v < 64 || v >= HIGH) sum += v;
+        }
+        return sum;
+    }
+
+    // Non-short-circuit &: both comparisons always run, leaving one branch on the combined result
+    static long nonShortCircuit(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            if (v >= LOW & v < HIGH) sum += v;
+        }
+        return sum;
+    }
+
+    // Non-short-circuit |
+    static long nonShortCircuitOr(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            if (v < 64 | v >= HIGH) sum += v;
+        }
+        return sum;
+    }
+
+    // Ternary: a select with cheap arms, which the JIT may turn into a conditional move
+    static long ternary(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            sum += (v >= LOW & v < HIGH) ? v : 0;
+        }
+        return sum;
+    }
+
+    // Branchless: (v - LOW) | (HIGH - 1 - v) is negative exactly when v is outside [LOW, HIGH).
+    // >> 31 turns that sign bit into an all-ones mask, so no jump depends on the data.
+    static long mask(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            int outside = ((v - LOW) | (HIGH - 1 - v)) >> 31;
+            sum += v & ~outside;
+        }
+        return sum;
+    }
+
+    // Short-circuit guarding an expensive right-hand side: here && wins because it skips work
+    static long guardedShortCircuit(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            if (v >= HIGH && Integer.bitCount(v * 0x9E3779B9) > 16) sum += v;
+        }
+        return sum;
+    }
+
+    static long guardedNonShortCircuit(int[] a) {
+        long sum = 0;
+        for (int v : a) {
+            if (v >= HIGH & Integer.bitCount(v * 0x9E3779B9) > 16) sum += v;
+        }
+        return sum;
+    }
+
+    interface Kernel { long run(int[] a); }
+
+    static final String[] NAMES = {
+            "&& (branchy)", "|| (branchy)", "& (non-short-circuit)", "| (non-short-circuit)",
+            "?: select", "mask arithmetic", "&& guarding costly RHS", "& evaluating costly RHS"
+    };
+    static final Kernel[] KERNELS = {
+            BranchPredictionLab::shortCircuit, BranchPredictionLab::shortCircuitOr,
+            BranchPredictionLab::nonShortCircuit, BranchPredictionLab::nonShortCircuitOr,
+            BranchPredictionLab::ternary, BranchPredictionLab::mask,
+            BranchPredictionLab::guardedShortCircuit, BranchPredictionLab::guardedNonShortCircuit
+    };
+
+    static volatile long sink;
+
+    static double millionsPerSecond(Kernel k, int[] data, int rounds) {
+        for (int i = 0; i < rounds; i++) sink += k.run(data);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            sink += k.run(data);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return data.length * 1e3 / best;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 24;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        int[] random = new int[n];
+        Random rnd = new Random(7);
+        for (int i = 0; i < n; i++) random[i] = rnd.nextInt(256);
+        int[] sorted = random.clone();
+        Arrays.sort(sorted);
+
+        // Each group of variants computes the same answer; check that before timing anything
+        long and = shortCircuit(random);
+        if (and != nonShortCircuit(random) || and != ternary(random) || and != mask(random)
+                || shortCircuitOr(random) != nonShortCircuitOr(random)
+                || guardedShortCircuit(random) != guardedNonShortCircuit(random)) {
+            throw new AssertionError("variants disagree");
+        }
+
+        System.out.println("elements=" + n + ", values 0..255, test true for ~25% (&&, &, ?:, mask) or ~50% (||, |)");
+        System.out.printf("%-26s %10s %10s %8s%n", "kernel", "sorted", "random", "ratio");
+        for (int k = 0; k < KERNELS.length; k++) {
+            double s = millionsPerSecond(KERNELS[k], sorted, rounds);
+            double r = millionsPerSecond(KERNELS[k], random, rounds);
+            double ratio = s / r;
+            String flag = ratio > 1.5 ? "  <- mispredict-sensitive" : "";
+            System.out.printf("%-26s %10.1f %10.1f %8.2f%s%n", NAMES[k], s, r, ratio, flag);
+        }
+
+        System.out.println();
+        System.out.println("Notes:");
+        System.out.println(" - On sorted data each branch flips once, so the predictor is almost always right.");
+        System.out.println(" - On random data a data-dependent branch is wrong about half the time, costing a pipeline flush.");
+        System.out.println(" - The JIT may already turn a branchy form into a conditional move; then its ratio stays near 1.");
+        System.out.println(" - & and | are not automatically faster: with a costly RHS, && and || win by skipping work.");
+    }
+}
@@ -0,0 +1,298 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Lab: the nested loops from LoopsAndLabelsDemo over large grids. The loop order decides whether the CPU reads
+// memory sequentially (cache-friendly) or jumps a whole row ahead on every step.
+//   1. row-major vs column-major sums over a jagged int[][]
+//   2. int[][] (one array object per row) vs one flattened int[] with index math r * n + c
+//   3. naive vs tiled (blocked) transpose and matrix multiply, with configurable block sizes
+//   4. early-exit search: labeled break vs a "found" flag checked by both loops
+// Run: java -Xmx2g CacheAwareTraversalLab [maxSize] [multiplySize] [blockSizes]
+//      e.g. java -Xmx2g CacheAwareTraversalLab 8192 1024 16,32,64,128
+public class CacheAwareTraversalLab {
+
+    // ---- 1 + 2: traversal order and layout ----
+
+    static long sumRowMajor(int[][] g) {
+        long s = 0;
+        for (int r = 0; r < g.length; r++) {
+            int[] row = g[r];
+            for (int c = 0; c < row.length; c++) s += row[c];
+        }
+        return s;
+    }
+
+    // Each step moves to another row array: a new cache line (and often a new page) per element.
+    // Rows may have different lengths, so walk up to the longest one and skip rows that end before c.
+    static long sumColumnMajor(int[][] g) {
+        long s = 0;
+        int cols = 0;
+        for (int[] row : g) cols = Math.max(cols, row.length);
+        for (int c = 0; c < cols; c++) {
+            for (int r = 0; r < g.length; r++) {
+                int[] row = g[r];
+                if (c < row.length) s += row[c];
+            }
+        }
+        return s;
+    }
+
+    static long sumFlatRowMajor(int[] g, int n) {
+        long s = 0;
+        for (int r = 0; r < n; r++) {
+            int base = r * n;
+            for (int c = 0; c < n; c++) s += g[base + c];
+        }
+        return s;
+    }
+
+    static long sumFlatColumnMajor(int[] g, int n) {
+        long s = 0;
+        for (int c = 0; c < n; c++) {
+            for (int r = 0; r < n; r++) s += g[r * n + c];
+        }
+        return s;
+    }
+
+    // ---- 3: transpose ----
+
+    static void transposeNaive(int[] src, int[] dst, int n) {
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) dst[c * n + r] = src[r * n + c]; // writes stride through dst
+        }
+    }
+
+    // Work on block x block tiles so both the source rows and destination rows of a tile stay in cache
+    static void transposeTiled(int[] src, int[] dst, int n, int block) {
+        for (int rr = 0; rr < n; rr += block) {
+            for (int cc = 0; cc < n; cc += block) {
+                int rEnd = Math.min(rr + block, n);
+                int cEnd = Math.min(cc + block, n);
+                for (int r = rr; r < rEnd; r++) {
+                    for (int c = cc; c < cEnd; c++) dst[c * n + r] = src[r * n + c];
+                }
+            }
+        }
+    }
+
+    // ---- 3: matrix multiply (c = a * b), all n x n ----
+
+    // Textbook i-j-k order: the inner loop walks b down a column
+    static void multiplyNaive(int[][] a, int[][] b, int[][] c) {
+        int n = a.length;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int sum = 0;
+                for (int k = 0; k < n; k++) sum += a[i][k] * b[k][j];
+                c[i][j] = sum;
+            }
+        }
+    }
+
+    // i-k-j order: same arithmetic, but every inner loop reads b and writes c along a row
+    static void multiplyReordered(int[][] a, int[][] b, int[][] c) {
+        int n = a.length;
+        for (int[] row : c) Arrays.fill(row, 0);
+        for (int i = 0; i < n; i++) {
+            int[] ci = c[i];
+            for (int k = 0; k < n; k++) {
+                int aik = a[i][k];
+                int[] bk = b[k];
+                for (int j = 0; j < n; j++) ci[j] += aik * bk[j];
+            }
+        }
+    }
+
+    // i-k-j order inside block x block tiles, so a tile of b is reused while it is still cached
+    static void multiplyTiled(int[][] a, int[][] b, int[][] c, int block) {
+        int n = a.length;
+        for (int[] row : c) Arrays.fill(row, 0);
+        for (int ii = 0; ii < n; ii += block) {
+            for (int kk = 0; kk < n; kk += block) {
+                for (int jj = 0; jj < n; jj += block) {
+                    int iEnd = Math.min(ii + block, n);
+                    int kEnd = Math.min(kk + block, n);
+                    int jEnd = Math.min(jj + block, n);
+                    for (int i = ii; i < iEnd; i++) {
+                        int[] ci = c[i];
+                        int[] ai = a[i];
+                        for (int k = kk; k < kEnd; k++) {
+                            int aik = ai[k];
+                            int[] bk = b[k];
+                            for (int j = jj; j < jEnd; j++) ci[j] += aik * bk[j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // ---- 4: early-exit search ----
+
+    // Labeled break leaves both loops the moment the target is found
+    static long findLabeled(int[][] g, int target) {
+        long found = -1;
+        search:
+        for (int r = 0; r < g.length; r++) {
+            int[] row = g[r];
+            for (int c = 0; c < row.length; c++) {
+                if (row[c] == target) {
+                    found = (long) r << 32 | c;
+                    break search;
+                }
+            }
+        }
+        return found;
+    }
+
+    // Without a label: an extra flag test in both loop conditions on every iteration
+    static long findWithFlag(int[][] g, int target) {
+        long found = -1;
+        boolean done = false;
+        for (int r = 0; r < g.length && !done; r++) {
+            int[] row = g[r];
+            for (int c = 0; c < row.length && !done; c++) {
+                if (row[c] == target) {
+                    found = (long) r << 32 | c;
+                    done = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    // ---- harness ----
+
+    interface Task { long run(); }
+
+    static volatile long sink;
+
+    static double bestMillis(Task t, int rounds) {
+        sink += t.run(); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            sink += t.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best / 1e6;
+    }
+
+    static int[][] randomGrid(int n, Random rnd) {
+        int[][] g = new int[n][n];
+        for (int[] row : g) for (int c = 0; c < n; c++) row[c] = rnd.nextInt(1000);
+        return g;
+    }
+
+    // Row r gets a random length in [n/2, n], like triangular or ragged data read from a file
+    static int[][] jaggedGrid(int n, Random rnd) {
+        int[][] g = new int[n][];
+        for (int r = 0; r < n; r++) {
+            g[r] = new int[n / 2 + rnd.nextInt(n / 2 + 1)];
+            for (int c = 0; c < g[r].length; c++) g[r][c] = rnd.nextInt(1000);
+        }
+        return g;
+    }
+
+    static int[] flatten(int[][] g) {
+        int n = g.length;
+        int[] flat = new int[n * n];
+        for (int r = 0; r < n; r++) System.arraycopy(g[r], 0, flat, r * n, n);
+        return flat;
+    }
+
+    static int[] parseBlocks(String csv) {
+        String[] parts = csv.split(",");
+        int[] blocks = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) blocks[i] = Integer.parseInt(parts[i].trim());
+        return blocks;
+    }
+
+    static boolean sameMatrix(int[][] x, int[][] y) {
+        for (int i = 0; i < x.length; i++) if (!Arrays.equals(x[i], y[i])) return false;
+        return true;
+    }
+
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int mulSize = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        int[] blocks = parseBlocks(args.length > 2 ? args[2] : "16,32,64,128");
+        Random rnd = new Random(5);
+
+        System.out.println("-- Traversal: ms per full pass (best of 3) --");
+        System.out.printf("%6s %12s %12s %12s %12s %12s %12s%n",
+                "n", "[][] row", "[][] column", "flat row", "flat column", "jagged row", "jagged col");
+        for (int n = 1024; n <= maxSize; n *= 2) {
+            final int size = n;
+            int[][] g = randomGrid(n, rnd);
+            int[] flat = flatten(g);
+            int[][] jagged = jaggedGrid(n, rnd);
+            if (sumRowMajor(g) != sumColumnMajor(g)) throw new AssertionError("column-major sum differs, n=" + n);
+            if (sumRowMajor(jagged) != sumColumnMajor(jagged)) throw new AssertionError("jagged column-major sum differs, n=" + n);
+            double rowMs = bestMillis(() -> sumRowMajor(g), 3);
+            double colMs = bestMillis(() -> sumColumnMajor(g), 3);
+            double flatRowMs = bestMillis(() -> sumFlatRowMajor(flat, size), 3);
+            double flatColMs = bestMillis(() -> sumFlatColumnMajor(flat, size), 3);
+            double jaggedRowMs = bestMillis(() -> sumRowMajor(jagged), 3);
+            double jaggedColMs = bestMillis(() -> sumColumnMajor(jagged), 3);
+            System.out.printf("%6d %12.2f %12.2f %12.2f %12.2f %12.2f %12.2f%n",
+                    n, rowMs, colMs, flatRowMs, flatColMs, jaggedRowMs, jaggedColMs);
+        }
+
+        System.out.println();
+        System.out.println("-- Transpose of a flat n x n int[]: ms (best of 3) --");
+        System.out.printf("%6s %10s", "n", "naive");
+        for (int b : blocks) System.out.printf(" %10s", "tile " + b);
+        System.out.println();
+        for (int n = 1024; n <= maxSize; n *= 2) {
+            final int size = n;
+            int[] src = flatten(randomGrid(n, rnd));
+            int[] dst = new int[n * n];
+            System.out.printf("%6d %10.2f", n, bestMillis(() -> { transposeNaive(src, dst, size); return dst[1]; }, 3));
+            int[] expected = dst.clone();
+            for (int b : blocks) {
+                final int block = b;
+                double ms = bestMillis(() -> { transposeTiled(src, dst, size, block); return dst[1]; }, 3);
+                if (!Arrays.equals(expected, dst)) throw new AssertionError("tiled transpose differs, block=" + b);
+                System.out.printf(" %10.2f", ms);
+            }
+            System.out.println();
+        }
+
+        System.out.println();
+        System.out.println("-- Multiply " + mulSize + " x " + mulSize + " int[][]: ms (best of 2) --");
+        int[][] a = randomGrid(mulSize, rnd);
+        int[][] b = randomGrid(mulSize, rnd);
+        int[][] expected = new int[mulSize][mulSize];
+        int[][] c = new int[mulSize][mulSize];
+        System.out.printf("  naive i-j-k      %10.1f%n", bestMillis(() -> { multiplyNaive(a, b, expected); return expected[0][0]; }, 2));
+        System.out.printf("  reordered i-k-j  %10.1f%n", bestMillis(() -> { multiplyReordered(a, b, c); return c[0][0]; }, 2));
+        if (!sameMatrix(expected, c)) throw new AssertionError("reordered multiply differs");
+        for (int blk : blocks) {
+            final int block = blk;
+            double ms = bestMillis(() -> { multiplyTiled(a, b, c, block); return c[0][0]; }, 2);
+            if (!sameMatrix(expected, c)) throw new AssertionError("tiled multiply differs, block=" + blk);
+            System.out.printf("  tiled, block %-4d %10.1f%n", blk, ms);
+        }
+
+        System.out.println();
+        System.out.println("-- Early-exit search in a " + maxSize + " x " + maxSize + " grid: ms (best of 5) --");
+        int[][] g = randomGrid(maxSize, rnd);
+        int target = -1;
+        int hitRow = maxSize * 3 / 4;
+        g[hitRow][maxSize / 2] = target; // values are otherwise >= 0, so the first hit is known
+        final int[][] grid = g;
+        double labeled = bestMillis(() -> findLabeled(grid, target), 5);
+        double flagged = bestMillis(() -> findWithFlag(grid, target), 5);
+        if (findLabeled(grid, target) != findWithFlag(grid, target)) throw new AssertionError("searches disagree");
+        System.out.printf("  labeled break %8.2f   flag in both loops %8.2f   (hit at row %d)%n", labeled, flagged, hitRow);
+
+        System.out.println();
+        System.out.println("Notes:");
+        System.out.println(" - A 64-byte cache line holds 16 ints: row-major uses all 16, column-major uses 1 and evicts the rest.");
+        System.out.println(" - int[][] is an array of separate row objects; a flat int[] is one contiguous block.");
+        System.out.println(" - Jagged rows hold about 3/4 of the elements; column-major also pays a length check per row.");
+        System.out.println(" - Tiling helps once a row of the matrix no longer fits in cache; too-small tiles add loop overhead.");
+        System.out.println(" - Multiply is O(n^3): 8192 takes hours naively, so it has its own (smaller) size argument.");
+    }
+}
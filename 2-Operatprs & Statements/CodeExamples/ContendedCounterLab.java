@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lab: count++ on a shared field is read-modify-write, not one atomic step. Several threads increment the
+// same counter; the lab counts lost updates and measures throughput from 1 thread up to all cores.
+// Run: java ContendedCounterLab [incrementsPerThread] [maxThreads]   (maxThreads defaults to all cores)
+public class ContendedCounterLab {
+    interface Counter {
+        void increment();
+        long get();
+    }
+
+    // Broken: two threads can read the same value and both write value + 1
+    static class PlainCounter implements Counter {
+        int count;
+        public void increment() { count++; }
+        public long get() { return count; }
+    }
+
+    // Still broken: volatile makes each read and write visible, but ++ remains read, add, write
+    static class VolatileCounter implements Counter {
+        volatile int count;
+        public void increment() { count++; }
+        public long get() { return count; }
+    }
+
+    static class SynchronizedCounter implements Counter {
+        int count;
+        public synchronized void increment() { count++; }
+        public synchronized long get() { return count; }
+    }
+
+    // One compare-and-swap loop on a single memory location: correct, but every core fights for one cache line
+    static class AtomicCounter implements Counter {
+        final AtomicInteger count = new AtomicInteger();
+        public void increment() { count.incrementAndGet(); }
+        public long get() { return count.get(); }
+    }
+
+    // Spreads contended updates over cells and sums them on read
+    static class AdderCounter implements Counter {
+        final LongAdder count = new LongAdder();
+        public void increment() { count.increment(); }
+        public long get() { return count.sum(); }
+    }
+
+    // Hand-rolled version of the LongAdder idea: one cell per stripe, padded so that two cells never share
+    // a 64-byte cache line (otherwise cores still invalidate each other's line: "false sharing").
+    static class StripedCounter implements Counter {
+        static class Cell {
+            long p1, p2, p3, p4, p5, p6, p7;          // padding before
+            volatile long value;
+            long q1, q2, q3, q4, q5, q6, q7;          // padding after
+        }
+        static final AtomicLongFieldUpdater<Cell> VALUE = AtomicLongFieldUpdater.newUpdater(Cell.class, "value");
+
+        final Cell[] cells;
+        final int mask;
+
+        StripedCounter(int stripes) {
+            int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1; // next power of two
+            cells = new Cell[size];
+            for (int i = 0; i < size; i++) cells[i] = new Cell();
+            mask = size - 1;
+        }
+
+        public void increment() {
+            // Thread ids are small sequential numbers, so consecutive threads land on different stripes
+            Cell c = cells[(int) Thread.currentThread().getId() & mask];
+            VALUE.getAndIncrement(c);
+        }
+
+        public long get() {
+            long sum = 0;
+            for (Cell c : cells) sum += c.value;
+            return sum;
+        }
+    }
+
+    interface CounterFactory { Counter create(int threads); }
+
+    static final String[] NAMES = { "plain int", "volatile int", "synchronized", "AtomicInteger", "LongAdder", "padded striped" };
+    static final CounterFactory[] FACTORIES = {
+            t -> new PlainCounter(), t -> new VolatileCounter(), t -> new SynchronizedCounter(),
+            t -> new AtomicCounter(), t -> new AdderCounter(), StripedCounter::new
+    };
+
+    static class Result {
+        final long expected;
+        final long actual;
+        final long nanos;
+        Result(long expected, long actual, long nanos) { this.expected = expected; this.actual = actual; this.nanos = nanos; }
+    }
+
+    static Result run(Counter counter, int threads, int perThread) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread w = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) counter.increment();
+                done.countDown();
+            });
+            workers.add(w);
+            w.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - t0;
+        for (Thread w : workers) w.join();
+        return new Result((long) threads * perThread, counter.get(), nanos);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int cores = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int t = 1; t < cores; t *= 2) threadCounts.add(t);
+        threadCounts.add(cores);
+
+        // Warm-up so the timed runs measure compiled code
+        for (CounterFactory f : FACTORIES) run(f.create(cores), Math.min(2, cores), perThread / 10);
+
+        System.out.println("increments per thread=" + perThread + ", max threads=" + cores);
+        System.out.printf("%-15s %7s %14s %12s %10s%n", "counter", "threads", "expected", "lost", "Mops/s");
+        for (int k = 0; k < FACTORIES.length; k++) {
+            for (int threads : threadCounts) {
+                Result r = run(FACTORIES[k].create(threads), threads, perThread);
+                long lost = r.expected - r.actual;
+                System.out.printf("%-15s %7d %14d %12d %10.1f%s%n", NAMES[k], threads, r.expected, lost,
+                        r.expected * 1e3 / r.nanos, lost != 0 ? "  <- lost updates" : "");
+            }
+        }
+
+        System.out.println();
+        System.out.println("Notes:");
+        System.out.println(" - plain/volatile lose updates once threads run in parallel on different cores; alone they are just fast.");
+        System.out.println(" - The JIT may fold a plain count++ loop into a single add, hiding or magnifying the loss.");
+        System.out.println(" - synchronized and AtomicInteger are correct but serialize on one cache line.");
+        System.out.println(" - LongAdder and the padded striped counter scale because each thread mostly writes its own line.");
+    }
+}
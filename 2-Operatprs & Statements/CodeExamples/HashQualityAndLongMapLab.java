@@ -0,0 +1,353 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+// Lab: hashCode() quality decides how a HashMap performs, just as equals() decides what it finds.
+// Part 1 measures bucket collisions for a few hashCode implementations.
+// Part 2 compares a long-keyed open-addressing map (no Long boxing, no entry objects) with HashMap<Long, V>.
+// Run: java HashQualityAndLongMapLab [entries]
+public class HashQualityAndLongMapLab {
+
+    // ---- Part 1: hash-quality analyzer -------------------------------------------------------------
+
+    // Same bucket choice as java.util.HashMap: spread the high bits down, then mask by a power-of-two table size
+    static int bucketOf(Object key, int tableSize) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (tableSize - 1);
+    }
+
+    static class HashReport {
+        final String label;
+        final int keys;
+        final int distinctHashes;
+        final int tableSize;
+        final int usedBuckets;
+        final int longestChain;
+        final double averageProbe;   // average entries compared in a successful lookup
+
+        HashReport(String label, int keys, int distinctHashes, int tableSize, int usedBuckets, int longestChain, double averageProbe) {
+            this.label = label; this.keys = keys; this.distinctHashes = distinctHashes; this.tableSize = tableSize;
+            this.usedBuckets = usedBuckets; this.longestChain = longestChain; this.averageProbe = averageProbe;
+        }
+
+        // With uniformly random hashes, the expected number of occupied buckets is m * (1 - (1 - 1/m)^n)
+        double expectedUsedBuckets() {
+            return tableSize * (1 - Math.pow(1 - 1.0 / tableSize, keys));
+        }
+
+        @Override public String toString() {
+            return String.format("%-28s keys=%7d distinctHash=%7d buckets=%7d/%-7d (ideal %7.0f) longestChain=%5d avgProbe=%6.2f",
+                    label, keys, distinctHashes, usedBuckets, tableSize, expectedUsedBuckets(), longestChain, averageProbe);
+        }
+    }
+
+    static HashReport analyze(String label, List<?> keys) {
+        int tableSize = Integer.highestOneBit(Math.max(2, (int) Math.ceil(keys.size() / 0.75)) - 1) << 1; // HashMap's table size
+        int[] chain = new int[tableSize];
+        int[] hashes = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            Object k = keys.get(i);
+            hashes[i] = k.hashCode();
+            chain[bucketOf(k, tableSize)]++;
+        }
+        int used = 0;
+        int longest = 0;
+        long probeSum = 0;
+        for (int c : chain) {
+            if (c > 0) used++;
+            longest = Math.max(longest, c);
+            probeSum += (long) c * (c + 1) / 2; // i-th entry in a chain costs i comparisons to find
+        }
+        Arrays.sort(hashes);
+        int distinct = hashes.length == 0 ? 0 : 1;
+        for (int i = 1; i < hashes.length; i++) if (hashes[i] != hashes[i - 1]) distinct++;
+        return new HashReport(label, keys.size(), distinct, tableSize, used, longest, (double) probeSum / keys.size());
+    }
+
+    // Typical user classes with hashCode implementations of varying quality
+    static class SumHashPoint {
+        final int x, y;
+        SumHashPoint(int x, int y) { this.x = x; this.y = y; }
+        @Override public boolean equals(Object o) {
+            return o instanceof SumHashPoint && ((SumHashPoint) o).x == x && ((SumHashPoint) o).y == y;
+        }
+        @Override public int hashCode() { return x + y; } // (1,2) and (2,1) collide; whole diagonals share a hash
+    }
+
+    static class ObjectsHashPoint {
+        final int x, y;
+        ObjectsHashPoint(int x, int y) { this.x = x; this.y = y; }
+        @Override public boolean equals(Object o) {
+            return o instanceof ObjectsHashPoint && ((ObjectsHashPoint) o).x == x && ((ObjectsHashPoint) o).y == y;
+        }
+        @Override public int hashCode() { return Objects.hash(x, y); } // 31 * (31 + x) + y: better, but still linear
+    }
+
+    static class MixedHashPoint {
+        final int x, y;
+        MixedHashPoint(int x, int y) { this.x = x; this.y = y; }
+        @Override public boolean equals(Object o) {
+            return o instanceof MixedHashPoint && ((MixedHashPoint) o).x == x && ((MixedHashPoint) o).y == y;
+        }
+        @Override public int hashCode() { return (int) LongObjectMap.mix(((long) x << 32) | (y & 0xFFFFFFFFL)); }
+    }
+
+    static class ConstantHashPoint {
+        final int x, y;
+        ConstantHashPoint(int x, int y) { this.x = x; this.y = y; }
+        @Override public boolean equals(Object o) {
+            return o instanceof ConstantHashPoint && ((ConstantHashPoint) o).x == x && ((ConstantHashPoint) o).y == y;
+        }
+        @Override public int hashCode() { return 42; } // legal (equal objects -> equal hashes) but every key collides
+    }
+
+    // ---- Part 2: open-addressing long -> V map -----------------------------------------------------
+
+    // Hash map from primitive long keys to values, using linear probing over two parallel arrays.
+    // Key 0 marks an empty slot, so a real 0 key is stored on the side. No Long boxes and no
+    // per-entry objects are allocated; a lookup touches one slot of keys in the common case.
+    static final class LongObjectMap<V> {
+        private static final float LOAD_FACTOR = 0.5f;
+
+        private long[] keys;
+        private Object[] values;
+        private int mask;
+        private int size;          // entries in the arrays (excludes the zero key)
+        private boolean hasZeroKey;
+        private Object zeroValue;
+
+        LongObjectMap(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+
+        // 64-bit finalizer from MurmurHash3: every input bit affects every output bit, so masking the low
+        // bits still spreads sequential or strided keys (ids, timestamps) across the table
+        static long mix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        int size() { return size + (hasZeroKey ? 1 : 0); }
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            if (key == 0) return hasZeroKey ? (V) zeroValue : null;
+            int i = (int) mix(key) & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == key) return (V) values[i];
+                if (k == 0) return null;
+                i = (i + 1) & mask;
+            }
+        }
+
+        boolean containsKey(long key) {
+            if (key == 0) return hasZeroKey;
+            int i = (int) mix(key) & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == key) return true;
+                if (k == 0) return false;
+                i = (i + 1) & mask;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V put(long key, V value) {
+            if (key == 0) {
+                V old = (V) zeroValue;
+                zeroValue = value;
+                hasZeroKey = true;
+                return old;
+            }
+            int i = (int) mix(key) & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == key) {
+                    V old = (V) values[i];
+                    values[i] = value;
+                    return old;
+                }
+                if (k == 0) {
+                    keys[i] = key;
+                    values[i] = value;
+                    if (++size > keys.length * LOAD_FACTOR) resize(keys.length << 1);
+                    return null;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key) {
+            if (key == 0) {
+                V old = (V) zeroValue;
+                hasZeroKey = false;
+                zeroValue = null;
+                return old;
+            }
+            int i = (int) mix(key) & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == 0) return null;
+                if (k == key) break;
+                i = (i + 1) & mask;
+            }
+            V old = (V) values[i];
+            // Backward-shift deletion: pull later entries of the same probe run into the gap, so lookups never
+            // need tombstones and the table does not degrade after many removes
+            int gap = i;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                long k = keys[j];
+                if (k == 0) break;
+                int home = (int) mix(k) & mask;
+                // Move k only if its home slot is not in the cyclic range (gap, j]
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = k;
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            values[gap] = null;
+            size--;
+            return old;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            for (int s = 0; s < oldKeys.length; s++) {
+                long k = oldKeys[s];
+                if (k == 0) continue;
+                int i = (int) mix(k) & mask;
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = k;
+                values[i] = oldValues[s];
+            }
+        }
+    }
+
+    // ---- Benchmarks ------------------------------------------------------------------------------------
+
+    static volatile Object sink;
+
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    static void checkAgainstHashMap(int n) {
+        Random rnd = new Random(1);
+        LongObjectMap<Long> mine = new LongObjectMap<>(4);
+        Map<Long, Long> ref = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            long k = rnd.nextInt(n / 4) - n / 8; // small range: lots of overwrites, removes, and the 0 key
+            int op = rnd.nextInt(3);
+            if (op == 0) {
+                if (!Objects.equals(mine.put(k, k * 3), ref.put(k, k * 3))) throw new AssertionError("put " + k);
+            } else if (op == 1) {
+                if (!Objects.equals(mine.remove(k), ref.remove(k))) throw new AssertionError("remove " + k);
+            } else if (!Objects.equals(mine.get(k), ref.get(k))) {
+                throw new AssertionError("get " + k);
+            }
+        }
+        if (mine.size() != ref.size()) throw new AssertionError("size " + mine.size() + " vs " + ref.size());
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("-- Part 1: bucket collisions for user hashCode() implementations (HashMap bucket rule) --");
+        int side = (int) Math.sqrt(Math.min(n, 250_000));
+        List<Object> sum = new ArrayList<>(), objects = new ArrayList<>(), mixed = new ArrayList<>(), constant = new ArrayList<>();
+        List<Object> strings = new ArrayList<>(), boxedLongs = new ArrayList<>();
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                sum.add(new SumHashPoint(x, y));
+                objects.add(new ObjectsHashPoint(x, y));
+                mixed.add(new MixedHashPoint(x, y));
+                strings.add(x + "," + y);
+                boxedLongs.add(((long) x << 32) | y);    // Long.hashCode folds the high half onto the low half
+                if (constant.size() < 5_000) constant.add(new ConstantHashPoint(x, y));
+            }
+        }
+        System.out.println(analyze("x + y", sum));
+        System.out.println(analyze("Objects.hash(x, y)", objects));
+        System.out.println(analyze("mix64(x, y)", mixed));
+        System.out.println(analyze("String \"x,y\"", strings));
+        System.out.println(analyze("Long (x << 32 | y)", boxedLongs));
+        System.out.println(analyze("constant 42 (5k keys only)", constant));
+
+        System.out.println();
+        System.out.println("-- Part 2: LongObjectMap vs HashMap<Long, V> with " + n + " entries --");
+        checkAgainstHashMap(200_000);
+        System.out.println("randomized put/get/remove check against HashMap: ok");
+
+        long[] keys = new long[n];
+        Random rnd = new Random(3);
+        for (int i = 0; i < n; i++) keys[i] = rnd.nextLong();
+        String value = "v"; // one shared value, so only the map structure is measured
+
+        long before = usedHeap();
+        LongObjectMap<String> open = new LongObjectMap<>(n);
+        for (long k : keys) open.put(k, value);
+        long openBytes = usedHeap() - before;
+
+        before = usedHeap();
+        Map<Long, String> boxed = new HashMap<>(n * 4 / 3 + 1);
+        for (long k : keys) boxed.put(k, value);
+        long boxedBytes = usedHeap() - before;
+
+        System.out.printf("retained heap: LongObjectMap %6.1f MB (%5.1f B/entry), HashMap<Long,V> %6.1f MB (%5.1f B/entry)%n",
+                openBytes / 1e6, (double) openBytes / n, boxedBytes / 1e6, (double) boxedBytes / n);
+
+        long[] probes = new long[n];
+        for (int i = 0; i < n; i++) probes[i] = keys[rnd.nextInt(n)];
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            int hits = 0;
+            for (long k : probes) if (open.get(k) != null) hits++;
+            long t1 = System.nanoTime();
+            for (long k : probes) if (boxed.get(k) != null) hits++;
+            long t2 = System.nanoTime();
+            sink = hits;
+            if (round >= 2) { // first rounds are JIT warm-up
+                System.out.printf("lookup latency round %d: LongObjectMap %6.1f ns/op, HashMap<Long,V> %6.1f ns/op%n",
+                        round - 1, (double) (t1 - t0) / n, (double) (t2 - t1) / n);
+            }
+        }
+        sink = open;
+        sink = boxed;
+
+        System.out.println();
+        System.out.println("Notes:");
+        System.out.println(" - equals() decides whether a key is found; hashCode() decides how many keys are compared first.");
+        System.out.println(" - HashMap<Long,V> pays for a Long box plus a Node per entry and a pointer chase per probe.");
+        System.out.println(" - Open addressing keeps keys in one long[], so a probe sequence is a few adjacent reads.");
+    }
+}
@@ -0,0 +1,210 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Lab: the promotion rules from NumericPromotionDemo/CompoundAssignmentDemo also decide whether the JIT can
+// vectorize a loop (process 4-64 elements per instruction with SIMD). Each kernel is written two ways:
+//   int-promoted: the minimum promotion Java forces (byte/short -> int), narrowed back by a compound op=
+//   wide:         the same math done through long intermediates, so every element is widened and narrowed
+// A kernel is flagged "not vectorized" when it barely speeds up compared with a child JVM run with the
+// auto-vectorizer switched off (-XX:-UseSuperWord).
+// Run: java NumericKernelLab [elements] [rounds]   (numbers are millions of elements per second)
+public class NumericKernelLab {
+    static final int A = 3;        // saxpy scale
+    static final int LO = -50;     // clamp bounds
+    static final int HI = 50;
+    // Below this ratio the difference is within run-to-run noise, so treat the loop as scalar
+    static final double VECTORIZED_SPEEDUP = 1.5;
+
+    // ---- byte ----
+    static int sumBytePromoted(byte[] x) { int s = 0; for (int i = 0; i < x.length; i++) s += x[i]; return s; }
+    static int sumByteWide(byte[] x) { long s = 0; for (int i = 0; i < x.length; i++) s += (long) x[i]; return (int) s; }
+    static int saxpyBytePromoted(byte[] x, byte[] y) { for (int i = 0; i < x.length; i++) y[i] += A * x[i]; return y[0]; }
+    static int saxpyByteWide(byte[] x, byte[] y) { for (int i = 0; i < x.length; i++) y[i] = (byte) ((long) A * x[i] + y[i]); return y[0]; }
+    static int clampBytePromoted(byte[] x, byte[] y) { for (int i = 0; i < x.length; i++) y[i] = (byte) Math.min(Math.max(x[i], LO), HI); return y[0]; }
+    static int clampByteWide(byte[] x, byte[] y) { for (int i = 0; i < x.length; i++) y[i] = (byte) Math.min(Math.max((long) x[i], LO), HI); return y[0]; }
+    static int histByteMasked(byte[] x, int[] h) { for (int i = 0; i < x.length; i++) h[x[i] & 0xFF]++; return h[0]; }
+    static int histByteWide(byte[] x, int[] h) { for (int i = 0; i < x.length; i++) h[(int) ((long) x[i] + 128)]++; return h[0]; }
+
+    // ---- short ----
+    static int sumShortPromoted(short[] x) { int s = 0; for (int i = 0; i < x.length; i++) s += x[i]; return s; }
+    static int sumShortWide(short[] x) { long s = 0; for (int i = 0; i < x.length; i++) s += (long) x[i]; return (int) s; }
+    static int saxpyShortPromoted(short[] x, short[] y) { for (int i = 0; i < x.length; i++) y[i] += A * x[i]; return y[0]; }
+    static int saxpyShortWide(short[] x, short[] y) { for (int i = 0; i < x.length; i++) y[i] = (short) ((long) A * x[i] + y[i]); return y[0]; }
+    static int clampShortPromoted(short[] x, short[] y) { for (int i = 0; i < x.length; i++) y[i] = (short) Math.min(Math.max(x[i], LO), HI); return y[0]; }
+    static int clampShortWide(short[] x, short[] y) { for (int i = 0; i < x.length; i++) y[i] = (short) Math.min(Math.max((long) x[i], LO), HI); return y[0]; }
+    static int histShortMasked(short[] x, int[] h) { for (int i = 0; i < x.length; i++) h[x[i] & 0xFF]++; return h[0]; }
+    static int histShortWide(short[] x, int[] h) { for (int i = 0; i < x.length; i++) h[(int) ((long) x[i] & 0xFF)]++; return h[0]; }
+
+    // ---- int ----
+    static int sumIntPromoted(int[] x) { int s = 0; for (int i = 0; i < x.length; i++) s += x[i]; return s; }
+    static int sumIntWide(int[] x) { long s = 0; for (int i = 0; i < x.length; i++) s += (long) x[i]; return (int) s; }
+    static int saxpyIntPromoted(int[] x, int[] y) { for (int i = 0; i < x.length; i++) y[i] += A * x[i]; return y[0]; }
+    static int saxpyIntWide(int[] x, int[] y) { for (int i = 0; i < x.length; i++) y[i] = (int) ((long) A * x[i] + y[i]); return y[0]; }
+    static int clampIntPromoted(int[] x, int[] y) { for (int i = 0; i < x.length; i++) y[i] = Math.min(Math.max(x[i], LO), HI); return y[0]; }
+    static int clampIntWide(int[] x, int[] y) { for (int i = 0; i < x.length; i++) y[i] = (int) Math.min(Math.max((long) x[i], LO), HI); return y[0]; }
+    static int histIntMasked(int[] x, int[] h) { for (int i = 0; i < x.length; i++) h[x[i] & 0xFF]++; return h[0]; }
+    static int histIntWide(int[] x, int[] h) { for (int i = 0; i < x.length; i++) h[(int) ((long) x[i] & 0xFF)]++; return h[0]; }
+
+    // ---- long and double: already the widest types, so there is only one natural style ----
+    static int sumLong(long[] x) { long s = 0; for (int i = 0; i < x.length; i++) s += x[i]; return (int) s; }
+    static int saxpyLong(long[] x, long[] y) { for (int i = 0; i < x.length; i++) y[i] += A * x[i]; return (int) y[0]; }
+    static int clampLong(long[] x, long[] y) { for (int i = 0; i < x.length; i++) y[i] = Math.min(Math.max(x[i], LO), HI); return (int) y[0]; }
+    static int histLong(long[] x, int[] h) { for (int i = 0; i < x.length; i++) h[(int) (x[i] & 0xFF)]++; return h[0]; }
+
+    // Floating-point addition is not associative, so the JIT must keep this reduction in source order
+    static int sumDouble(double[] x) { double s = 0; for (int i = 0; i < x.length; i++) s += x[i]; return (int) s; }
+    static int saxpyDouble(double[] x, double[] y) { for (int i = 0; i < x.length; i++) y[i] += A * x[i]; return (int) y[0]; }
+    static int clampDouble(double[] x, double[] y) { for (int i = 0; i < x.length; i++) y[i] = Math.min(Math.max(x[i], LO), HI); return (int) y[0]; }
+    static int histDouble(double[] x, int[] h) { for (int i = 0; i < x.length; i++) h[(int) (x[i] - LO) & 0xFF]++; return h[0]; }
+
+    interface Kernel { int run(); }
+
+    static final class Case {
+        final String type, kernel, style;
+        final Kernel body;
+        Case(String type, String kernel, String style, Kernel body) {
+            this.type = type; this.kernel = kernel; this.style = style; this.body = body;
+        }
+        String key() { return type + "/" + kernel + "/" + style; }
+    }
+
+    static List<Case> cases(int n) {
+        Random rnd = new Random(11);
+        byte[] bx = new byte[n], by = new byte[n];
+        short[] sx = new short[n], sy = new short[n];
+        int[] ix = new int[n], iy = new int[n];
+        long[] lx = new long[n], ly = new long[n];
+        double[] dx = new double[n], dy = new double[n];
+        for (int i = 0; i < n; i++) {
+            int v = rnd.nextInt(256) - 128;
+            bx[i] = (byte) v; sx[i] = (short) v; ix[i] = v; lx[i] = v; dx[i] = v;
+        }
+        int[] h = new int[256];
+
+        List<Case> c = new ArrayList<>();
+        c.add(new Case("byte", "sum", "int-promoted", () -> sumBytePromoted(bx)));
+        c.add(new Case("byte", "sum", "wide", () -> sumByteWide(bx)));
+        c.add(new Case("byte", "saxpy", "int-promoted", () -> saxpyBytePromoted(bx, by)));
+        c.add(new Case("byte", "saxpy", "wide", () -> saxpyByteWide(bx, by)));
+        c.add(new Case("byte", "clamp", "int-promoted", () -> clampBytePromoted(bx, by)));
+        c.add(new Case("byte", "clamp", "wide", () -> clampByteWide(bx, by)));
+        c.add(new Case("byte", "histogram", "int-promoted", () -> histByteMasked(bx, h)));
+        c.add(new Case("byte", "histogram", "wide", () -> histByteWide(bx, h)));
+
+        c.add(new Case("short", "sum", "int-promoted", () -> sumShortPromoted(sx)));
+        c.add(new Case("short", "sum", "wide", () -> sumShortWide(sx)));
+        c.add(new Case("short", "saxpy", "int-promoted", () -> saxpyShortPromoted(sx, sy)));
+        c.add(new Case("short", "saxpy", "wide", () -> saxpyShortWide(sx, sy)));
+        c.add(new Case("short", "clamp", "int-promoted", () -> clampShortPromoted(sx, sy)));
+        c.add(new Case("short", "clamp", "wide", () -> clampShortWide(sx, sy)));
+        c.add(new Case("short", "histogram", "int-promoted", () -> histShortMasked(sx, h)));
+        c.add(new Case("short", "histogram", "wide", () -> histShortWide(sx, h)));
+
+        c.add(new Case("int", "sum", "int-promoted", () -> sumIntPromoted(ix)));
+        c.add(new Case("int", "sum", "wide", () -> sumIntWide(ix)));
+        c.add(new Case("int", "saxpy", "int-promoted", () -> saxpyIntPromoted(ix, iy)));
+        c.add(new Case("int", "saxpy", "wide", () -> saxpyIntWide(ix, iy)));
+        c.add(new Case("int", "clamp", "int-promoted", () -> clampIntPromoted(ix, iy)));
+        c.add(new Case("int", "clamp", "wide", () -> clampIntWide(ix, iy)));
+        c.add(new Case("int", "histogram", "int-promoted", () -> histIntMasked(ix, h)));
+        c.add(new Case("int", "histogram", "wide", () -> histIntWide(ix, h)));
+
+        c.add(new Case("long", "sum", "native", () -> sumLong(lx)));
+        c.add(new Case("long", "saxpy", "native", () -> saxpyLong(lx, ly)));
+        c.add(new Case("long", "clamp", "native", () -> clampLong(lx, ly)));
+        c.add(new Case("long", "histogram", "native", () -> histLong(lx, h)));
+
+        c.add(new Case("double", "sum", "native", () -> sumDouble(dx)));
+        c.add(new Case("double", "saxpy", "native", () -> saxpyDouble(dx, dy)));
+        c.add(new Case("double", "clamp", "native", () -> clampDouble(dx, dy)));
+        c.add(new Case("double", "histogram", "native", () -> histDouble(dx, h)));
+        return c;
+    }
+
+    static volatile int sink;
+
+    static double millionsPerSecond(Kernel k, int n, int rounds) {
+        for (int i = 0; i < rounds * 5; i++) sink += k.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            sink += k.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return n * 1e3 / best;
+    }
+
+    static Map<String, Double> measureAll(int n, int rounds) {
+        Map<String, Double> result = new HashMap<>();
+        for (Case c : cases(n)) result.put(c.key(), millionsPerSecond(c.body, n, rounds));
+        return result;
+    }
+
+    // Same measurements in a child JVM with SuperWord (the loop auto-vectorizer) disabled
+    static Map<String, Double> measureScalarBaseline(int n, int rounds) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process p = new ProcessBuilder(java, "-XX:-UseSuperWord", "-cp", System.getProperty("java.class.path"),
+                "NumericKernelLab", "--raw", String.valueOf(n), String.valueOf(rounds)).redirectErrorStream(true).start();
+        Map<String, Double> result = new HashMap<>();
+        StringBuilder other = new StringBuilder(); // anything that is not a result line: JVM errors, exceptions
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length == 2) result.put(parts[0], Double.parseDouble(parts[1]));
+                else other.append(line).append('\n');
+            }
+        }
+        int exit = p.waitFor();
+        if (exit != 0) throw new IOException("scalar baseline JVM failed (exit " + exit + "):\n" + other);
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean raw = args.length > 0 && args[0].equals("--raw");
+        int offset = raw ? 1 : 0;
+        // Default size fits in L2 cache, so memory bandwidth does not hide the instruction-level differences
+        int n = args.length > offset ? Integer.parseInt(args[offset]) : 1 << 14;
+        int rounds = args.length > offset + 1 ? Integer.parseInt(args[offset + 1]) : 2000;
+
+        if (raw) {
+            for (Map.Entry<String, Double> e : measureAll(n, rounds).entrySet()) {
+                System.out.println(e.getKey() + "\t" + e.getValue());
+            }
+            return;
+        }
+
+        Map<String, Double> vector = measureAll(n, rounds);
+        Map<String, Double> scalar = measureScalarBaseline(n, rounds);
+
+        System.out.println("elements=" + n + ", rounds=" + rounds + "; speedup = default JIT / -XX:-UseSuperWord");
+        System.out.printf("%-7s %-10s %-13s %10s %10s %8s%n", "type", "kernel", "style", "Melem/s", "scalar", "speedup");
+        for (Case c : cases(1)) {
+            double v = vector.get(c.key());
+            Double s = scalar.get(c.key());
+            if (s == null) {
+                System.out.printf("%-7s %-10s %-13s %10.1f %10s %8s%n", c.type, c.kernel, c.style, v, "?", "?");
+                continue;
+            }
+            double speedup = v / s;
+            System.out.printf("%-7s %-10s %-13s %10.1f %10.1f %8.2f%s%n", c.type, c.kernel, c.style, v, s, speedup,
+                    speedup < VECTORIZED_SPEEDUP ? "  <- not vectorized" : "");
+        }
+
+        System.out.println();
+        System.out.println("Notes:");
+        System.out.println(" - byte/short math is always done in int, but narrowing back with op= keeps the lanes narrow,");
+        System.out.println("   so more elements fit in one SIMD register than with long intermediates.");
+        System.out.println(" - A double sum is a strict left-to-right reduction and is not vectorized; saxpy/clamp are.");
+        System.out.println(" - Histograms scatter to data-dependent indexes and are not vectorized by HotSpot;");
+        System.out.println("   a ratio above 1 there is noise or loop unrolling, not SIMD.");
+        System.out.println(" - Results depend on the JDK and CPU; -XX:+UnlockDiagnosticVMOptions -XX:+PrintAssembly shows the code.");
+    }
+}
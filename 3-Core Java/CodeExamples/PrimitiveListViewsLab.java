@@ -0,0 +1,359 @@
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+
+// Lab: Arrays.asList only works for object arrays. Arrays.asList(int[]) compiles, but it gives a List<int[]> with
+// one element. The usual fix copies into a List<Integer>, which boxes every element: about 16 bytes per Integer
+// plus a 4-8 byte reference, and a pointer chase on every read.
+// This lab adds List views backed directly by int[], long[] and double[]:
+//   - fixed size like Arrays.asList: set() writes through to the array, add()/remove() throw
+//   - subList() returns a slice view of the same array, so a slice can be sorted or filled in place
+//   - primitive bulk operations (sort, fill, indexOf, getInt/setInt) never box
+// Any List<Integer> API still works on a view (for-each, equals, Collections.max, ...); only those calls box.
+// Run: java -Xmx3g PrimitiveListViewsLab [elements]     (default 10,000,000)
+public class PrimitiveListViewsLab {
+
+    // Shared bounds handling for the three views: a window [from, from + size) of some backing array
+    abstract static class ArraySlice<E> extends AbstractList<E> implements RandomAccess {
+        final int from;
+        final int size;
+
+        ArraySlice(int from, int size) { this.from = from; this.size = size; }
+
+        @Override
+        public int size() { return size; }
+
+        int at(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            return from + index;
+        }
+
+        static void checkRange(int from, int to, int length) {
+            if (from < 0 || to > length || from > to) throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + length);
+        }
+
+        @Override
+        public abstract ArraySlice<E> subList(int fromIndex, int toIndex);
+    }
+
+    static final class IntListView extends ArraySlice<Integer> {
+        private final int[] a;
+
+        IntListView(int[] a, int from, int to) {
+            super(from, to - from);
+            checkRange(from, to, a.length);
+            this.a = a;
+        }
+
+        static IntListView of(int... a) { return new IntListView(a, 0, a.length); }
+
+        public int getInt(int index) { return a[at(index)]; }
+        public void setInt(int index, int value) { a[at(index)] = value; }
+
+        @Override public Integer get(int index) { return a[at(index)]; }
+
+        @Override
+        public Integer set(int index, Integer value) {
+            int i = at(index);
+            int old = a[i];
+            a[i] = value; // unboxes: a null throws NullPointerException, as it would for an int[] store
+            return old;
+        }
+
+        public int indexOf(int value) {
+            for (int i = from, end = from + size; i < end; i++) if (a[i] == value) return i - from;
+            return -1;
+        }
+
+        @Override
+        public int indexOf(Object o) { return o instanceof Integer ? indexOf(((Integer) o).intValue()) : -1; }
+
+        @Override
+        public boolean contains(Object o) { return indexOf(o) >= 0; }
+
+        public void sort() { Arrays.sort(a, from, from + size); }
+
+        // List.sort(null) means natural order: sort the ints directly instead of boxing through a comparator
+        @Override
+        public void sort(Comparator<? super Integer> c) {
+            if (c == null) sort();
+            else super.sort(c);
+        }
+
+        public void fill(int value) { Arrays.fill(a, from, from + size, value); }
+
+        public int[] toIntArray() { return Arrays.copyOfRange(a, from, from + size); }
+
+        @Override
+        public IntListView subList(int fromIndex, int toIndex) {
+            checkRange(fromIndex, toIndex, size);
+            return new IntListView(a, from + fromIndex, from + toIndex);
+        }
+    }
+
+    static final class LongListView extends ArraySlice<Long> {
+        private final long[] a;
+
+        LongListView(long[] a, int from, int to) {
+            super(from, to - from);
+            checkRange(from, to, a.length);
+            this.a = a;
+        }
+
+        static LongListView of(long... a) { return new LongListView(a, 0, a.length); }
+
+        public long getLong(int index) { return a[at(index)]; }
+        public void setLong(int index, long value) { a[at(index)] = value; }
+
+        @Override public Long get(int index) { return a[at(index)]; }
+
+        @Override
+        public Long set(int index, Long value) {
+            int i = at(index);
+            long old = a[i];
+            a[i] = value;
+            return old;
+        }
+
+        public int indexOf(long value) {
+            for (int i = from, end = from + size; i < end; i++) if (a[i] == value) return i - from;
+            return -1;
+        }
+
+        @Override
+        public int indexOf(Object o) { return o instanceof Long ? indexOf(((Long) o).longValue()) : -1; }
+
+        @Override
+        public boolean contains(Object o) { return indexOf(o) >= 0; }
+
+        public void sort() { Arrays.sort(a, from, from + size); }
+
+        @Override
+        public void sort(Comparator<? super Long> c) {
+            if (c == null) sort();
+            else super.sort(c);
+        }
+
+        public void fill(long value) { Arrays.fill(a, from, from + size, value); }
+
+        public long[] toLongArray() { return Arrays.copyOfRange(a, from, from + size); }
+
+        @Override
+        public LongListView subList(int fromIndex, int toIndex) {
+            checkRange(fromIndex, toIndex, size);
+            return new LongListView(a, from + fromIndex, from + toIndex);
+        }
+    }
+
+    static final class DoubleListView extends ArraySlice<Double> {
+        private final double[] a;
+
+        DoubleListView(double[] a, int from, int to) {
+            super(from, to - from);
+            checkRange(from, to, a.length);
+            this.a = a;
+        }
+
+        static DoubleListView of(double... a) { return new DoubleListView(a, 0, a.length); }
+
+        public double getDouble(int index) { return a[at(index)]; }
+        public void setDouble(int index, double value) { a[at(index)] = value; }
+
+        @Override public Double get(int index) { return a[at(index)]; }
+
+        @Override
+        public Double set(int index, Double value) {
+            int i = at(index);
+            double old = a[i];
+            a[i] = value;
+            return old;
+        }
+
+        // Same equality as Double.equals (which List.indexOf uses): NaN finds NaN, and 0.0 does not find -0.0
+        public int indexOf(double value) {
+            long bits = Double.doubleToLongBits(value);
+            for (int i = from, end = from + size; i < end; i++) if (Double.doubleToLongBits(a[i]) == bits) return i - from;
+            return -1;
+        }
+
+        @Override
+        public int indexOf(Object o) { return o instanceof Double ? indexOf(((Double) o).doubleValue()) : -1; }
+
+        @Override
+        public boolean contains(Object o) { return indexOf(o) >= 0; }
+
+        // Arrays.sort(double[]) uses the same total order as Double.compareTo (-0.0 before 0.0, NaN last)
+        public void sort() { Arrays.sort(a, from, from + size); }
+
+        @Override
+        public void sort(Comparator<? super Double> c) {
+            if (c == null) sort();
+            else super.sort(c);
+        }
+
+        public void fill(double value) { Arrays.fill(a, from, from + size, value); }
+
+        public double[] toDoubleArray() { return Arrays.copyOfRange(a, from, from + size); }
+
+        @Override
+        public DoubleListView subList(int fromIndex, int toIndex) {
+            checkRange(fromIndex, toIndex, size);
+            return new DoubleListView(a, from + fromIndex, from + toIndex);
+        }
+    }
+
+    // ---- semantics ----
+
+    static void semantics() {
+        int[] numbers = { 5, 3, 9, 1, 7, 2 };
+        List<int[]> wrong = Arrays.asList(numbers);
+        System.out.println("Arrays.asList(int[]).size() = " + wrong.size() + "   (one element: the array itself)");
+
+        IntListView view = IntListView.of(numbers);
+        System.out.println("view           " + view + "  size " + view.size());
+        view.set(0, 50);
+        System.out.println("set(0, 50)     array[0] = " + numbers[0] + "   (writes through)");
+        IntListView middle = view.subList(1, 5);
+        middle.sort();
+        System.out.println("subList(1,5).sort() -> array " + Arrays.toString(numbers) + "   (only the slice moved)");
+        middle.fill(0);
+        System.out.println("slice.fill(0)  -> array " + Arrays.toString(numbers));
+        System.out.println("indexOf(2) = " + view.indexOf(2) + ", contains(50) = " + view.contains(50)
+                + ", equals(List.of-style list) = " + view.equals(Arrays.asList(50, 0, 0, 0, 0, 2)));
+        try {
+            view.add(4);
+        } catch (UnsupportedOperationException e) {
+            System.out.println("add(4)         UnsupportedOperationException (fixed size, like Arrays.asList)");
+        }
+        DoubleListView d = DoubleListView.of(0.5, Double.NaN, -0.0, 0.0);
+        System.out.println("double view indexOf(NaN) = " + d.indexOf(Double.NaN) + ", indexOf(0.0) = " + d.indexOf(0.0)
+                + "   (Double.equals rules)");
+        System.out.println();
+    }
+
+    // ---- benchmark harness ----
+
+    interface Task { long run(); }
+
+    static volatile long sink;
+
+    // Best time of `rounds` (after one warm-up run) and the bytes allocated by the last run
+    static void measure(String label, Task boxed, Task view, int rounds) {
+        double[] b = time(boxed, rounds);
+        double[] v = time(view, rounds);
+        double speedup = b[0] / Math.max(v[0], 0.001);
+        System.out.printf("  %-28s %10.1f ms %9.1f MB   %10.2f ms %9.1f MB   %8s%n",
+                label, b[0], b[1], v[0], v[1], speedup >= 1000 ? ">1000x" : String.format("%.1fx", speedup));
+    }
+
+    static double[] time(Task t, int rounds) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        sink += t.run();
+        double best = Double.MAX_VALUE;
+        long bytes = 0;
+        for (int r = 0; r < rounds; r++) {
+            long a0 = threads.getThreadAllocatedBytes(self);
+            long t0 = System.nanoTime();
+            sink += t.run();
+            best = Math.min(best, (System.nanoTime() - t0) / 1e6);
+            bytes = threads.getThreadAllocatedBytes(self) - a0;
+        }
+        return new double[] { best, bytes / 1e6 };
+    }
+
+    static List<Integer> boxedCopy(int[] a) {
+        List<Integer> list = new ArrayList<>(a.length);
+        for (int x : a) list.add(x);
+        return list;
+    }
+
+    public static void main(String[] args) {
+        semantics();
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random rnd = new Random(1);
+        int[] ints = new int[n];
+        for (int i = 0; i < n; i++) ints[i] = rnd.nextInt();
+        int missing = 42;
+        for (int i = 0; i < n; i++) if (ints[i] == missing) ints[i] = 43; // indexOf scans the whole list
+
+        System.out.println("-- " + n + " ints: List<Integer> copy vs IntListView (best of 3) --");
+        System.out.printf("  %-28s %13s %12s   %13s %12s   %8s%n", "", "List<Integer>", "allocated", "view", "allocated", "speedup");
+        measure("wrap as List", () -> boxedCopy(ints).size(), () -> IntListView.of(ints).size(), 3);
+
+        List<Integer> boxed = boxedCopy(ints);
+        IntListView view = IntListView.of(ints);
+        measure("sum (for-each vs getInt)", () -> {
+            long s = 0;
+            for (Integer x : boxed) s += x;
+            return s;
+        }, () -> {
+            long s = 0;
+            for (int i = 0; i < view.size(); i++) s += view.getInt(i);
+            return s;
+        }, 3);
+        measure("indexOf(absent)", () -> boxed.indexOf(missing), () -> view.indexOf(missing), 3);
+        measure("fill", () -> {
+            Collections.fill(boxed, 7);
+            return boxed.size();
+        }, () -> {
+            view.fill(7);
+            return view.size();
+        }, 3);
+
+        // Sorting works on fresh copies of the same random data each round
+        int[] source = new int[n];
+        for (int i = 0; i < n; i++) source[i] = rnd.nextInt();
+        measure("sort", () -> {
+            List<Integer> copy = boxedCopy(source);
+            Collections.sort(copy);
+            return copy.get(0);
+        }, () -> {
+            IntListView copy = IntListView.of(source.clone());
+            copy.sort(null);
+            return copy.getInt(0);
+        }, 2);
+
+        System.out.println();
+        System.out.println("-- long[] / double[] views (best of 2) --");
+        long[] longs = new long[n];
+        double[] doubles = new double[n];
+        for (int i = 0; i < n; i++) { longs[i] = rnd.nextLong(); doubles[i] = rnd.nextDouble(); }
+        measure("long sort", () -> {
+            List<Long> copy = new ArrayList<>(n);
+            for (long x : longs) copy.add(x);
+            Collections.sort(copy);
+            return copy.get(0);
+        }, () -> {
+            LongListView copy = LongListView.of(longs.clone());
+            copy.sort(null);
+            return copy.getLong(0);
+        }, 2);
+        measure("double sort", () -> {
+            List<Double> copy = new ArrayList<>(n);
+            for (double x : doubles) copy.add(x);
+            Collections.sort(copy);
+            return (long) (copy.get(0) * 1e9);
+        }, () -> {
+            DoubleListView copy = DoubleListView.of(doubles.clone());
+            copy.sort(null);
+            return (long) (copy.getDouble(0) * 1e9);
+        }, 2);
+
+        System.out.println();
+        System.out.println("Notes:");
+        System.out.println(" - Wrapping is O(1) and allocates one small object; the boxed copy allocates every element.");
+        System.out.println(" - Both sort columns include making a fresh copy of the data (boxed list vs int[] clone).");
+        System.out.println(" - Sorting a primitive array uses dual-pivot quicksort on the values; the boxed list is sorted");
+        System.out.println("   by TimSort through compareTo calls on scattered Integer objects.");
+        System.out.println(" - Reading the view through List<Integer> (for-each, get) boxes each value again; the JIT can often");
+        System.out.println("   remove that, but not reliably, so use getInt/indexOf(int) in hot loops.");
+    }
+}
@@ -1,4 +1,4 @@
-// Demonstrates static initializer order and instance initialization order
+// Demonstrates static initializer order, instance initialization order, and the lazy-holder idiom
 public class StaticAndInitializationOrderDemo {
     static {
         System.out.println("[Static block] class is initializing");
@@ -16,6 +16,16 @@ public class StaticAndInitializationOrderDemo {
         print("  [Constructor] runs last for this instance");
     }
 
+    // Lazy holder: a nested class is initialized on first use, not when the outer class is.
+    // Expensive static state placed here stays off the startup path until someone needs it.
+    static class Holder {
+        static final String EXPENSIVE = expensive();
+        static String expensive() {
+            print("[Holder static field] initialized on first access");
+            return "ready";
+        }
+    }
+
     static int print(String msg) {
         System.out.println(msg);
         return 0;
@@ -26,5 +36,8 @@ public class StaticAndInitializationOrderDemo {
         new StaticAndInitializationOrderDemo();
         System.out.println("-- second instance --");
         new StaticAndInitializationOrderDemo();
+        System.out.println("-- first use of Holder --");
+        System.out.println("Holder.EXPENSIVE=" + Holder.EXPENSIVE);
+        System.out.println("Holder.EXPENSIVE=" + Holder.EXPENSIVE + " (second access: no initializer output)");
     }
 }
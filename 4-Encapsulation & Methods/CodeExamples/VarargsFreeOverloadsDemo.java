@@ -0,0 +1,298 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Demonstrates the hidden cost of varargs: every call to m(Object...) builds a new Object[] (even m() with no
+// arguments, and even when the callee ignores it). Fixed-arity overloads for 0-5 arguments are picked first by
+// overload resolution (varargs is the last phase), so callers get allocation-free calls without code changes.
+// Run: java VarargsFreeOverloadsDemo [calls]       Regenerate the overloads: java VarargsFreeOverloadsDemo --generate
+public class VarargsFreeOverloadsDemo {
+    static final int MAX_FIXED_ARITY = 5;
+
+    // A logging API shaped like m(Object...): "{}" placeholders are replaced by the arguments, in order
+    static final class Log {
+        final StringBuilder out = new StringBuilder(256); // reused buffer; a real logger would hand it to an appender
+        boolean enabled;
+        long written;
+
+        // ---- BEGIN GENERATED by: java VarargsFreeOverloadsDemo --generate ----
+        void debug(String template) {
+            if (!enabled) return;
+            begin(template);
+            end(template);
+        }
+
+        void debug(String template, Object a1) {
+            if (!enabled) return;
+            begin(template);
+            arg(template, a1);
+            end(template);
+        }
+
+        void debug(String template, Object a1, Object a2) {
+            if (!enabled) return;
+            begin(template);
+            arg(template, a1);
+            arg(template, a2);
+            end(template);
+        }
+
+        void debug(String template, Object a1, Object a2, Object a3) {
+            if (!enabled) return;
+            begin(template);
+            arg(template, a1);
+            arg(template, a2);
+            arg(template, a3);
+            end(template);
+        }
+
+        void debug(String template, Object a1, Object a2, Object a3, Object a4) {
+            if (!enabled) return;
+            begin(template);
+            arg(template, a1);
+            arg(template, a2);
+            arg(template, a3);
+            arg(template, a4);
+            end(template);
+        }
+
+        void debug(String template, Object a1, Object a2, Object a3, Object a4, Object a5) {
+            if (!enabled) return;
+            begin(template);
+            arg(template, a1);
+            arg(template, a2);
+            arg(template, a3);
+            arg(template, a4);
+            arg(template, a5);
+            end(template);
+        }
+        // ---- END GENERATED ----
+
+        // Fallback for 6+ arguments; only reached when no fixed-arity overload applies
+        void debug(String template, Object a1, Object a2, Object a3, Object a4, Object a5, Object... more) {
+            if (!enabled) return;
+            begin(template);
+            arg(template, a1);
+            arg(template, a2);
+            arg(template, a3);
+            arg(template, a4);
+            arg(template, a5);
+            for (Object o : more) arg(template, o);
+            end(template);
+        }
+
+        // The shape we are replacing: one method, one array per call
+        void debugVarargs(String template, Object... args) {
+            if (!enabled) return;
+            begin(template);
+            for (Object o : args) arg(template, o);
+            end(template);
+        }
+
+        private int cursor; // position in template after the last consumed "{}"
+
+        private void begin(String template) {
+            out.setLength(0);
+            cursor = 0;
+        }
+
+        private void arg(String template, Object value) {
+            int at = template.indexOf("{}", cursor);
+            if (at < 0) return; // more arguments than placeholders: ignore the extras
+            out.append(template, cursor, at);
+            if (value instanceof CharSequence) out.append((CharSequence) value); // avoids String.valueOf copies
+            else out.append(value);
+            cursor = at + 2;
+        }
+
+        private void end(String template) {
+            out.append(template, cursor, template.length());
+            written += out.length();
+        }
+    }
+
+    // Emits the block between the BEGIN/END GENERATED markers above
+    static String generateOverloads(int maxArity) {
+        StringBuilder src = new StringBuilder();
+        for (int n = 0; n <= maxArity; n++) {
+            src.append("        void debug(String template");
+            for (int i = 1; i <= n; i++) src.append(", Object a").append(i);
+            src.append(") {\n");
+            src.append("            if (!enabled) return;\n");
+            src.append("            begin(template);\n");
+            for (int i = 1; i <= n; i++) src.append("            arg(template, a").append(i).append(");\n");
+            src.append("            end(template);\n");
+            src.append("        }\n");
+            if (n < maxArity) src.append('\n');
+        }
+        return src.toString();
+    }
+
+    // ---- Allocation counting -------------------------------------------------------------------------
+
+    interface CallSite { void call(Log log, int i); }
+
+    // HotSpot exposes per-thread allocated bytes through the com.sun.management extension of ThreadMXBean
+    static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static double bytesPerCall(Log log, CallSite site, int calls) {
+        for (int i = 0; i < calls; i++) site.call(log, i); // warm-up: measure JIT-compiled code
+        long before = allocatedBytes();
+        for (int i = 0; i < calls; i++) site.call(log, i);
+        return (double) (allocatedBytes() - before) / calls;
+    }
+
+    static double nsPerCall(Log log, CallSite site, int calls) {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < calls; i++) site.call(log, i);
+        return (double) (System.nanoTime() - t0) / calls;
+    }
+
+    static final String USER = "lemur";
+    static final String ACTION = "login";
+    static final String REGION = "eu-west";
+
+    static final String[] NAMES = {
+            "fixed arity, 0 args", "fixed arity, 3 args", "fixed arity, 5 args",
+            "varargs,     0 args", "varargs,     3 args", "varargs,     5 args"
+    };
+    static final CallSite[] SITES = {
+            (log, i) -> log.debug("tick"),
+            (log, i) -> log.debug("user {} did {} in {}", USER, ACTION, REGION),
+            (log, i) -> log.debug("{} {} {} {} {}", USER, ACTION, REGION, USER, ACTION),
+            (log, i) -> log.debugVarargs("tick"),
+            (log, i) -> log.debugVarargs("user {} did {} in {}", USER, ACTION, REGION),
+            (log, i) -> log.debugVarargs("{} {} {} {} {}", USER, ACTION, REGION, USER, ACTION)
+    };
+
+    // Per call site: {bytes/call with logging off, bytes/call with logging on}
+    static double[][] measureAll(int calls) {
+        double[][] bytes = new double[SITES.length][];
+        for (int k = 0; k < SITES.length; k++) {
+            Log enabled = new Log();
+            enabled.enabled = true;
+            bytes[k] = new double[] { bytesPerCall(new Log(), SITES[k], calls), bytesPerCall(enabled, SITES[k], calls) };
+        }
+        return bytes;
+    }
+
+    // The same measurement in a child JVM started with extra flags (its --raw mode prints one line per site)
+    static double[][] measureInChild(int calls, String flag) throws IOException, InterruptedException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("java.home") + "/bin/java");
+        cmd.add(flag);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("VarargsFreeOverloadsDemo");
+        cmd.add("--raw");
+        cmd.add(String.valueOf(calls));
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        double[][] bytes = new double[SITES.length][];
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length == 3) {
+                    bytes[Integer.parseInt(parts[0])] = new double[] { Double.parseDouble(parts[1]), Double.parseDouble(parts[2]) };
+                } else {
+                    System.out.println("[child] " + line);
+                }
+            }
+        }
+        if (p.waitFor() != 0) throw new IllegalStateException("child JVM failed: " + cmd);
+        return bytes;
+    }
+
+    // The block between the markers in this file's source, or null when the source isn't next to the class
+    static String generatedBlockInSource() throws IOException {
+        Path src = Paths.get("VarargsFreeOverloadsDemo.java");
+        if (!Files.exists(src)) return null;
+        String text = new String(Files.readAllBytes(src), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        String begin = "// ---- BEGIN GENERATED by: java VarargsFreeOverloadsDemo --generate ----\n";
+        int from = text.indexOf(begin), to = text.indexOf("        // ---- END GENERATED ----");
+        if (from < 0 || to < 0) return "";
+        return text.substring(from + begin.length(), to);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--generate")) {
+            System.out.print(generateOverloads(MAX_FIXED_ARITY));
+            return;
+        }
+        boolean raw = args.length > 0 && args[0].equals("--raw");
+        int offset = raw ? 1 : 0;
+        int calls = args.length > offset ? Integer.parseInt(args[offset]) : 5_000_000;
+        if (raw) {
+            double[][] bytes = measureAll(calls);
+            for (int k = 0; k < SITES.length; k++) System.out.println(k + "\t" + bytes[k][0] + "\t" + bytes[k][1]);
+            return;
+        }
+
+        // Overload resolution still works as the exam rules say: fixed arity first, varargs last
+        Log log = new Log();
+        log.enabled = true;
+        log.debug("{} + {} = {}", "1", "2", "3");
+        System.out.println("fixed-arity result: " + log.out);
+        log.debug("{}{}{}{}{}{}{}", "a", "b", "c", "d", "e", "f", "g"); // 7 args -> fallback overload
+        System.out.println("7-arg fallback result: " + log.out);
+
+        System.out.println();
+        double[][] eaOn = measureAll(calls);
+        double[][] eaOff = measureInChild(calls, "-XX:-DoEscapeAnalysis");
+        System.out.printf("%-22s %16s %16s %12s   %s%n", "call", "bytes/call (off)", "bytes/call (on)", "ns/call (on)",
+                "bytes/call (on), -XX:-DoEscapeAnalysis");
+        for (int k = 0; k < SITES.length; k++) {
+            Log enabled = new Log();
+            enabled.enabled = true;
+            double ns = nsPerCall(enabled, SITES[k], calls);
+            System.out.printf("%-22s %16.1f %16.1f %12.1f   %.1f%n", NAMES[k], eaOn[k][0], eaOn[k][1], ns, eaOff[k][1]);
+        }
+
+        // Allocation test: the fixed-arity family must not allocate once compiled, logging on or off, and without
+        // relying on escape analysis. The varargs sites must allocate when escape analysis is off: that shows the
+        // measurement sees the array, so 0 bytes for the fixed-arity family means there is no array to remove.
+        for (int k = 0; k < 3; k++) {
+            for (double[][] run : new double[][][] { eaOn, eaOff }) {
+                String mode = run == eaOn ? "" : " with -XX:-DoEscapeAnalysis";
+                if (run[k][0] > 1.0) throw new AssertionError(NAMES[k] + " allocates " + run[k][0] + " bytes/call (off)" + mode);
+                if (run[k][1] > 1.0) throw new AssertionError(NAMES[k] + " allocates " + run[k][1] + " bytes/call (on)" + mode);
+            }
+        }
+        for (int k = 3; k < SITES.length; k++) {
+            for (int on = 0; on < 2; on++) {
+                if (eaOff[k][on] < 16.0) {
+                    throw new AssertionError(NAMES[k] + " allocates only " + eaOff[k][on] + " bytes/call ("
+                            + (on == 1 ? "on" : "off") + ") with -XX:-DoEscapeAnalysis; expected its Object[]");
+                }
+            }
+        }
+
+        // The overloads above must be exactly what --generate prints
+        String block = generatedBlockInSource();
+        if (block != null && !block.equals(generateOverloads(MAX_FIXED_ARITY))) {
+            throw new AssertionError("the GENERATED block differs from --generate output; regenerate it");
+        }
+
+        System.out.println();
+        System.out.println("allocation check passed: fixed-arity overloads allocate nothing per call, even without");
+        System.out.println("escape analysis; varargs calls allocate their Object[] once escape analysis is off");
+        System.out.println(block == null ? "generated-block check skipped: run from the directory holding the source"
+                : "generated-block check passed: the overloads match --generate");
+        System.out.println("Notes:");
+        System.out.println(" - An Object[] with n references costs 16 + 4n bytes (rounded to 8) with compressed oops.");
+        System.out.println(" - Escape analysis can remove the array when the whole call inlines, which is why the");
+        System.out.println("   varargs rows may show 0 with default flags; the last column is what is left without it.");
+        System.out.println(" - Passing primitives still boxes them (Integer.valueOf); only -128..127 are cached.");
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.Random;
+
+// Lab: cost of virtual/interface dispatch as a call site sees 1..8 receiver types (mono/bi/megamorphic),
+// instanceof + cast chains, final methods (statically bound), and type-profile pollution; then the same
+// call sites over a deeper, non-final chain where every level is instantiated and overrides the method.
+// Run: java MegamorphicDispatchLab [elements] [rounds]   (numbers are ns per call; lower is better)
+public class MegamorphicDispatchLab {
+    // Same shapes as PolymorphismAndCastingDemo, widened to eight concrete receivers
+    interface HasTail { int tailRings(); }
+
+    static abstract class Primate implements HasTail {
+        final int rings;
+        Primate(int rings) { this.rings = rings; }
+        abstract int hairColor();                          // overridden everywhere -> needs a type check or vtable call
+        final int ringsFinal() { return rings; }           // final -> statically bound, always inlinable
+    }
+
+    static final class Lemur extends Primate {
+        Lemur() { super(1); }
+        int hairColor() { return 1; }
+        public int tailRings() { return rings + 1; }
+    }
+    static final class RingTailedLemur extends Primate {
+        RingTailedLemur() { super(2); }
+        int hairColor() { return 2; }
+        public int tailRings() { return rings + 2; }
+    }
+    static final class MouseLemur extends Primate {
+        MouseLemur() { super(3); }
+        int hairColor() { return 3; }
+        public int tailRings() { return rings + 3; }
+    }
+    static final class Sifaka extends Primate {
+        Sifaka() { super(4); }
+        int hairColor() { return 4; }
+        public int tailRings() { return rings + 4; }
+    }
+    static final class Indri extends Primate {
+        Indri() { super(5); }
+        int hairColor() { return 5; }
+        public int tailRings() { return rings + 5; }
+    }
+    static final class AyeAye extends Primate {
+        AyeAye() { super(6); }
+        int hairColor() { return 6; }
+        public int tailRings() { return rings + 6; }
+    }
+    static final class Loris extends Primate {
+        Loris() { super(7); }
+        int hairColor() { return 7; }
+        public int tailRings() { return rings + 7; }
+    }
+    static final class Galago extends Primate {
+        Galago() { super(8); }
+        int hairColor() { return 8; }
+        public int tailRings() { return rings + 8; }
+    }
+
+    // Deeper and not final: Primate > Prosimian > Lorisoid > SlowLoris. Each level has instances of its own and
+    // hairColor() is overridden at every level, so class-hierarchy analysis cannot bind it even when a call site
+    // only ever sees one type. Lorisoid inherits tailRings() from Prosimian; the leaf overrides it again.
+    static class Prosimian extends Primate {
+        Prosimian() { this(9); }
+        Prosimian(int rings) { super(rings); }
+        int hairColor() { return 9; }
+        public int tailRings() { return rings + 9; }
+    }
+    static class Lorisoid extends Prosimian {
+        Lorisoid() { this(10); }
+        Lorisoid(int rings) { super(rings); }
+        int hairColor() { return 10; }
+    }
+    static final class SlowLoris extends Lorisoid {
+        SlowLoris() { super(11); }
+        int hairColor() { return 11; }
+        public int tailRings() { return rings + 11; }
+    }
+
+    static final int MAX_KINDS = 8;
+    static final int DEEP_KINDS = 3;
+
+    static Primate create(int kind) {
+        switch (kind) {
+            case 0: return new Lemur();
+            case 1: return new RingTailedLemur();
+            case 2: return new MouseLemur();
+            case 3: return new Sifaka();
+            case 4: return new Indri();
+            case 5: return new AyeAye();
+            case 6: return new Loris();
+            default: return new Galago();
+        }
+    }
+
+    static Primate createDeep(int kind) {
+        switch (kind) {
+            case 0: return new Prosimian();
+            case 1: return new Lorisoid();
+            default: return new SlowLoris();
+        }
+    }
+
+    // Receivers drawn uniformly from the first `kinds` subtypes, in random order
+    static Primate[] receivers(int n, int kinds, long seed) {
+        Random rnd = new Random(seed);
+        Primate[] a = new Primate[n];
+        for (int i = 0; i < n; i++) a[i] = create(rnd.nextInt(kinds));
+        return a;
+    }
+
+    // The same, from the first `kinds` levels of the deep chain (Prosimian first)
+    static Primate[] deepReceivers(int n, int kinds, long seed) {
+        Random rnd = new Random(seed);
+        Primate[] a = new Primate[n];
+        for (int i = 0; i < n; i++) a[i] = createDeep(rnd.nextInt(kinds));
+        return a;
+    }
+
+    // ---- Kernels: each loop body is one call site whose type profile we control ----
+
+    static int virtualCalls(Primate[] a) {
+        int s = 0;
+        for (Primate p : a) s += p.hairColor();
+        return s;
+    }
+
+    static int interfaceCalls(HasTail[] a) {
+        int s = 0;
+        for (HasTail t : a) s += t.tailRings();
+        return s;
+    }
+
+    static int finalCalls(Primate[] a) {
+        int s = 0;
+        for (Primate p : a) s += p.ringsFinal();
+        return s;
+    }
+
+    // Manual type switch: the "instanceof then cast" style, which walks the chain in order
+    static int instanceofChain(Object[] a) {
+        int s = 0;
+        for (Object o : a) {
+            if (o instanceof Lemur) s += ((Lemur) o).rings;
+            else if (o instanceof RingTailedLemur) s += ((RingTailedLemur) o).rings;
+            else if (o instanceof MouseLemur) s += ((MouseLemur) o).rings;
+            else if (o instanceof Sifaka) s += ((Sifaka) o).rings;
+            else if (o instanceof Indri) s += ((Indri) o).rings;
+            else if (o instanceof AyeAye) s += ((AyeAye) o).rings;
+            else if (o instanceof Loris) s += ((Loris) o).rings;
+            else if (o instanceof Galago) s += ((Galago) o).rings;
+        }
+        return s;
+    }
+
+    // One check against an interface: the JVM scans the secondary-supers list instead of a fixed depth slot
+    static int instanceofInterface(Object[] a) {
+        int s = 0;
+        for (Object o : a) {
+            if (o instanceof HasTail) s += ((HasTail) o).tailRings();
+        }
+        return s;
+    }
+
+    // Deep-chain copies of the kernels above, so their type profiles start clean
+    static int deepVirtualCalls(Primate[] a) {
+        int s = 0;
+        for (Primate p : a) s += p.hairColor();
+        return s;
+    }
+
+    static int deepInterfaceCalls(HasTail[] a) {
+        int s = 0;
+        for (HasTail t : a) s += t.tailRings();
+        return s;
+    }
+
+    static int deepFinalCalls(Primate[] a) {
+        int s = 0;
+        for (Primate p : a) s += p.ringsFinal();
+        return s;
+    }
+
+    // instanceof a class: one load and compare against the fixed depth slot of Prosimian, however deep the receiver
+    static int instanceofClass(Object[] a) {
+        int s = 0;
+        for (Object o : a) {
+            if (o instanceof Prosimian) s += ((Prosimian) o).tailRings();
+        }
+        return s;
+    }
+
+    static int deepInstanceofInterface(Object[] a) {
+        int s = 0;
+        for (Object o : a) {
+            if (o instanceof HasTail) s += ((HasTail) o).tailRings();
+        }
+        return s;
+    }
+
+    // A dedicated call site used only by the profile-pollution experiment
+    static int profiledSite(HasTail[] a) {
+        int s = 0;
+        for (HasTail t : a) s += t.tailRings();
+        return s;
+    }
+
+    static volatile int sink; // keeps results alive so the JIT cannot drop the loops
+
+    interface Kernel { int run(); }
+
+    static double nsPerCall(Kernel k, int elements, int rounds) {
+        for (int i = 0; i < rounds; i++) sink += k.run();                // warm-up: let C2 compile with this profile
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            sink += k.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return (double) best / elements;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        // Experiment 1 runs first, while profiledSite has never seen more than one receiver type.
+        System.out.println("-- Type-profile pollution (same call site, monomorphic data) --");
+        final Primate[] mono = receivers(n, 1, 42);
+        final Primate[] mega = receivers(n, MAX_KINDS, 43);
+        double clean = nsPerCall(() -> profiledSite(mono), n, rounds);
+        for (int i = 0; i < rounds; i++) sink += profiledSite(mega);  // pollute: forces deopt + megamorphic recompile
+        double polluted = nsPerCall(() -> profiledSite(mono), n, rounds);
+        System.out.printf("  before pollution: %6.3f ns/call%n", clean);
+        System.out.printf("  after  pollution: %6.3f ns/call  (x%.1f)%n", polluted, polluted / clean);
+
+        System.out.println();
+        System.out.println("-- Dispatch cost vs number of receiver types --");
+        System.out.println(" types  shape       virtual  interface   final   instanceof-chain  instanceof-iface");
+        for (int kinds = 1; kinds <= MAX_KINDS; kinds++) {
+            final Primate[] a = receivers(n, kinds, 1000 + kinds);
+            double v = nsPerCall(() -> virtualCalls(a), n, rounds);
+            double itf = nsPerCall(() -> interfaceCalls(a), n, rounds);
+            double fin = nsPerCall(() -> finalCalls(a), n, rounds);
+            double chain = nsPerCall(() -> instanceofChain(a), n, rounds);
+            double iof = nsPerCall(() -> instanceofInterface(a), n, rounds);
+            String shape = kinds == 1 ? "mono" : kinds == 2 ? "bimorphic" : "megamorphic";
+            System.out.printf("  %d     %-11s %7.3f  %9.3f  %7.3f  %16.3f  %16.3f%n",
+                    kinds, shape, v, itf, fin, chain, iof);
+        }
+
+        System.out.println();
+        System.out.println("-- Same kernels over the deep non-final chain (Prosimian > Lorisoid > SlowLoris) --");
+        System.out.println(" types  receivers                      virtual  interface   final   instanceof-class  instanceof-iface");
+        String[] deepNames = { "Prosimian", "+ Lorisoid", "+ SlowLoris" };
+        for (int kinds = 1; kinds <= DEEP_KINDS; kinds++) {
+            final Primate[] a = deepReceivers(n, kinds, 2000 + kinds);
+            double v = nsPerCall(() -> deepVirtualCalls(a), n, rounds);
+            double itf = nsPerCall(() -> deepInterfaceCalls(a), n, rounds);
+            double fin = nsPerCall(() -> deepFinalCalls(a), n, rounds);
+            double cls = nsPerCall(() -> instanceofClass(a), n, rounds);
+            double iof = nsPerCall(() -> deepInstanceofInterface(a), n, rounds);
+            System.out.printf("  %d     %-28s %7.3f  %9.3f  %7.3f  %16.3f  %16.3f%n",
+                    kinds, deepNames[kinds - 1], v, itf, fin, cls, iof);
+        }
+
+        System.out.println();
+        System.out.println("Notes:");
+        System.out.println(" - HotSpot inlines behind a type guard for 1 or 2 profiled receivers; from 3 it falls back");
+        System.out.println("   to a vtable (class) or itable (interface) lookup, and loses inlining of the callee.");
+        System.out.println(" - final methods cannot be overridden, so they are bound statically and receiver count does");
+        System.out.println("   not matter. Class-hierarchy analysis does the same for a non-final method with only one");
+        System.out.println("   loaded implementation, and undoes it (deoptimizes) if a subclass that overrides it loads.");
+        System.out.println(" - Each sweep above reuses the same call sites, so later rows also show profile pollution.");
+        System.out.println("   Run with -XX:+UnlockDiagnosticVMOptions -XX:+PrintInlining to see the decisions.");
+        System.out.println(" - In the deep chain a single receiver type is still guarded by its profile: Prosimian has");
+        System.out.println("   overriding subclasses, so class-hierarchy analysis alone cannot inline hairColor().");
+        System.out.println("   Depth itself is free: vtable slots and class instanceof checks do not walk the chain.");
+    }
+}
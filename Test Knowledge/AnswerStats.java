@@ -0,0 +1,494 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import sun.misc.Unsafe;
+
+// Lifetime answer statistics for every quiz question and every option, kept in a memory-mapped file.
+// Counters live off-heap at fixed offsets and are updated in place with atomic adds, so millions of attempts cost
+// no heap, several threads and even several JVMs can share one file, and the OS persists the pages across restarts.
+//
+// File layout (longs/ints in native byte order at fixed offsets; the file is meant for the machine that wrote it):
+//   header       1024 bytes: magic, version, capacity, then OPTION_SLOTS option labels (int length + UTF-8 text)
+//   records      capacity x 256 bytes, one per question, found by hashing the question key (linear probing):
+//                keyHash | begin | end | attempts | correct | skipped | answer | chosen[OPTION_SLOTS] | key text
+// Options are counted by label ("Building Blocks"), not by screen position, because every quiz shuffles them.
+//
+// Consistent snapshots: a writer bumps `begin`, adds its counters, then bumps `end`. A reader reads `end`, the
+// counters, then `begin`; if nothing began after the last finished write, the copy is consistent, else it retries.
+//
+//   java -cp "Test Knowledge" AnswerStats [file]                       report (default: quiz-stats.bin)
+//   java -cp "Test Knowledge" AnswerStats --bench [threads] [answers] [processes]
+public class AnswerStats implements AutoCloseable {
+    static final String DEFAULT_FILE = "quiz-stats.bin";
+    static final int OPTION_SLOTS = 16;
+    static final int DEFAULT_CAPACITY = 4096; // questions; a power of two
+    private static final int MAGIC = 0x51535431; // "QST1"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 1024;
+    private static final int LABELS_OFFSET = 64;
+    private static final int LABEL_SIZE = 56;                      // int length + 52 bytes of UTF-8
+    private static final int RECORD_SIZE = 256;
+    private static final int KEY_HASH = 0, BEGIN = 8, END = 16, ATTEMPTS = 24, CORRECT = 32, SKIPPED = 40;
+    private static final int ANSWER = 48, CHOSEN = 56;               // ANSWER = label id of the right option + 1
+    private static final int KEY_TEXT = CHOSEN + 8 * OPTION_SLOTS; // short length + UTF-8, for reports only
+    private static final int KEY_TEXT_MAX = RECORD_SIZE - KEY_TEXT - 2;
+    // A writer claims the magic or a label slot with -1 and publishes the real value right after. If it died in
+    // between, the -1 stays: once this long has passed the claim is cleared and the next writer redoes the work.
+    private static final long STALE_CLAIM_NANOS = 1_000_000_000L;
+
+    private static final Unsafe UNSAFE;
+    private static final long ADDRESS_OFFSET;
+    static {
+        try {
+            Field f = Unsafe.class.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            UNSAFE = (Unsafe) f.get(null);
+            ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static final class Snapshot {
+        final String key;
+        final long attempts, correct, skipped;
+        final int answer;     // label id of the right option, -1 if unknown
+        final long[] chosen;  // indexed by label id
+        Snapshot(String key, long attempts, long correct, long skipped, int answer, long[] chosen) {
+            this.key = key; this.attempts = attempts; this.correct = correct; this.skipped = skipped;
+            this.answer = answer; this.chosen = chosen;
+        }
+    }
+
+    private final MappedByteBuffer map; // kept so the mapping stays alive as long as this object
+    private final long base;            // native address of the first mapped byte
+    private final int capacity;
+    private final Map<String, Integer> slotCache = new HashMap<>();  // guarded by this
+    private final Map<String, Integer> labelCache = new HashMap<>(); // guarded by this
+
+    private AnswerStats(MappedByteBuffer map, int capacity) {
+        this.map = map;
+        this.base = UNSAFE.getLong(map, ADDRESS_OFFSET);
+        this.capacity = capacity;
+    }
+
+    // Opens the file, creating and sizing it on first use. The mapping outlives the channel.
+    static AnswerStats open(Path file) throws IOException {
+        return open(file, DEFAULT_CAPACITY);
+    }
+
+    static AnswerStats open(Path file, int capacity) throws IOException {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw"); FileChannel ch = raf.getChannel()) {
+            long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+            boolean fresh = ch.size() == 0;
+            if (!fresh && ch.size() < HEADER_SIZE) throw new IOException("not an answer statistics file: " + file);
+            if (fresh) raf.setLength(size); // new bytes read as zero: an empty table
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, fresh ? size : ch.size());
+            AnswerStats stats = new AnswerStats(map, capacity);
+            // Two processes may create the file at once; the first CAS on the magic number wins
+            int magic;
+            do {
+                if (UNSAFE.compareAndSwapInt(null, stats.base, 0, -1)) {
+                    UNSAFE.putIntVolatile(null, stats.base + 4, VERSION);
+                    UNSAFE.putIntVolatile(null, stats.base + 8, capacity);
+                    UNSAFE.putIntVolatile(null, stats.base, MAGIC);
+                }
+                magic = awaitPublished(stats.base);
+            } while (magic == 0); // the creator died before publishing: claim the header again
+            if (magic != MAGIC) throw new IOException("not an answer statistics file: " + file);
+            if (UNSAFE.getIntVolatile(null, stats.base + 4) != VERSION) throw new IOException("unsupported version: " + file);
+            int fileCapacity = UNSAFE.getIntVolatile(null, stats.base + 8);
+            if (fileCapacity <= 0 || Integer.bitCount(fileCapacity) != 1) {
+                throw new IOException("bad capacity " + fileCapacity + " in " + file);
+            }
+            // Every address below is computed from the capacity, so a short (truncated) file must be refused here
+            long needed = HEADER_SIZE + (long) fileCapacity * RECORD_SIZE;
+            if (map.capacity() < needed) {
+                throw new IOException(file + " is " + map.capacity() + " bytes, but its " + fileCapacity
+                        + " records need " + needed);
+            }
+            if (fileCapacity != capacity) {
+                if (fresh) throw new IOException("capacity changed while creating " + file);
+                return open(file, fileCapacity); // an existing file keeps its own capacity
+            }
+            return stats;
+        }
+    }
+
+    // Opens the file named by -Dquiz.stats, or returns null when statistics are off
+    static AnswerStats openIfEnabled() {
+        String file = System.getProperty("quiz.stats");
+        if (file == null || file.isEmpty()) return null;
+        try {
+            return open(Paths.get(file));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Answer statistics disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ---- writing ----
+
+    // One answer to the question `key`: options are the labels in screen order, choice indexes them (-1 = skipped)
+    boolean record(String key, List<String> options, int correctIndex, int choice) {
+        long rec = slotAddress(key, true);
+        if (rec < 0) return false; // table full: drop the sample rather than fail the quiz
+        int answer = labelIndex(options.get(correctIndex));
+        if (answer < 0) return false;
+        if (UNSAFE.getLongVolatile(null, rec + ANSWER) == 0) UNSAFE.putLongVolatile(null, rec + ANSWER, answer + 1);
+        long chosenCounter = -1;
+        if (choice >= 0) {
+            int label = labelIndex(options.get(choice));
+            if (label < 0) return false;
+            chosenCounter = rec + CHOSEN + 8L * label;
+        }
+        UNSAFE.getAndAddLong(null, rec + BEGIN, 1);
+        UNSAFE.getAndAddLong(null, rec + ATTEMPTS, 1);
+        if (choice == correctIndex) UNSAFE.getAndAddLong(null, rec + CORRECT, 1);
+        if (chosenCounter >= 0) UNSAFE.getAndAddLong(null, chosenCounter, 1);
+        else UNSAFE.getAndAddLong(null, rec + SKIPPED, 1);
+        UNSAFE.getAndAddLong(null, rec + END, 1);
+        return true;
+    }
+
+    // Address of the key's record, claiming a free slot when `create` is set; -1 if absent (or the table is full)
+    private long slotAddress(String key, boolean create) {
+        synchronized (this) {
+            Integer cached = slotCache.get(key);
+            if (cached != null) return recordAddress(cached);
+        }
+        long hash = fnv1a64(key);
+        int mask = capacity - 1;
+        int slot = (int) mix(hash) & mask;
+        for (int probe = 0; probe < capacity; probe++, slot = (slot + 1) & mask) {
+            long rec = recordAddress(slot);
+            long current = UNSAFE.getLongVolatile(null, rec + KEY_HASH);
+            if (current == 0) {
+                if (!create) return -1;
+                if (!UNSAFE.compareAndSwapLong(null, rec + KEY_HASH, 0, hash)) {
+                    current = UNSAFE.getLongVolatile(null, rec + KEY_HASH);
+                } else {
+                    writeKeyText(rec, key);
+                    current = hash;
+                }
+            }
+            if (current == hash) {
+                synchronized (this) { slotCache.put(key, slot); }
+                return rec;
+            }
+        }
+        return -1;
+    }
+
+    // Stable option id for a label: its slot in the header's label table, claimed on first use
+    private int labelIndex(String label) {
+        synchronized (this) {
+            Integer cached = labelCache.get(label);
+            if (cached != null) return cached;
+        }
+        byte[] bytes = truncatedUtf8(label, LABEL_SIZE - 4);
+        if (bytes.length == 0) return -1; // length 0 marks a free slot
+        for (int i = 0; i < OPTION_SLOTS; i++) {
+            long at = base + LABELS_OFFSET + (long) i * LABEL_SIZE;
+            int length;
+            do {
+                if (UNSAFE.compareAndSwapInt(null, at, 0, -1)) {
+                    for (int b = 0; b < bytes.length; b++) UNSAFE.putByte(at + 4 + b, bytes[b]);
+                    UNSAFE.putIntVolatile(null, at, bytes.length); // publish after the text
+                }
+                length = awaitPublished(at); // another writer may be publishing
+            } while (length == 0);
+            if (readText(at + 4, Math.min(length, LABEL_SIZE - 4)).equals(new String(bytes, StandardCharsets.UTF_8))) {
+                synchronized (this) { labelCache.put(label, i); }
+                return i;
+            }
+        }
+        return -1; // more distinct options than OPTION_SLOTS
+    }
+
+    // ---- reading ----
+
+    List<String> optionLabels() {
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < OPTION_SLOTS; i++) {
+            long at = base + LABELS_OFFSET + (long) i * LABEL_SIZE;
+            int length = Math.min(UNSAFE.getIntVolatile(null, at), LABEL_SIZE - 4);
+            labels.add(length > 0 ? readText(at + 4, length) : null);
+        }
+        return labels;
+    }
+
+    // Consistent copy of one question's counters, or null if the question has never been answered
+    Snapshot snapshot(String key) {
+        long rec = slotAddress(key, false);
+        return rec < 0 ? null : snapshotAt(rec);
+    }
+
+    List<Snapshot> snapshotAll() {
+        List<Snapshot> all = new ArrayList<>();
+        for (int slot = 0; slot < capacity; slot++) {
+            long rec = recordAddress(slot);
+            if (UNSAFE.getLongVolatile(null, rec + KEY_HASH) != 0) all.add(snapshotAt(rec));
+        }
+        return all;
+    }
+
+    // A writer that died between `begin` and `end` leaves them apart for good; after STALE_CLAIM_NANOS the latest
+    // copy is returned as it is rather than retrying forever
+    private Snapshot snapshotAt(long rec) {
+        long[] chosen = new long[OPTION_SLOTS];
+        long deadline = System.nanoTime() + STALE_CLAIM_NANOS;
+        while (true) {
+            long finished = UNSAFE.getLongVolatile(null, rec + END);
+            long attempts = UNSAFE.getLongVolatile(null, rec + ATTEMPTS);
+            long correct = UNSAFE.getLongVolatile(null, rec + CORRECT);
+            long skipped = UNSAFE.getLongVolatile(null, rec + SKIPPED);
+            for (int i = 0; i < OPTION_SLOTS; i++) chosen[i] = UNSAFE.getLongVolatile(null, rec + CHOSEN + 8L * i);
+            if (UNSAFE.getLongVolatile(null, rec + BEGIN) == finished || System.nanoTime() - deadline > 0) {
+                int keyLength = Math.min(UNSAFE.getShortVolatile(null, rec + KEY_TEXT), KEY_TEXT_MAX);
+                long answer = UNSAFE.getLongVolatile(null, rec + ANSWER) - 1;
+                return new Snapshot(readText(rec + KEY_TEXT + 2, keyLength), attempts, correct, skipped,
+                        answer >= 0 && answer < OPTION_SLOTS ? (int) answer : -1, chosen);
+            }
+            Thread.yield(); // a write was in flight; try again
+        }
+    }
+
+    // Pushes dirty pages to disk now instead of whenever the OS chooses
+    @Override
+    public void close() {
+        map.force();
+    }
+
+    // ---- helpers ----
+
+    private long recordAddress(int slot) { return base + HEADER_SIZE + (long) slot * RECORD_SIZE; }
+
+    // The int at `at` once it is no longer -1 (claimed, not yet published). A claim older than STALE_CLAIM_NANOS
+    // belongs to a writer that died: it is reset to 0 and 0 is returned, so the caller claims it again.
+    private static int awaitPublished(long at) {
+        long deadline = System.nanoTime() + STALE_CLAIM_NANOS;
+        int value;
+        while ((value = UNSAFE.getIntVolatile(null, at)) == -1) {
+            if (System.nanoTime() - deadline > 0) {
+                UNSAFE.compareAndSwapInt(null, at, -1, 0);
+                return 0;
+            }
+            Thread.yield();
+        }
+        return value;
+    }
+
+    static long fnv1a64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h; // 0 marks a free slot
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    private static byte[] truncatedUtf8(String s, int max) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= max) return bytes;
+        int end = max;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) end--; // do not cut a multi-byte character
+        byte[] cut = new byte[end];
+        System.arraycopy(bytes, 0, cut, 0, end);
+        return cut;
+    }
+
+    // The length is written last, so a reader never sees a length longer than the text written so far
+    private static void writeKeyText(long rec, String key) {
+        byte[] bytes = truncatedUtf8(key, KEY_TEXT_MAX);
+        for (int i = 0; i < bytes.length; i++) UNSAFE.putByte(rec + KEY_TEXT + 2 + i, bytes[i]);
+        UNSAFE.putShortVolatile(null, rec + KEY_TEXT, (short) bytes.length);
+    }
+
+    private static String readText(long at, int length) {
+        byte[] bytes = new byte[Math.max(0, length)];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = UNSAFE.getByte(at + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---- CLI: report and benchmark ----
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("--write")) { // child process of --bench
+            writeRandom(Paths.get(args[1]), Integer.parseInt(args[2]), 1, 0);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--bench")) {
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+            int answers = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+            int processes = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+            bench(threads, answers, processes);
+            return;
+        }
+        try (AnswerStats stats = open(Paths.get(args.length > 0 ? args[0] : DEFAULT_FILE))) {
+            report(stats);
+        }
+    }
+
+    static void report(AnswerStats stats) {
+        List<String> labels = stats.optionLabels();
+        List<Snapshot> all = stats.snapshotAll();
+        all.sort((a, b) -> Double.compare(correctRate(a), correctRate(b)));
+        System.out.println(all.size() + " questions, hardest first");
+        for (Snapshot s : all) {
+            int trap = -1; // the wrong option picked most often
+            for (int i = 0; i < OPTION_SLOTS; i++) {
+                if (labels.get(i) == null || i == s.answer) continue;
+                if (trap < 0 || s.chosen[i] > s.chosen[trap]) trap = i;
+            }
+            System.out.printf("%5.1f%% of %6d  %-60s%s%n", 100 * correctRate(s), s.attempts, s.key,
+                    trap >= 0 && s.chosen[trap] > 0 ? "  most picked wrong: " + labels.get(trap) + " (" + s.chosen[trap] + ")" : "");
+        }
+    }
+
+    static double correctRate(Snapshot s) { return s.attempts == 0 ? 0 : (double) s.correct / s.attempts; }
+
+    static final String[] BENCH_LABELS = { "Building Blocks", "Operators & Statements", "Core Java APIs", "Encapsulation & Methods" };
+    static final int BENCH_QUESTIONS = 64;
+
+    // Random answers to BENCH_QUESTIONS questions whose right answer is always the first label
+    static void writeRandom(Path file, int answers, int threads, int thread) throws IOException {
+        List<String> options = Arrays.asList(BENCH_LABELS);
+        try (AnswerStats stats = open(file)) {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = thread; i < answers; i += threads) {
+                int choice = rnd.nextInt(options.size() + 1) - 1;
+                stats.record("bench:q" + rnd.nextInt(BENCH_QUESTIONS), options, 0, choice);
+            }
+        }
+    }
+
+    static void bench(int threads, int answers, int processes) throws Exception {
+        Path file = Files.createTempFile("answer-stats", ".bin");
+        Files.delete(file); // open() creates and sizes it
+        try (AnswerStats stats = open(file)) {
+            System.out.println("AnswerStats benchmark: " + threads + " writer threads + 1 snapshot reader, "
+                    + answers + " answers, " + Runtime.getRuntime().availableProcessors() + " cores");
+            CountDownLatch done = new CountDownLatch(threads);
+            long[] snapshots = new long[1];
+            String[] torn = new String[1];
+            Thread reader = new Thread(() -> {
+                while (done.getCount() > 0 && torn[0] == null) {
+                    for (Snapshot s : stats.snapshotAll()) {
+                        if (s.attempts == 0) continue; // slot claimed, first answer still being written
+                        long total = s.skipped;
+                        for (long c : s.chosen) total += c;
+                        if (total != s.attempts || s.answer < 0 || s.correct != s.chosen[s.answer]) torn[0] = s.key;
+                        snapshots[0]++;
+                    }
+                }
+            });
+            long t0 = System.nanoTime();
+            reader.start();
+            for (int t = 0; t < threads; t++) {
+                final int id = t;
+                new Thread(() -> {
+                    try {
+                        writeRandom(file, answers, threads, id);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+            double ms = (System.nanoTime() - t0) / 1e6;
+            reader.join();
+            if (torn[0] != null) throw new AssertionError("torn snapshot of " + torn[0]);
+            System.out.printf("in-process: %.0f ms, %.2f M answers/s, %d consistent snapshots checked%n",
+                    ms, answers / ms / 1000, snapshots[0]);
+            checkTotal(stats, answers);
+
+            // Several JVMs adding to the same mapped file at once
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            List<Process> children = new ArrayList<>();
+            t0 = System.nanoTime();
+            for (int p = 0; p < processes; p++) {
+                children.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "AnswerStats",
+                        "--write", file.toString(), Integer.toString(answers)).inheritIO().start());
+            }
+            for (Process p : children) if (p.waitFor() != 0) throw new IOException("writer process failed");
+            System.out.printf("%d processes: %.0f ms for %d more answers%n", processes, (System.nanoTime() - t0) / 1e6,
+                    (long) processes * answers);
+        }
+        // Reopen, as after a restart: every answer from every writer must be there
+        try (AnswerStats reopened = open(file)) {
+            checkTotal(reopened, (long) answers * (processes + 1));
+            System.out.println("reopened file: all " + (long) answers * (processes + 1) + " answers present ("
+                    + Files.size(file) / 1024 + " KB on disk)");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        checkDamagedFiles();
+    }
+
+    // A truncated file is refused instead of crashing the JVM, and a header claimed by a writer that died before
+    // publishing it is taken over after STALE_CLAIM_NANOS instead of hanging open()
+    static void checkDamagedFiles() throws IOException {
+        Path file = Files.createTempFile("answer-stats", ".bin");
+        try {
+            Files.delete(file);
+            List<String> options = Arrays.asList(BENCH_LABELS);
+            try (AnswerStats stats = open(file)) { stats.record("bench:q0", options, 0, 0); }
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) { raf.setLength(2048); }
+            try (AnswerStats stats = open(file)) {
+                stats.record("bench:q0", options, 0, 0);
+                throw new AssertionError("a truncated file was opened");
+            } catch (IOException expected) {
+                System.out.println("truncated file refused: " + expected.getMessage());
+            }
+
+            Files.delete(file);
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(HEADER_SIZE + (long) DEFAULT_CAPACITY * RECORD_SIZE);
+                raf.write(ByteBuffer.allocate(4).order(ByteOrder.nativeOrder()).putInt(0, -1).array());
+            }
+            long t0 = System.nanoTime();
+            try (AnswerStats stats = open(file)) {
+                if (!stats.record("bench:q0", options, 0, 0) || stats.snapshot("bench:q0").attempts != 1) {
+                    throw new AssertionError("record after taking over a stale header failed");
+                }
+            }
+            System.out.printf("stale header claim taken over after %.1f s%n", (System.nanoTime() - t0) / 1e9);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    static void checkTotal(AnswerStats stats, long expected) {
+        long total = 0;
+        for (Snapshot s : stats.snapshotAll()) total += s.attempts;
+        if (total != expected) throw new AssertionError("expected " + expected + " answers, found " + total);
+    }
+}
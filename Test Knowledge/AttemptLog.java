@@ -0,0 +1,1100 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Append-only, column-oriented log of quiz attempts (one row per answered question) for offline analysis:
+//   time (epoch ms) | session | chapter | file | chosen option | correct | response time (ms)
+// Rows are collected in segments of 65,536. Each column of a full segment is stored separately in the smallest of
+// three encodings, all bit-packed into a long[]:
+//   PACKED  value - min, in just enough bits (frame of reference): 45 file names take 6 bits, correct takes 1
+//   RLE     (value, run length) pairs: the session column is one run per quiz
+//   DELTA   first value + (delta - min delta): attempt times grow slowly, so each row costs a few bits
+// Chapter names, option labels and file names are dictionary-encoded. Each segment carries the dictionary
+// prefix it uses, so processes can append segments to the same file without agreeing on ids.
+//
+// Queries are range filters plus one group-by, run by fork/join over segments. For each segment a task:
+//   - skips the segment when a filter falls outside the column's min/max (zone maps)
+//   - decodes only the columns it needs, into per-thread int[]/long[] scratch arrays
+//   - filters into a selection vector with branch-free loops, then aggregates into arrays indexed by group id
+// No row objects and no hashing are involved. Partial aggregates are summed.
+//
+// File format: header (magic, version), then length-prefixed segment blocks. Appends take a file lock, and a
+// truncated last block (a crash mid-append) is ignored when loading and cut off by the next append. Compaction
+// holds the same lock from load to rename, then marks the replaced file so a waiting append reopens the path.
+//
+//   java -cp "Test Knowledge" AttemptLog [file]                 report (default: quiz-attempts.log)
+//   java -cp "Test Knowledge" AttemptLog --compact [file]       merge small segments (one per quiz) into full ones
+//   java -Xmx4g -cp "Test Knowledge" AttemptLog --bench [rows]  synthetic log (default 100,000,000 rows)
+//   java -cp "Test Knowledge" AttemptLog --check                self-checks: torn file tails, appends after them
+public class AttemptLog {
+    static final String DEFAULT_FILE = "quiz-attempts.log";
+    static final int SEGMENT_ROWS = 1 << 16;
+    static final long DAY_MILLIS = 86_400_000L;
+    static final int MAX_DAY_GROUPS = 1_000_000;   // about 2,700 years
+    private static final int MAGIC = 0x51415431; // "QAT1"
+    private static final int VERSION = 1;
+    private static final int RETIRED = 0x51415458; // "QATX": written over MAGIC in a file that compact() replaced
+
+    // Columns, in storage order
+    static final int TIME = 0, SESSION = 1, CHAPTER = 2, FILE = 3, CHOSEN = 4, CORRECT = 5, RESPONSE = 6, COLUMNS = 7;
+    static final String[] COLUMN_NAMES = { "time", "session", "chapter", "file", "chosen", "correct", "response" };
+
+    enum GroupBy { ALL, CHAPTER, FILE, CHOSEN, CORRECT, DAY }
+
+    // ---- dictionaries ----
+
+    static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        synchronized int id(String s) {
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = names.size();
+                ids.put(s, id);
+                names.add(s);
+            }
+            return id;
+        }
+
+        synchronized int find(String s) {
+            Integer id = ids.get(s);
+            return id == null ? -1 : id;
+        }
+
+        synchronized String name(int id) { return names.get(id); }
+
+        synchronized int size() { return names.size(); }
+    }
+
+    // Chapter names and option labels share one dictionary (the options of an example question are chapter names)
+    final Dictionary labels = new Dictionary();
+    final Dictionary files = new Dictionary();
+
+    // ---- bit packing and column encodings ----
+
+    static int bitsFor(long range) {
+        return range == 0 ? 0 : 64 - Long.numberOfLeadingZeros(range);
+    }
+
+    static final class BitWriter {
+        final long[] words;
+        private long pos;
+
+        BitWriter(long totalBits) { words = new long[(int) ((totalBits + 63) >>> 6)]; }
+
+        void put(long v, int bits) {
+            if (bits == 0) return;
+            int w = (int) (pos >>> 6), o = (int) (pos & 63);
+            words[w] |= v << o;
+            if (o + bits > 64) words[w + 1] |= v >>> (64 - o);
+            pos += bits;
+        }
+    }
+
+    static long get(long[] words, long pos, int bits) {
+        if (bits == 0) return 0;
+        int w = (int) (pos >>> 6), o = (int) (pos & 63);
+        long v = words[w] >>> o;
+        if (o + bits > 64) v |= words[w + 1] << (64 - o);
+        return bits == 64 ? v : v & ((1L << bits) - 1);
+    }
+
+    static final class Encoded {
+        static final byte PACKED = 0, RLE = 1, DELTA = 2;
+        static final String[] KIND_NAMES = { "packed", "rle", "delta" };
+
+        final byte kind;
+        final int bits;        // bits per packed value (PACKED, DELTA) or per run value (RLE)
+        final int lengthBits;  // RLE: bits per run length - 1
+        final int runs;        // RLE: number of runs
+        final long base;       // PACKED/RLE: min value; DELTA: first value
+        final long base2;      // DELTA: min delta
+        final long min, max;   // zone map
+        final long[] words;
+
+        Encoded(byte kind, int bits, int lengthBits, int runs, long base, long base2, long min, long max, long[] words) {
+            this.kind = kind; this.bits = bits; this.lengthBits = lengthBits; this.runs = runs;
+            this.base = base; this.base2 = base2; this.min = min; this.max = max; this.words = words;
+        }
+
+        long bytes() { return 8L * words.length + 48; }
+
+        // Picks the smallest encoding for values[0..n)
+        static Encoded of(long[] values, int n, boolean allowDelta) {
+            long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+            int runs = n == 0 ? 0 : 1, longestRun = 1, run = 1;
+            for (int i = 0; i < n; i++) {
+                long v = values[i];
+                if (v < min) min = v;
+                if (v > max) max = v;
+                if (i > 0) {
+                    if (v == values[i - 1]) {
+                        if (++run > longestRun) longestRun = run;
+                    } else {
+                        runs++;
+                        run = 1;
+                    }
+                }
+            }
+            if (n == 0) { min = 0; max = 0; }
+            int bits = bitsFor(max - min);
+            int lengthBits = bitsFor(longestRun - 1);
+            long packedSize = (long) n * bits;
+            long rleSize = (long) runs * (bits + lengthBits);
+
+            long minDelta = 0, deltaSize = Long.MAX_VALUE;
+            int deltaBits = 0;
+            if (allowDelta && n > 1) {
+                try {
+                    long lo = Long.MAX_VALUE, hi = Long.MIN_VALUE;
+                    for (int i = 1; i < n; i++) {
+                        long d = Math.subtractExact(values[i], values[i - 1]);
+                        if (d < lo) lo = d;
+                        if (d > hi) hi = d;
+                    }
+                    minDelta = lo;
+                    deltaBits = bitsFor(Math.subtractExact(hi, lo));
+                    deltaSize = (long) (n - 1) * deltaBits;
+                } catch (ArithmeticException overflow) {
+                    deltaSize = Long.MAX_VALUE;
+                }
+            }
+
+            if (deltaSize < packedSize && deltaSize < rleSize) {
+                BitWriter w = new BitWriter(deltaSize);
+                for (int i = 1; i < n; i++) w.put(values[i] - values[i - 1] - minDelta, deltaBits);
+                return new Encoded(DELTA, deltaBits, 0, 0, values[0], minDelta, min, max, w.words);
+            }
+            if (rleSize < packedSize) {
+                BitWriter w = new BitWriter(rleSize);
+                long[] lengths = new long[runs];
+                int r = 0;
+                for (int i = 0; i < n; i++) {
+                    if (i == 0 || values[i] != values[i - 1]) {
+                        if (i > 0) r++;
+                        w.put(values[i] - min, bits);
+                    }
+                    lengths[r]++;
+                }
+                for (long len : lengths) w.put(len - 1, lengthBits);
+                return new Encoded(RLE, bits, lengthBits, runs, min, 0, min, max, w.words);
+            }
+            BitWriter w = new BitWriter(packedSize);
+            for (int i = 0; i < n; i++) w.put(values[i] - min, bits);
+            return new Encoded(PACKED, bits, 0, 0, min, 0, min, max, w.words);
+        }
+
+        void decode(long[] out, int n) {
+            switch (kind) {
+                case PACKED:
+                    for (int i = 0; i < n; i++) out[i] = base + get(words, (long) i * bits, bits);
+                    break;
+                case DELTA: {
+                    long v = base;
+                    if (n > 0) out[0] = v;
+                    for (int i = 1; i < n; i++) {
+                        v += base2 + get(words, (long) (i - 1) * bits, bits);
+                        out[i] = v;
+                    }
+                    break;
+                }
+                default: {
+                    long lengths = (long) runs * bits;
+                    int at = 0;
+                    for (int r = 0; r < runs; r++) {
+                        long v = base + get(words, (long) r * bits, bits);
+                        int len = (int) get(words, lengths + (long) r * lengthBits, lengthBits) + 1;
+                        Arrays.fill(out, at, at + len, v);
+                        at += len;
+                    }
+                }
+            }
+        }
+
+        // Same for columns whose values fit in an int (everything but time and session)
+        void decode(int[] out, int n) {
+            switch (kind) {
+                case PACKED: {
+                    // get() inlined: bits <= 32 here, so no 0/64-bit special cases inside the loop
+                    int b = (int) base;
+                    if (bits == 0) {
+                        Arrays.fill(out, 0, n, b);
+                        break;
+                    }
+                    long mask = (1L << bits) - 1, pos = 0;
+                    for (int i = 0; i < n; i++, pos += bits) {
+                        int w = (int) (pos >>> 6), o = (int) (pos & 63);
+                        long v = words[w] >>> o;
+                        if (o + bits > 64) v |= words[w + 1] << (64 - o);
+                        out[i] = b + (int) (v & mask);
+                    }
+                    break;
+                }
+                case DELTA: {
+                    long v = base;
+                    if (n > 0) out[0] = (int) v;
+                    for (int i = 1; i < n; i++) {
+                        v += base2 + get(words, (long) (i - 1) * bits, bits);
+                        out[i] = (int) v;
+                    }
+                    break;
+                }
+                default: {
+                    long lengths = (long) runs * bits;
+                    int at = 0;
+                    for (int r = 0; r < runs; r++) {
+                        int v = (int) (base + get(words, (long) r * bits, bits));
+                        int len = (int) get(words, lengths + (long) r * lengthBits, lengthBits) + 1;
+                        Arrays.fill(out, at, at + len, v);
+                        at += len;
+                    }
+                }
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(kind);
+            out.writeByte(bits);
+            out.writeByte(lengthBits);
+            out.writeInt(runs);
+            out.writeLong(base);
+            out.writeLong(base2);
+            out.writeLong(min);
+            out.writeLong(max);
+            out.writeInt(words.length);
+            for (long w : words) out.writeLong(w);
+        }
+
+        static Encoded read(DataInputStream in) throws IOException {
+            byte kind = in.readByte();
+            int bits = in.readByte(), lengthBits = in.readByte(), runs = in.readInt();
+            long base = in.readLong(), base2 = in.readLong(), min = in.readLong(), max = in.readLong();
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) words[i] = in.readLong();
+            return new Encoded(kind, bits, lengthBits, runs, base, base2, min, max, words);
+        }
+    }
+
+    // ---- segments ----
+
+    static final class Segment {
+        final int rows;
+        final Encoded[] columns;
+        // Ids stored in the segment -> this log's dictionary ids; null when they are the same (segments built here)
+        final int[] labelMap, fileMap;
+
+        Segment(int rows, Encoded[] columns, int[] labelMap, int[] fileMap) {
+            this.rows = rows; this.columns = columns; this.labelMap = labelMap; this.fileMap = fileMap;
+        }
+
+        int[] map(int column) {
+            return column == CHAPTER || column == CHOSEN ? labelMap : column == FILE ? fileMap : null;
+        }
+
+        long bytes() {
+            long b = 0;
+            for (Encoded e : columns) b += e.bytes();
+            return b;
+        }
+    }
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    // The segment being filled; sealed (encoded) when full
+    private final long[] time = new long[SEGMENT_ROWS], session = new long[SEGMENT_ROWS];
+    private final int[][] ints = new int[COLUMNS][];
+    private int rows;
+    {
+        for (int c = CHAPTER; c < COLUMNS; c++) ints[c] = new int[SEGMENT_ROWS];
+    }
+
+    // ---- appending ----
+
+    // One answer. key is a Question.key: "example:<chapter>/<file>" or "chapter:<name>" (no file)
+    void appendAttempt(long timeMillis, long sessionId, String key, String chosen, boolean correct, int responseMillis) {
+        String chapter = key, file = "";
+        if (key.startsWith("example:")) {
+            int slash = key.lastIndexOf('/');
+            chapter = key.substring("example:".length(), slash);
+            file = key.substring(slash + 1);
+        } else if (key.startsWith("chapter:")) {
+            chapter = key.substring("chapter:".length());
+        }
+        append(timeMillis, sessionId, labels.id(chapter), files.id(file), labels.id(chosen), correct, responseMillis);
+    }
+
+    synchronized void append(long timeMillis, long sessionId, int chapter, int file, int chosen, boolean correct, int responseMillis) {
+        time[rows] = timeMillis;
+        session[rows] = sessionId;
+        ints[CHAPTER][rows] = chapter;
+        ints[FILE][rows] = file;
+        ints[CHOSEN][rows] = chosen;
+        ints[CORRECT][rows] = correct ? 1 : 0;
+        ints[RESPONSE][rows] = responseMillis;
+        if (++rows == SEGMENT_ROWS) seal();
+    }
+
+    // Encodes the rows collected so far as a segment; caller holds the lock
+    private Segment encodeOpen() {
+        long[] scratch = new long[rows];
+        Encoded[] cols = new Encoded[COLUMNS];
+        cols[TIME] = Encoded.of(time, rows, true);
+        cols[SESSION] = Encoded.of(session, rows, false);
+        for (int c = CHAPTER; c < COLUMNS; c++) {
+            for (int i = 0; i < rows; i++) scratch[i] = ints[c][i];
+            cols[c] = Encoded.of(scratch, rows, false);
+        }
+        return new Segment(rows, cols, null, null);
+    }
+
+    private void seal() {
+        if (rows == 0) return;
+        segments.add(encodeOpen());
+        rows = 0;
+    }
+
+    synchronized long rowCount() {
+        long n = rows;
+        for (Segment s : segments) n += s.rows;
+        return n;
+    }
+
+    // Full segments plus the open rows, encoded; a stable view for a query or a write
+    synchronized List<Segment> snapshot() {
+        List<Segment> all = new ArrayList<>(segments);
+        if (rows > 0) all.add(encodeOpen());
+        return all;
+    }
+
+    // ---- queries ----
+
+    static final class Filter {
+        final int column;
+        final long lo, hi;   // inclusive
+        Filter(int column, long lo, long hi) { this.column = column; this.lo = lo; this.hi = hi; }
+    }
+
+    static final class Aggregate {
+        final long[] count, correct, responseSum;
+        final int[] responseMin, responseMax;
+
+        Aggregate(int groups) {
+            count = new long[groups];
+            correct = new long[groups];
+            responseSum = new long[groups];
+            responseMin = new int[groups];
+            responseMax = new int[groups];
+            Arrays.fill(responseMin, Integer.MAX_VALUE);
+            Arrays.fill(responseMax, Integer.MIN_VALUE);
+        }
+
+        Aggregate add(Aggregate o) {
+            for (int g = 0; g < count.length; g++) {
+                count[g] += o.count[g];
+                correct[g] += o.correct[g];
+                responseSum[g] += o.responseSum[g];
+                responseMin[g] = Math.min(responseMin[g], o.responseMin[g]);
+                responseMax[g] = Math.max(responseMax[g], o.responseMax[g]);
+            }
+            return this;
+        }
+    }
+
+    static final class Group {
+        final String key;
+        final long count, correct;
+        final double avgResponseMillis;
+        final int minResponseMillis, maxResponseMillis;
+
+        Group(String key, long count, long correct, double avg, int min, int max) {
+            this.key = key; this.count = count; this.correct = correct;
+            this.avgResponseMillis = avg; this.minResponseMillis = min; this.maxResponseMillis = max;
+        }
+
+        double accuracy() { return count == 0 ? 0 : (double) correct / count; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Group)) return false;
+            Group g = (Group) o;
+            return key.equals(g.key) && count == g.count && correct == g.correct && avgResponseMillis == g.avgResponseMillis
+                    && minResponseMillis == g.minResponseMillis && maxResponseMillis == g.maxResponseMillis;
+        }
+
+        @Override
+        public int hashCode() { return key.hashCode() * 31 + Long.hashCode(count); }
+    }
+
+    // Per-thread decode buffers, sized for one segment
+    static final class Scratch {
+        final long[] time = new long[SEGMENT_ROWS];
+        final int[][] ints = new int[COLUMNS][SEGMENT_ROWS];
+        final int[] selection = new int[SEGMENT_ROWS];
+    }
+
+    static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    final class Query {
+        private final List<Filter> filters = new ArrayList<>();
+        private boolean empty;   // a filter named a value the log has never seen
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        private Query dictionaryFilter(int column, Dictionary dict, String name) {
+            int id = dict.find(name);
+            if (id < 0) empty = true;
+            filters.add(new Filter(column, id, id));
+            return this;
+        }
+
+        Query chapter(String name) { return dictionaryFilter(CHAPTER, labels, name); }
+        Query file(String name) { return dictionaryFilter(FILE, files, name); }
+        Query chosen(String label) { return dictionaryFilter(CHOSEN, labels, label); }
+        Query correct(boolean correct) { filters.add(new Filter(CORRECT, correct ? 1 : 0, correct ? 1 : 0)); return this; }
+        Query between(long fromMillis, long toMillis) { filters.add(new Filter(TIME, fromMillis, toMillis - 1)); return this; }
+        Query responseBetween(int fromMillis, int toMillis) { filters.add(new Filter(RESPONSE, fromMillis, toMillis)); return this; }
+        Query on(ForkJoinPool pool) { this.pool = pool; return this; }
+
+        // Groups with at least one row, in group-id order (dictionary order, or by date)
+        List<Group> groupBy(GroupBy by) {
+            List<Segment> snap = snapshot();
+            long dayBase = 0;
+            int groups;
+            switch (by) {
+                case CHAPTER: case CHOSEN: groups = labels.size(); break;
+                case FILE: groups = files.size(); break;
+                case CORRECT: groups = 2; break;
+                case DAY: {
+                    // One group per day between the first and last attempt, narrowed by any time filter
+                    long from = Long.MAX_VALUE, to = Long.MIN_VALUE;
+                    for (Segment s : snap) {
+                        from = Math.min(from, s.columns[TIME].min);
+                        to = Math.max(to, s.columns[TIME].max);
+                    }
+                    for (Filter f : filters) {
+                        if (f.column != TIME) continue;
+                        from = Math.max(from, f.lo);
+                        to = Math.min(to, f.hi);
+                    }
+                    if (snap.isEmpty() || from > to) {
+                        groups = 0;
+                        break;
+                    }
+                    dayBase = Math.floorDiv(from, DAY_MILLIS);
+                    long days = Math.floorDiv(to, DAY_MILLIS) - dayBase + 1;
+                    if (days > MAX_DAY_GROUPS) {
+                        throw new IllegalArgumentException("grouping by day over " + days + " days (more than "
+                                + MAX_DAY_GROUPS + "); narrow the time range with between()");
+                    }
+                    groups = (int) days;
+                    break;
+                }
+                default: groups = 1;
+            }
+            List<Group> result = new ArrayList<>();
+            if (empty || snap.isEmpty() || groups == 0) return result;
+
+            Aggregate total = pool.invoke(new SegmentTask(snap, 0, snap.size(), filters, by, groups, dayBase));
+            for (int g = 0; g < groups; g++) {
+                if (total.count[g] == 0) continue;
+                String key;
+                switch (by) {
+                    case CHAPTER: case CHOSEN: key = labels.name(g); break;
+                    case FILE: key = files.name(g); break;
+                    case CORRECT: key = g == 1 ? "correct" : "wrong"; break;
+                    case DAY: key = LocalDate.ofEpochDay(dayBase + g).toString(); break;
+                    default: key = "all";
+                }
+                result.add(new Group(key, total.count[g], total.correct[g], (double) total.responseSum[g] / total.count[g],
+                        total.responseMin[g], total.responseMax[g]));
+            }
+            return result;
+        }
+    }
+
+    Query query() { return new Query(); }
+
+    // Splits the segment list in halves; each leaf evaluates one segment
+    static final class SegmentTask extends RecursiveTask<Aggregate> {
+        private static final long serialVersionUID = 1L;
+        final List<Segment> segments;
+        final int from, to;
+        final List<Filter> filters;
+        final GroupBy by;
+        final int groups;
+        final long dayBase;
+
+        SegmentTask(List<Segment> segments, int from, int to, List<Filter> filters, GroupBy by, int groups, long dayBase) {
+            this.segments = segments; this.from = from; this.to = to;
+            this.filters = filters; this.by = by; this.groups = groups; this.dayBase = dayBase;
+        }
+
+        @Override
+        protected Aggregate compute() {
+            if (to - from == 1) {
+                Aggregate a = new Aggregate(groups);
+                scan(segments.get(from), filters, by, dayBase, a);
+                return a;
+            }
+            int mid = (from + to) >>> 1;
+            SegmentTask left = new SegmentTask(segments, from, mid, filters, by, groups, dayBase);
+            left.fork();
+            Aggregate right = new SegmentTask(segments, mid, to, filters, by, groups, dayBase).compute();
+            return right.add(left.join());
+        }
+    }
+
+    static int groupColumn(GroupBy by) {
+        switch (by) {
+            case CHAPTER: return CHAPTER;
+            case FILE: return FILE;
+            case CHOSEN: return CHOSEN;
+            case CORRECT: return CORRECT;
+            case DAY: return TIME;
+            default: return -1;
+        }
+    }
+
+    // Decodes (and maps to this log's dictionary ids) one int column of s into out
+    static void decodeColumn(Segment s, int column, int[] out) {
+        s.columns[column].decode(out, s.rows);
+        int[] map = s.map(column);
+        if (map != null) for (int i = 0; i < s.rows; i++) out[i] = map[out[i]];
+    }
+
+    static void scan(Segment s, List<Filter> filters, GroupBy by, long dayBase, Aggregate a) {
+        // Zone maps: skip the segment when a filter can't match anything in it
+        for (Filter f : filters) {
+            Encoded e = s.columns[f.column];
+            if (s.map(f.column) == null && (f.hi < e.min || f.lo > e.max)) return;
+        }
+        Scratch sc = SCRATCH.get();
+        int n = s.rows;
+        boolean[] decoded = new boolean[COLUMNS];
+
+        // Filters narrow a selection vector of row indexes; branch-free: always write, advance only on a match
+        int[] sel = sc.selection;
+        int selected = -1;   // -1: all rows
+        for (Filter f : filters) {
+            if (f.column == TIME) {
+                if (!decoded[TIME]) { s.columns[TIME].decode(sc.time, n); decoded[TIME] = true; }
+                long[] v = sc.time;
+                long lo = f.lo, hi = f.hi;
+                int k = 0;
+                if (selected < 0) {
+                    for (int i = 0; i < n; i++) { sel[k] = i; k += (v[i] >= lo & v[i] <= hi) ? 1 : 0; }
+                } else {
+                    for (int j = 0; j < selected; j++) { int i = sel[j]; sel[k] = i; k += (v[i] >= lo & v[i] <= hi) ? 1 : 0; }
+                }
+                selected = k;
+            } else {
+                if (!decoded[f.column]) { decodeColumn(s, f.column, sc.ints[f.column]); decoded[f.column] = true; }
+                int[] v = sc.ints[f.column];
+                int lo = (int) f.lo, hi = (int) f.hi;
+                int k = 0;
+                if (selected < 0) {
+                    for (int i = 0; i < n; i++) { sel[k] = i; k += (v[i] >= lo & v[i] <= hi) ? 1 : 0; }
+                } else {
+                    for (int j = 0; j < selected; j++) { int i = sel[j]; sel[k] = i; k += (v[i] >= lo & v[i] <= hi) ? 1 : 0; }
+                }
+                selected = k;
+            }
+            if (selected == 0) return;
+        }
+
+        // Group ids: a dictionary/flag column as is, or days since dayBase (computed only for selected rows)
+        int column = groupColumn(by);
+        if (column >= 0 && !decoded[column]) {
+            if (column == TIME) s.columns[TIME].decode(sc.time, n);
+            else decodeColumn(s, column, sc.ints[column]);
+            decoded[column] = true;
+        }
+        int[] keys = column > TIME ? sc.ints[column] : null;
+        long[] times = column == TIME ? sc.time : null;
+        if (!decoded[CORRECT]) decodeColumn(s, CORRECT, sc.ints[CORRECT]);
+        if (!decoded[RESPONSE]) decodeColumn(s, RESPONSE, sc.ints[RESPONSE]);
+        int[] correct = sc.ints[CORRECT], response = sc.ints[RESPONSE];
+
+        long[] count = a.count, right = a.correct, sum = a.responseSum;
+        int[] min = a.responseMin, max = a.responseMax;
+        int limit = selected < 0 ? n : selected;
+        for (int j = 0; j < limit; j++) {
+            int i = selected < 0 ? j : sel[j];
+            int g;
+            if (keys != null) {
+                g = keys[i];
+            } else if (times != null) {
+                long day = Math.floorDiv(times[i], DAY_MILLIS) - dayBase;
+                if (day < 0 || day >= count.length) continue;   // outside the days the groups were sized for
+                g = (int) day;
+            } else {
+                g = 0;
+            }
+            int r = response[i];
+            count[g]++;
+            right[g] += correct[i];
+            sum[g] += r;
+            if (r < min[g]) min[g] = r;
+            if (r > max[g]) max[g] = r;
+        }
+    }
+
+    // ---- persistence ----
+
+    // Segment block: rows, the dictionary prefixes its ids refer to, then each encoded column
+    private byte[] segmentBlock(Segment s) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(s.rows);
+        writeDictionary(out, labels, s.labelMap, (int) Math.max(s.columns[CHAPTER].max, s.columns[CHOSEN].max) + 1);
+        writeDictionary(out, files, s.fileMap, (int) s.columns[FILE].max + 1);
+        for (Encoded e : s.columns) e.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeDictionary(DataOutputStream out, Dictionary dict, int[] map, int count) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) out.writeUTF(dict.name(map != null ? map[i] : i));
+    }
+
+    private static void writeBlock(DataOutputStream out, byte[] block) throws IOException {
+        out.writeInt(block.length);
+        out.write(block);
+    }
+
+    // Appends every row of this log to file (creating it if needed) while holding an exclusive file lock
+    synchronized void appendTo(Path file) throws IOException {
+        List<Segment> all = snapshot();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Segment s : all) writeBlock(out, segmentBlock(s));
+        out.flush();
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ch.lock();   // released when the channel closes
+            while (retired(ch)) {   // compacted while we waited: the path now names the new file
+                ch.close();
+                ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                ch.lock();
+            }
+            long end = completeLength(ch, file);
+            if (end < ch.size()) ch.truncate(end);   // drop a block torn by a crash, so new blocks follow whole ones
+            ByteBuffer buf;
+            if (end == 0) {
+                buf = ByteBuffer.allocate(8 + bytes.size());
+                buf.putInt(MAGIC).putInt(VERSION);
+            } else {
+                buf = ByteBuffer.allocate(bytes.size());
+            }
+            buf.put(bytes.toByteArray()).flip();
+            while (buf.hasRemaining()) end += ch.write(buf, end);
+        } finally {
+            ch.close();
+        }
+    }
+
+    private static boolean retired(FileChannel ch) throws IOException {
+        if (ch.size() < 4) return false;
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        readAt(ch, magic, 0);
+        return magic.getInt(0) == RETIRED;
+    }
+
+    // Bytes of ch up to the end of its last complete block; 0 when not even the 8-byte header is complete
+    private static long completeLength(FileChannel ch, Path file) throws IOException {
+        long size = ch.size();
+        if (size < 8) return 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        readAt(ch, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) throw new IOException("not an attempt log: " + file);
+        ByteBuffer length = ByteBuffer.allocate(4);
+        long pos = 8;
+        while (size - pos >= 4) {
+            length.clear();
+            readAt(ch, length, pos);
+            int n = length.getInt(0);
+            if (n < 0 || size - pos - 4 < n) break;
+            pos += 4 + n;
+        }
+        return pos;
+    }
+
+    private static void readAt(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+            if (n < 0) throw new EOFException();
+        }
+    }
+
+    // Rewrites file with every row of this log in full segments (temporary file, then an atomic rename)
+    synchronized void writeTo(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Segment s : snapshot()) writeBlock(out, segmentBlock(s));
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Rewrites file in full segments under the append lock, so no append lands between the load and the rename.
+    // Before the lock is released the replaced file is marked RETIRED: an append that was waiting for the lock on
+    // it sees the mark and reopens the path instead of writing rows nobody will read.
+    static AttemptLog compact(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ch.lock();
+            AttemptLog log = load(ch, file);
+            log.writeTo(file);
+            ByteBuffer retired = ByteBuffer.allocate(4).putInt(0, RETIRED);
+            while (retired.hasRemaining()) ch.write(retired, retired.position());
+            return log;
+        }
+    }
+
+    static AttemptLog load(Path file) throws IOException {
+        if (!Files.exists(file)) return new AttemptLog();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(ch, file);
+        }
+    }
+
+    // Full segments are kept encoded; small ones (one per quiz) are decoded into the open segment, so a log that
+    // grew one quiz at a time is queried in full segments. Reads ch from the start; the caller closes it.
+    private static AttemptLog load(FileChannel ch, Path file) throws IOException {
+        AttemptLog log = new AttemptLog();
+        if (ch.size() < 8) return log;   // a header torn by a crash
+        ch.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("not an attempt log: " + file);
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException end) {
+                break;
+            }
+            if (length < 0) break;
+            byte[] block = new byte[length];
+            if (!readFully(in, block)) break;   // truncated by a crash mid-append (appendTo cuts it off)
+            log.addBlock(new DataInputStream(new ByteArrayInputStream(block)));
+        }
+        return log;
+    }
+
+    private static boolean readFully(InputStream in, byte[] b) throws IOException {
+        int at = 0;
+        while (at < b.length) {
+            int n = in.read(b, at, b.length - at);
+            if (n < 0) return false;
+            at += n;
+        }
+        return true;
+    }
+
+    private synchronized void addBlock(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        int[] labelMap = readDictionary(in, labels), fileMap = readDictionary(in, files);
+        Encoded[] cols = new Encoded[COLUMNS];
+        for (int c = 0; c < COLUMNS; c++) cols[c] = Encoded.read(in);
+        Segment s = new Segment(n, cols, isIdentity(labelMap) ? null : labelMap, isIdentity(fileMap) ? null : fileMap);
+        if (n >= SEGMENT_ROWS / 2) {
+            segments.add(s);
+            return;
+        }
+        long[] t = new long[n], sess = new long[n];
+        int[][] v = new int[COLUMNS][n];
+        cols[TIME].decode(t, n);
+        cols[SESSION].decode(sess, n);
+        for (int c = CHAPTER; c < COLUMNS; c++) decodeColumn(s, c, v[c]);
+        for (int i = 0; i < n; i++) {
+            append(t[i], sess[i], v[CHAPTER][i], v[FILE][i], v[CHOSEN][i], v[CORRECT][i] == 1, v[RESPONSE][i]);
+        }
+    }
+
+    private static int[] readDictionary(DataInputStream in, Dictionary dict) throws IOException {
+        int[] map = new int[in.readInt()];
+        for (int i = 0; i < map.length; i++) map[i] = dict.id(in.readUTF());
+        return map;
+    }
+
+    private static boolean isIdentity(int[] map) {
+        for (int i = 0; i < map.length; i++) if (map[i] != i) return false;
+        return true;
+    }
+
+    // ---- report ----
+
+    static void printGroups(String title, List<Group> groups) {
+        System.out.println(title);
+        System.out.printf("  %-32s %12s %9s %12s %10s%n", "", "attempts", "correct", "avg resp ms", "max ms");
+        for (Group g : groups) {
+            System.out.printf("  %-32s %,12d %8.1f%% %12.0f %10d%n", g.key, g.count, 100 * g.accuracy(),
+                    g.avgResponseMillis, g.maxResponseMillis);
+        }
+        System.out.println();
+    }
+
+    void report() {
+        List<Segment> snap = snapshot();
+        long bytes = 0;
+        for (Segment s : snap) bytes += s.bytes();
+        long n = rowCount();
+        System.out.printf("%,d attempts in %d segments, %.1f MB encoded (%.1f bytes/attempt)%n%n",
+                n, snap.size(), bytes / 1e6, n == 0 ? 0.0 : (double) bytes / n);
+        if (n == 0) return;
+        printGroups("By chapter:", query().groupBy(GroupBy.CHAPTER));
+
+        List<Group> hardest = query().groupBy(GroupBy.FILE);
+        hardest.removeIf(g -> g.key.isEmpty() || g.count < 3);
+        hardest.sort((a, b) -> Double.compare(a.accuracy(), b.accuracy()));
+        printGroups("Hardest examples (at least 3 attempts):", hardest.subList(0, Math.min(10, hardest.size())));
+
+        long today = Math.floorDiv(System.currentTimeMillis(), DAY_MILLIS);
+        printGroups("Last 14 days:", query().between((today - 13) * DAY_MILLIS, (today + 1) * DAY_MILLIS).groupBy(GroupBy.DAY));
+    }
+
+    // ---- benchmark ----
+
+    static final class Timed {
+        final List<Group> groups;
+        final double millis;
+        Timed(List<Group> groups, double millis) { this.groups = groups; this.millis = millis; }
+    }
+
+    static Timed best(java.util.function.Supplier<List<Group>> q, int rounds) {
+        List<Group> r = q.get();
+        for (int i = 0; i < 3; i++) q.get();   // warm-up, so every loop is compiled
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            r = q.get();
+            best = Math.min(best, (System.nanoTime() - t0) / 1e6);
+        }
+        return new Timed(r, best);
+    }
+
+    static void bench(long rowsTotal) throws IOException {
+        String[] chapters = { "Building Blocks", "Operators & Statements", "Core Java", "Encapsulation & Methods",
+                "Class Design", "Exceptions" };
+        AttemptLog log = new AttemptLog();
+        Random rnd = new Random(7);
+        int[] chapterIds = new int[chapters.length];
+        for (int c = 0; c < chapters.length; c++) chapterIds[c] = log.labels.id(chapters[c]);
+        int filesPerChapter = 8;
+        int[] fileIds = new int[chapters.length * filesPerChapter];
+        double[] difficulty = new double[fileIds.length];
+        for (int f = 0; f < fileIds.length; f++) {
+            fileIds[f] = log.files.id("Example" + f + ".java");
+            difficulty[f] = 0.45 + 0.5 * rnd.nextDouble();   // chance of a right answer
+        }
+
+        // About a year of attempts; quizzes of ~10 questions, ~3 s to 20 s per answer
+        long start = System.currentTimeMillis() - 365 * DAY_MILLIS;
+        long gapMillis = Math.max(1, 365 * DAY_MILLIS / rowsTotal);
+        long t = start, sessionId = 0;
+        int left = 0;
+        long t0 = System.nanoTime();
+        for (long i = 0; i < rowsTotal; i++) {
+            if (left-- == 0) { sessionId++; left = 5 + rnd.nextInt(10); }
+            int f = rnd.nextInt(fileIds.length);
+            int chapter = f / filesPerChapter;
+            boolean right = rnd.nextDouble() < difficulty[f];
+            int chosen = right ? chapter : (chapter + 1 + rnd.nextInt(chapters.length - 1)) % chapters.length;
+            int response = 2_000 + (int) Math.min(58_000, Math.abs(rnd.nextGaussian()) * 6_000);
+            t += 1 + (long) (rnd.nextDouble() * 2 * gapMillis);
+            log.append(t, sessionId, chapterIds[chapter], fileIds[f], chapterIds[chosen], right, response);
+        }
+        double appendSeconds = (System.nanoTime() - t0) / 1e9;
+        List<Segment> snap = log.snapshot();
+        long[] columnBytes = new long[COLUMNS];
+        int[][] kinds = new int[COLUMNS][3];
+        for (Segment s : snap) {
+            for (int c = 0; c < COLUMNS; c++) {
+                columnBytes[c] += s.columns[c].bytes();
+                kinds[c][s.columns[c].kind]++;
+            }
+        }
+        long total = 0;
+        for (long b : columnBytes) total += b;
+        int rawRowBytes = 8 + 8 + 5 * 4;   // the same row in plain primitive arrays
+        System.out.printf("Appended %,d rows in %.1f s (%.1f M rows/s); %d segments%n", rowsTotal, appendSeconds,
+                rowsTotal / appendSeconds / 1e6, snap.size());
+        System.out.printf("Encoded %.1f MB = %.2f bytes/row (plain primitive columns: %d bytes/row, %.1fx larger)%n",
+                total / 1e6, (double) total / rowsTotal, rawRowBytes, rawRowBytes * (double) rowsTotal / total);
+        for (int c = 0; c < COLUMNS; c++) {
+            StringBuilder k = new StringBuilder();
+            for (int e = 0; e < 3; e++) if (kinds[c][e] > 0) k.append(k.length() == 0 ? "" : ", ").append(Encoded.KIND_NAMES[e]).append(' ').append(kinds[c][e]);
+            System.out.printf("  %-9s %8.2f bits/row  (%s)%n", COLUMN_NAMES[c], columnBytes[c] * 8.0 / rowsTotal, k);
+        }
+        System.out.println();
+
+        long monthFrom = start + 200 * DAY_MILLIS, monthTo = monthFrom + 30 * DAY_MILLIS;
+        ForkJoinPool single = new ForkJoinPool(1);
+        String[] names = { "accuracy by chapter (all rows)", "one chapter, 30 days, by day", "wrong & >10 s, by file",
+                "one file, by option chosen" };
+        List<java.util.function.Function<ForkJoinPool, List<Group>>> queries = new ArrayList<>();
+        queries.add(p -> log.query().on(p).groupBy(GroupBy.CHAPTER));
+        queries.add(p -> log.query().on(p).chapter("Class Design").between(monthFrom, monthTo).groupBy(GroupBy.DAY));
+        queries.add(p -> log.query().on(p).correct(false).responseBetween(10_001, Integer.MAX_VALUE).groupBy(GroupBy.FILE));
+        queries.add(p -> log.query().on(p).file("Example3.java").groupBy(GroupBy.CHOSEN));
+        System.out.printf("Queries (best of 3), common pool parallelism %d:%n", ForkJoinPool.getCommonPoolParallelism());
+        System.out.printf("  %-34s %10s %12s %10s %12s%n", "", "1 thread", "rows/s", "pool", "rows/s");
+        for (int q = 0; q < queries.size(); q++) {
+            java.util.function.Function<ForkJoinPool, List<Group>> query = queries.get(q);
+            Timed one = best(() -> query.apply(single), 3);
+            Timed many = best(() -> query.apply(ForkJoinPool.commonPool()), 3);
+            if (!one.groups.equals(many.groups)) throw new AssertionError("parallel result differs for " + names[q]);
+            System.out.printf("  %-34s %8.0f ms %10.0f M %8.0f ms %10.0f M   (%d groups)%n", names[q], one.millis,
+                    rowsTotal / one.millis / 1e3, many.millis, rowsTotal / many.millis / 1e3, one.groups.size());
+        }
+        single.shutdown();
+        System.out.println();
+
+        Path file = Files.createTempFile("attempts", ".log");
+        try {
+            t0 = System.nanoTime();
+            log.writeTo(file);
+            double writeSeconds = (System.nanoTime() - t0) / 1e9;
+            t0 = System.nanoTime();
+            AttemptLog loaded = load(file);
+            double loadSeconds = (System.nanoTime() - t0) / 1e9;
+            boolean same = loaded.query().groupBy(GroupBy.CHAPTER).equals(log.query().groupBy(GroupBy.CHAPTER))
+                    && loaded.query().file("Example3.java").groupBy(GroupBy.DAY).equals(log.query().file("Example3.java").groupBy(GroupBy.DAY));
+            System.out.printf("File: %.1f MB written in %.1f s, loaded in %.1f s; query results after reload %s%n",
+                    Files.size(file) / 1e6, writeSeconds, loadSeconds, same ? "identical" : "DIFFER");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // ---- self-checks ----
+
+    static AttemptLog sample(int quizzes, long session) {
+        AttemptLog log = new AttemptLog();
+        for (int q = 0; q < quizzes; q++) {
+            for (int i = 0; i < 5; i++) {
+                log.appendAttempt(1_600_000_000_000L + q * 60_000L + i, session + q, "example:Core Java/Demo" + i + ".java",
+                        i % 2 == 0 ? "Core Java" : "Exceptions", i % 2 == 0, 1_000 + i);
+            }
+        }
+        return log;
+    }
+
+    static void check(boolean ok, String what) {
+        if (!ok) throw new AssertionError(what);
+        System.out.println("ok  " + what);
+    }
+
+    static void selfCheck() throws IOException {
+        Path file = Files.createTempFile("attempts", ".log");
+        try {
+            // A crash mid-append leaves part of a block; the next append must cut it off, not write after it
+            sample(1, 0).appendTo(file);
+            long whole = Files.size(file);
+            sample(1, 100).appendTo(file);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(whole + (Files.size(file) - whole) / 2);
+            }
+            check(load(file).rowCount() == 5, "a torn last block is skipped on load");
+            sample(2, 200).appendTo(file);
+            AttemptLog loaded = load(file);
+            check(loaded.rowCount() == 15, "append after a torn block keeps earlier rows and adds the new ones");
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                check(completeLength(ch, file) == ch.size(), "the file ends at a block boundary");
+            }
+
+            // A crash while writing the very first header
+            Files.write(file, new byte[] { 0x51, 0x41, 0x54 });
+            check(load(file).rowCount() == 0, "a torn header loads as an empty log");
+            sample(1, 300).appendTo(file);
+            check(load(file).rowCount() == 5, "append after a torn header writes a fresh header");
+
+            // A torn length prefix (fewer than 4 bytes after the last block)
+            long before = Files.size(file);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ch.write(ByteBuffer.wrap(new byte[] { 0, 0 }));
+            }
+            sample(1, 400).appendTo(file);
+            check(load(file).rowCount() == 10 && Files.size(file) > before, "append after a torn length prefix");
+
+            // Day groups: sized from the time filter, and a span beyond MAX_DAY_GROUPS is rejected, not overrun
+            AttemptLog wide = new AttemptLog();
+            wide.appendAttempt(0L, 1, "chapter:Core Java", "Core Java", true, 500);
+            wide.appendAttempt(2_000_000L * DAY_MILLIS, 1, "chapter:Core Java", "Core Java", false, 700);
+            boolean rejected = false;
+            try {
+                wide.query().groupBy(GroupBy.DAY);
+            } catch (IllegalArgumentException expected) {
+                rejected = true;
+            }
+            check(rejected, "grouping by day over 2,000,000 days is rejected with a clear error");
+            List<Group> lastDay = wide.query().between(1_999_999L * DAY_MILLIS, 2_000_001L * DAY_MILLIS).groupBy(GroupBy.DAY);
+            check(lastDay.size() == 1 && lastDay.get(0).count == 1, "a time filter narrows the day groups");
+
+            List<Group> byChapter = load(file).query().groupBy(GroupBy.CHAPTER);
+            check(byChapter.size() == 1 && byChapter.get(0).correct == 6, "reloaded rows keep their values");
+
+            // Compaction replaces the file; a channel still open on the old one sees it retired
+            try (FileChannel old = FileChannel.open(file, StandardOpenOption.READ)) {
+                check(compact(file).rowCount() == 10 && retired(old), "compact marks the replaced file retired");
+            }
+            sample(1, 500).appendTo(file);
+            check(load(file).rowCount() == 15, "append after compaction goes to the new file");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--check")) {
+            selfCheck();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--bench")) {
+            bench(args.length > 1 ? Long.parseLong(args[1]) : 100_000_000L);
+            return;
+        }
+        boolean compact = args.length > 0 && args[0].equals("--compact");
+        int offset = compact ? 1 : 0;
+        Path file = Paths.get(args.length > offset ? args[offset] : DEFAULT_FILE);
+        if (!Files.exists(file)) {
+            System.out.println("No attempt log at " + file + " (run the quiz with -Dquiz.attempts=" + file + ")");
+            return;
+        }
+        if (compact) {
+            long before = Files.size(file);
+            AttemptLog log = compact(file);
+            System.out.printf("Compacted %s: %,d rows, %d -> %d bytes%n", file, log.rowCount(), before, Files.size(file));
+            return;
+        }
+        load(file).report();
+    }
+}
@@ -0,0 +1,435 @@
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.StreamSupport;
+
+// The examples of QuizApp.scanExamples in a few flat arrays instead of one Example (two Strings and a Path) each:
+//   chapterIds  one byte per example, an index into a small dictionary of chapter folders (each with its display name)
+//   arena       the UTF-8 bytes of every file name, back to back
+//   offsets     name i is arena[offsets[i] .. offsets[i + 1])
+// That is 5 bytes plus the name per example. A List<Example> measured ~210 bytes per example with 26-byte names:
+// the Example, two Strings, and a Path that keeps its own copy of the full path.
+// Reads go by index and allocate nothing (except for the rare non-ASCII name, which is decoded to a String):
+// - chapterId(i) returns an example's chapter.
+// - nameEquals and nameHash inspect a name in place.
+// - Name is a reusable CharSequence view of a name.
+// - fileName(i, pool) returns a pooled String, created only on the pool's first sight of the name.
+// - shuffled(i, seed) is the i-th example of a seeded random order (QuizApp.permute). Sampling k examples
+//   without repeats is shuffled(0..k-1, seed), with no index array to shuffle.
+// Only fileName(i), path(i) and example(i) create objects, for when an example is shown or read.
+//
+//   java -cp "Test Knowledge" ExampleCatalog [root]                    chapters and sizes of the scanned catalog
+//   java -Xmx2g -cp "Test Knowledge" ExampleCatalog --bench [count]    synthetic bank (default 10,000,000 examples)
+public class ExampleCatalog {
+    static final int MAX_CHAPTERS = 256;   // ids are stored in a byte
+
+    private final Path root;
+    private final List<String> chapterNames = new ArrayList<>();
+    private final List<String> chapterFolders = new ArrayList<>();
+    private final Map<String, Integer> chapterIdsByFolder = new HashMap<>();
+
+    private final BitSet nonAscii = new BitSet(); // examples whose name has a multi-byte UTF-8 character
+    private byte[] chapterIds = new byte[16];
+    private int[] offsets = new int[17];
+    private byte[] arena = new byte[256];
+    private int size;
+
+    ExampleCatalog(Path root) { this.root = root; }
+
+    // Same walk as QuizApp.scanExamples: <root>/<chapter folder>/CodeExamples/*.java
+    static ExampleCatalog scan(Path root) throws IOException {
+        ExampleCatalog catalog = new ExampleCatalog(root);
+        try (DirectoryStream<Path> chapters = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path chapterDir : chapters) {
+                Path codeDir = chapterDir.resolve("CodeExamples");
+                if (!Files.isDirectory(codeDir)) continue;
+
+                String folder = chapterDir.getFileName().toString();
+                int chapter = catalog.chapter(QuizApp.friendlyChapterName(folder), folder);
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(codeDir, "*.java")) {
+                    for (Path f : files) catalog.add(chapter, f.getFileName().toString());
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        catalog.trim();
+        return catalog;
+    }
+
+    // ---- building ----
+
+    // Id of a chapter folder (its directory name under root), added on first use. Two folders may share a display
+    // name ("5-Classes" and "Classes" both read "Classes"), so the folder is the key and the name is data
+    int chapter(String name, String folder) {
+        Integer id = chapterIdsByFolder.get(folder);
+        if (id != null) return id;
+        if (chapterFolders.size() == MAX_CHAPTERS) throw new IllegalStateException("more than " + MAX_CHAPTERS + " chapters");
+        chapterNames.add(name);
+        chapterFolders.add(folder);
+        chapterIdsByFolder.put(folder, chapterFolders.size() - 1);
+        return chapterFolders.size() - 1;
+    }
+
+    void add(int chapterId, CharSequence fileName) {
+        int len = fileName.length();
+        for (int k = 0; k < len; k++) {
+            if (fileName.charAt(k) >= 0x80) {
+                byte[] utf8 = fileName.toString().getBytes(StandardCharsets.UTF_8);
+                add(chapterId, utf8, 0, utf8.length);
+                return;
+            }
+        }
+        int at = reserve(chapterId, len);
+        for (int k = 0; k < len; k++) arena[at + k] = (byte) fileName.charAt(k);
+    }
+
+    void add(int chapterId, byte[] utf8, int off, int len) {
+        int at = reserve(chapterId, len);
+        System.arraycopy(utf8, off, arena, at, len);
+        for (int k = at; k < at + len; k++) {
+            if (arena[k] < 0) {
+                nonAscii.set(size - 1);
+                break;
+            }
+        }
+    }
+
+    // Appends example `size` with a name of len bytes and returns where in the arena the name goes
+    private int reserve(int chapterId, int len) {
+        if (chapterId < 0 || chapterId >= chapterFolders.size()) throw new IllegalArgumentException("no chapter " + chapterId);
+        if (size == chapterIds.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            chapterIds = Arrays.copyOf(chapterIds, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+        int at = offsets[size];
+        long end = (long) at + len;
+        if (end > Integer.MAX_VALUE - 8) throw new IllegalStateException("file names exceed 2 GB");
+        if (end > arena.length) arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(end, arena.length + (arena.length >> 1))));
+        chapterIds[size] = (byte) chapterId;
+        offsets[++size] = (int) end;
+        return at;
+    }
+
+    // Drops the spare capacity left by growing
+    void trim() {
+        chapterIds = Arrays.copyOf(chapterIds, size);
+        offsets = Arrays.copyOf(offsets, size + 1);
+        arena = Arrays.copyOf(arena, offsets[size]);
+    }
+
+    // ---- reading, without allocation ----
+
+    int size() { return size; }
+
+    int chapterCount() { return chapterFolders.size(); }
+
+    String chapterName(int chapterId) { return chapterNames.get(chapterId); }
+
+    String chapterFolder(int chapterId) { return chapterFolders.get(chapterId); }
+
+    // Distinct display names, sorted like QuizApp.distinctChapters: the answer options of a question
+    List<String> chapterNames() { return new ArrayList<>(new TreeSet<>(chapterNames)); }
+
+    int chapterId(int i) {
+        checkIndex(i);
+        return chapterIds[i] & 0xff;
+    }
+
+    int nameLength(int i) {
+        checkIndex(i);
+        return offsets[i + 1] - offsets[i];
+    }
+
+    // Compares the name's bytes with s, one char per byte; a non-ASCII name is decoded first
+    boolean nameEquals(int i, CharSequence s) {
+        checkIndex(i);
+        if (nonAscii.get(i)) return fileName(i).contentEquals(s);
+        int from = offsets[i], len = offsets[i + 1] - from;
+        if (s.length() != len) return false;
+        for (int k = 0; k < len; k++) if ((arena[from + k] & 0xff) != s.charAt(k)) return false;
+        return true;
+    }
+
+    // Equal to fileName(i).hashCode(); only a non-ASCII name is decoded to get it
+    int nameHash(int i) {
+        checkIndex(i);
+        if (nonAscii.get(i)) return fileName(i).hashCode();
+        int h = 0;
+        for (int k = offsets[i], end = offsets[i + 1]; k < end; k++) h = 31 * h + (arena[k] & 0xff);
+        return h;
+    }
+
+    // First example with this chapter and file name, or -1
+    int indexOf(int chapterId, CharSequence fileName) {
+        for (int i = 0; i < size; i++) {
+            if ((chapterIds[i] & 0xff) == chapterId && nameEquals(i, fileName)) return i;
+        }
+        return -1;
+    }
+
+    // Example number i of the order given by seed: each seed is a different shuffle of [0, size)
+    int shuffled(int i, long seed) {
+        checkIndex(i);
+        return QuizApp.permute(i, size, seed);
+    }
+
+    int sample(Random rnd) { return rnd.nextInt(size); }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("example " + i + " of " + size);
+    }
+
+    // A movable view of one file name; at(i) re-points it, so one instance serves a whole scan. One byte is one
+    // char only for ASCII names: a non-ASCII name is decoded once in at(i) and read from that String instead.
+    final class Name implements CharSequence {
+        private int from, to;
+        private String decoded;
+
+        Name at(int i) {
+            checkIndex(i);
+            from = offsets[i];
+            to = offsets[i + 1];
+            decoded = nonAscii.get(i) ? fileName(i) : null;
+            return this;
+        }
+
+        @Override
+        public int length() { return decoded != null ? decoded.length() : to - from; }
+
+        @Override
+        public char charAt(int k) {
+            if (decoded != null) return decoded.charAt(k);
+            if (k < 0 || k >= to - from) throw new IndexOutOfBoundsException(String.valueOf(k));
+            return (char) (arena[from + k] & 0xff);
+        }
+
+        boolean endsWith(String suffix) {
+            if (decoded != null) return decoded.endsWith(suffix);
+            int n = suffix.length();
+            if (n > to - from) return false;
+            for (int k = 0; k < n; k++) if ((arena[to - n + k] & 0xff) != suffix.charAt(k)) return false;
+            return true;
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) { return toString().substring(start, end); }
+
+        @Override
+        public String toString() { return decoded != null ? decoded : new String(arena, from, to - from, StandardCharsets.UTF_8); }
+    }
+
+    Name name() { return new Name(); }
+
+    // ---- reading into objects ----
+
+    String fileName(int i) {
+        checkIndex(i);
+        return new String(arena, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+    }
+
+    // The pooled copy: no allocation once the pool has the name
+    String fileName(int i, StringPool pool) {
+        checkIndex(i);
+        return pool.intern(arena, offsets[i], offsets[i + 1] - offsets[i]);
+    }
+
+    Path path(int i) {
+        return root.resolve(chapterFolders.get(chapterId(i))).resolve("CodeExamples").resolve(fileName(i));
+    }
+
+    QuizApp.Example example(int i) {
+        return new QuizApp.Example(chapterName(chapterId(i)), fileName(i, QuizApp.Names.POOL), path(i));
+    }
+
+    // The quiz's lazy question source over the catalog; chapters must hold at least 2 names
+    Spliterator<QuizApp.Question> questions(List<String> chapters, long seed, long count) {
+        return new QuizApp.QuestionSpliterator((item, rnd) -> QuizApp.exampleQuestion(example(item), chapters, rnd),
+                size, seed, 0, count);
+    }
+
+    // Bytes held by the arrays (the chapter dictionary is a few strings on top)
+    long arrayBytes() {
+        return 3 * 16L + chapterIds.length + 4L * offsets.length + arena.length;
+    }
+
+    // ---- benchmark ----
+
+    static volatile long sink;
+
+    static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    static final String[] TOPICS = { "Switch", "Lambda", "Equality", "Varargs", "Autoboxing", "FinallyOverride",
+            "StaticInit", "Ternary", "MultiCatch", "FieldHiding", "Polymorphism", "StringBuilder" };
+    static final String[] KINDS = { "Demo", "Lab", "Example" };
+    static final String[][] CHAPTERS = { { "Building Blocks", "1-Building Blocks" },
+            { "Operators & Statements", "2-Operators & Statements" }, { "Core Java", "3-Core Java" },
+            { "Encapsulation & Methods", "4-Encapsulation & Methods" }, { "Class Design", "5-Classes" },
+            { "Exceptions", "6-Exceptions" } };
+
+    // Synthetic example i: its chapter and a name like "Lambda123456Demo.java"
+    static int syntheticChapter(int i) { return (int) ((QuizApp.mix(i) >>> 1) % CHAPTERS.length); }
+
+    static String syntheticName(int i) { return TOPICS[i % TOPICS.length] + i + KINDS[i % KINDS.length] + ".java"; }
+
+    // Best of 3 timed runs after warm-up: {ns per example, bytes allocated per example}
+    interface Scan { long run(); }
+
+    static double[] measure(Scan scan, long items) {
+        ThreadMXBean mx = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long me = Thread.currentThread().getId();
+        for (int w = 0; w < 3; w++) sink += scan.run();
+        long best = Long.MAX_VALUE, a0 = mx.getThreadAllocatedBytes(me);
+        for (int r = 0; r < 3; r++) {
+            long t0 = System.nanoTime();
+            sink += scan.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return new double[] { (double) best / items, (double) (mx.getThreadAllocatedBytes(me) - a0) / (3 * items) };
+    }
+
+    static void bench(int count) {
+        Path root = Paths.get("bank");
+        // List<Example> for up to 1M examples (10M would need several GB), scaled per example
+        int listCount = Math.min(count, 1_000_000);
+        long before = usedHeapAfterGc();
+        List<QuizApp.Example> list = new ArrayList<>();
+        for (int i = 0; i < listCount; i++) {
+            String[] ch = CHAPTERS[syntheticChapter(i)];
+            String name = syntheticName(i);
+            list.add(new QuizApp.Example(ch[0], name, root.resolve(ch[1]).resolve("CodeExamples").resolve(name)));
+        }
+        double listBytes = (double) (usedHeapAfterGc() - before) / listCount;
+        sink += list.size();
+        list = null;
+
+        before = usedHeapAfterGc();
+        long t0 = System.nanoTime();
+        ExampleCatalog catalog = new ExampleCatalog(root);
+        for (String[] ch : CHAPTERS) catalog.chapter(ch[0], ch[1]);
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            name.setLength(0);
+            name.append(TOPICS[i % TOPICS.length]).append(i).append(KINDS[i % KINDS.length]).append(".java");
+            catalog.add(syntheticChapter(i), name);
+        }
+        catalog.trim();
+        double buildSeconds = (System.nanoTime() - t0) / 1e9;
+        long catalogHeap = usedHeapAfterGc() - before;
+
+        System.out.printf("%,d examples, average name %.1f bytes%n%n", count, (double) catalog.offsets[count] / count);
+        System.out.printf("%-34s %14s %14s%n", "", "bytes/example", "total");
+        System.out.printf("%-34s %14.1f %11.0f MB%n", "List<Example> (Strings + Path)", listBytes, listBytes * count / 1e6);
+        System.out.printf("%-34s %14.1f %11.0f MB   (built in %.1f s)%n%n", "ExampleCatalog", (double) catalogHeap / count,
+                catalogHeap / 1e6, buildSeconds);
+
+        int classDesign = 4;
+        Name view = catalog.name();
+        long seed = 42;
+        int samples = Math.min(count, 1_000_000);
+        double[][] results = {
+                measure(() -> {                                   // chapter histogram over every example
+                    long[] perChapter = new long[MAX_CHAPTERS];
+                    for (int i = 0; i < count; i++) perChapter[catalog.chapterId(i)]++;
+                    return perChapter[classDesign];
+                }, count),
+                measure(() -> {                                   // names ending in Lab.java, via the reusable view
+                    long labs = 0;
+                    for (int i = 0; i < count; i++) if (view.at(i).endsWith("Lab.java")) labs++;
+                    return labs;
+                }, count),
+                measure(() -> {                                   // hash of every name, in place
+                    long h = 0;
+                    for (int i = 0; i < count; i++) h += catalog.nameHash(i);
+                    return h;
+                }, count),
+                measure(() -> {                                   // 1M examples in shuffled order, with their names
+                    long h = 0;
+                    for (int k = 0; k < samples; k++) {
+                        int i = catalog.shuffled(k, seed);
+                        h += catalog.chapterId(i) + view.at(i).length();
+                    }
+                    return h;
+                }, samples),
+        };
+        String[] names = { "chapter histogram (all)", "names ending in Lab.java (all)", "hash every name (all)",
+                "shuffled order, first 1M" };
+        System.out.printf("%-34s %10s %16s%n", "", "ns/example", "alloc B/example");
+        for (int r = 0; r < results.length; r++) {
+            System.out.printf("%-34s %10.2f %16.3f%n", names[r], results[r][0], results[r][1]);
+        }
+
+        // A shuffled order is a permutation: every example exactly once
+        int check = Math.min(count, 1 << 20);
+        ExampleCatalog small = new ExampleCatalog(root);
+        small.chapter("c", "c");
+        for (int i = 0; i < check; i++) small.add(0, "N.java");
+        boolean[] seen = new boolean[check];
+        for (int k = 0; k < check; k++) {
+            int i = small.shuffled(k, seed);
+            if (seen[i]) throw new AssertionError("shuffled(" + k + ") repeats example " + i);
+            seen[i] = true;
+        }
+
+        // Folders that share a display name stay separate chapters with their own paths
+        ExampleCatalog twins = new ExampleCatalog(root);
+        int first = twins.chapter("Classes", "5-Classes"), second = twins.chapter("Classes", "Classes");
+        twins.add(first, "A.java");
+        twins.add(second, "A.java");
+        if (first == second || twins.path(0).equals(twins.path(1)) || twins.chapterNames().size() != 1) {
+            throw new AssertionError("chapters sharing a display name were merged");
+        }
+
+        // A non-ASCII name reads as its decoded chars through Name, nameEquals, nameHash and the pool
+        String accented = "Caf\u00e9Demo.java";
+        twins.add(first, accented);
+        Name n = twins.name().at(2);
+        if (n.length() != accented.length() || !n.toString().equals(accented) || n.charAt(3) != '\u00e9'
+                || !n.endsWith("\u00e9Demo.java") || !twins.nameEquals(2, accented) || twins.nameHash(2) != accented.hashCode()
+                || !new StringPool(16).intern(n).equals(accented) || twins.nameEquals(0, accented)) {
+            throw new AssertionError("non-ASCII name read back as " + n);
+        }
+
+        // Questions straight from the catalog, through the quiz's lazy source
+        List<String> chapters = new ArrayList<>(catalog.chapterNames());
+        t0 = System.nanoTime();
+        long questions = StreamSupport.stream(catalog.questions(chapters, seed, 1_000_000), false)
+                .filter(q -> q.options.get(q.correctIndex).equals("Class Design")).count();
+        System.out.printf("%n1,000,000 quiz questions from the catalog in %.0f ms (%,d about Class Design)%n",
+                (System.nanoTime() - t0) / 1e6, questions);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--bench")) {
+            bench(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+            return;
+        }
+        Path root = args.length > 0 ? Paths.get(args[0]) : Paths.get("").toAbsolutePath();
+        ExampleCatalog catalog = scan(root);
+        int[] perChapter = new int[catalog.chapterCount()];
+        for (int i = 0; i < catalog.size(); i++) perChapter[catalog.chapterId(i)]++;
+        System.out.printf("%d examples in %d chapters, %d bytes of arrays%n", catalog.size(), catalog.chapterCount(),
+                catalog.arrayBytes());
+        for (int c = 0; c < perChapter.length; c++) {
+            System.out.printf("  %-28s %-28s %d%n", catalog.chapterName(c), catalog.chapterFolder(c), perChapter[c]);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Finds near-duplicate CodeExamples (copies with renamed variables, a few lines added or removed) without comparing
+// every pair of files:
+//   1. shingling   each file becomes the set of its 5-token windows; comments and whitespace are ignored
+//   2. MinHash     the set is summarized by a 128-value signature; the share of equal values between two signatures
+//                  estimates the Jaccard similarity of the two sets. One-permutation hashing fills all 128 bins from a
+//                  single hash per shingle (instead of 128 hashes), with empty bins borrowed from their neighbours.
+//   3. LSH         the signature is cut into 32 bands of 4 values; files that agree on a whole band become candidate
+//                  pairs. Each band is one sort of (band hash, file) keys, so the work grows like n log n, not n^2.
+//   4. clusters    candidates whose estimated similarity reaches the threshold are merged with union-find
+//
+//   java -cp "Test Knowledge" ExampleDedup [root] [threshold]        list near-duplicate clusters (default 0.7)
+//   java -cp "Test Knowledge" ExampleDedup --bench [maxFiles]        synthetic corpus, 12.5k..maxFiles (default 100k)
+// QuizApp --dedup uses collapse() so each cluster is asked about only once.
+public class ExampleDedup {
+    static final int SHINGLE_TOKENS = 5;
+    static final int BINS = 128;
+    static final int BANDS = 32;
+    static final int ROWS = BINS / BANDS;
+    static final double DEFAULT_THRESHOLD = 0.7;
+    private static final long EMPTY = Long.MAX_VALUE;
+
+    // ---- 1 + 2: tokens -> shingles -> signature ----
+
+    // One pass over the source; token hashes are computed from the chars, so no token Strings are created
+    static long[] signature(CharSequence src) {
+        long[] bins = new long[BINS];
+        Arrays.fill(bins, EMPTY);
+        long[] window = new long[SHINGLE_TOKENS];
+        int tokens = 0;
+        int n = src.length();
+        int i = 0;
+        while (i < n) {
+            char c = src.charAt(i);
+            if (Character.isWhitespace(c)) { i++; continue; }
+            if (c == '/' && i + 1 < n && src.charAt(i + 1) == '/') {          // line comment
+                while (i < n && src.charAt(i) != '\n') i++;
+                continue;
+            }
+            if (c == '/' && i + 1 < n && src.charAt(i + 1) == '*') {          // block comment
+                i += 2;
+                while (i + 1 < n && !(src.charAt(i) == '*' && src.charAt(i + 1) == '/')) i++;
+                i += 2;
+                continue;
+            }
+            long h = 0xcbf29ce484222325L;
+            int start = i;
+            if (Character.isJavaIdentifierStart(c) || Character.isDigit(c)) {
+                while (i < n && Character.isJavaIdentifierPart(src.charAt(i))) i++;
+            } else if (c == '"' || c == '\'') {                                 // literal, escapes included
+                i++;
+                while (i < n && src.charAt(i) != c && src.charAt(i) != '\n') i += src.charAt(i) == '\\' ? 2 : 1;
+                i = Math.min(n, i + 1);
+            } else {
+                i++;                                                            // one punctuation char
+            }
+            for (int j = start; j < i; j++) h = (h ^ src.charAt(j)) * 0x100000001b3L;
+            window[tokens++ % SHINGLE_TOKENS] = h;
+            if (tokens >= SHINGLE_TOKENS) addShingle(bins, window, tokens);
+        }
+        if (tokens > 0 && tokens < SHINGLE_TOKENS) addShingle(bins, window, tokens); // tiny file: one short shingle
+        return densify(bins) ? bins : null;
+    }
+
+    // The window is a ring; combine its hashes oldest first so the shingle hash depends on token order
+    private static void addShingle(long[] bins, long[] window, int tokens) {
+        int count = Math.min(tokens, SHINGLE_TOKENS);
+        long h = 0;
+        for (int k = 0; k < count; k++) h = h * 0x9E3779B97F4A7C15L + window[(tokens - count + k) % SHINGLE_TOKENS];
+        h = mix(h);
+        int bin = (int) (h >>> 57);             // top 7 bits choose one of 128 bins
+        long value = h & 0x01FFFFFFFFFFFFFFL;   // the other 57 bits compete for that bin's minimum
+        if (value < bins[bin]) bins[bin] = value;
+    }
+
+    // Rotation densification: an empty bin copies the next non-empty bin to its right, offset by the distance,
+    // so two similar files fill their empty bins the same way. Returns false for a file without tokens.
+    private static boolean densify(long[] bins) {
+        int firstFull = -1;
+        for (int b = 0; b < BINS && firstFull < 0; b++) if (bins[b] != EMPTY) firstFull = b;
+        if (firstFull < 0) return false;
+        long[] original = bins.clone();
+        for (int b = 0; b < BINS; b++) {
+            if (original[b] != EMPTY) continue;
+            int distance = 1;
+            while (original[(b + distance) % BINS] == EMPTY) distance++;
+            bins[b] = original[(b + distance) % BINS] + distance * 0x9E3779B97F4A7C15L;
+        }
+        return true;
+    }
+
+    static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < BINS; i++) if (a[i] == b[i]) equal++;
+        return (double) equal / BINS;
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // ---- 3 + 4: banding and clustering ----
+
+    // Groups of file indexes (size >= 2) whose estimated similarity reaches the threshold; null signatures are skipped
+    static List<int[]> clusters(long[][] signatures, double threshold) {
+        int n = signatures.length;
+        if (n >= 1 << 24) throw new IllegalArgumentException("at most 16M files per run");
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+
+        long[] keys = new long[n];
+        for (int band = 0; band < BANDS; band++) {
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                long[] sig = signatures[i];
+                if (sig == null) continue;
+                long h = band;
+                for (int r = 0; r < ROWS; r++) h = mix(h * 31 + sig[band * ROWS + r]);
+                keys[m++] = (h & ~0xFFFFFFL) | i; // 40-bit band hash above a 24-bit file index
+            }
+            Arrays.sort(keys, 0, m);
+            // Within a run of equal band hashes, compare each file with the run's first file and its predecessor:
+            // linear in the run length, and enough to connect a cluster through the other bands
+            int runStart = 0;
+            for (int j = 1; j <= m; j++) {
+                if (j < m && (keys[j] & ~0xFFFFFFL) == (keys[runStart] & ~0xFFFFFFL)) {
+                    int a = (int) (keys[j] & 0xFFFFFF);
+                    link(parent, signatures, (int) (keys[runStart] & 0xFFFFFF), a, threshold);
+                    if (j - 1 > runStart) link(parent, signatures, (int) (keys[j - 1] & 0xFFFFFF), a, threshold);
+                } else {
+                    runStart = j;
+                }
+            }
+        }
+
+        // A root is its cluster's lowest index, so visiting i in order meets every root first and lists members sorted
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) size[find(parent, i)]++;
+        Map<Integer, int[]> byRoot = new LinkedHashMap<>();
+        int[] filled = new int[n];
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (size[root] < 2) continue;
+            int[] cluster = byRoot.computeIfAbsent(root, r -> new int[size[r]]);
+            cluster[filled[root]++] = i;
+        }
+        return new ArrayList<>(byRoot.values());
+    }
+
+    private static void link(int[] parent, long[][] sigs, int a, int b, double threshold) {
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra == rb || similarity(sigs[a], sigs[b]) < threshold) return;
+        if (ra < rb) parent[rb] = ra; else parent[ra] = rb; // the lowest index stays the representative
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // ---- integration ----
+
+    static long[][] signatures(List<Path> files) {
+        long[][] sigs = new long[files.size()][];
+        IntStream.range(0, files.size()).parallel().forEach(i -> {
+            try {
+                sigs[i] = signature(new String(Files.readAllBytes(files.get(i)), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                sigs[i] = null; // unreadable: never part of a cluster
+            }
+        });
+        return sigs;
+    }
+
+    // Keeps the first example of every near-duplicate cluster (scan order) and drops the rest
+    static List<QuizApp.Example> collapse(List<QuizApp.Example> examples, double threshold) {
+        List<Path> paths = new ArrayList<>();
+        for (QuizApp.Example e : examples) paths.add(e.path);
+        boolean[] drop = new boolean[examples.size()];
+        for (int[] cluster : clusters(signatures(paths), threshold)) {
+            for (int k = 1; k < cluster.length; k++) drop[cluster[k]] = true;
+        }
+        List<QuizApp.Example> kept = new ArrayList<>();
+        for (int i = 0; i < examples.size(); i++) if (!drop[i]) kept.add(examples.get(i));
+        return kept;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--bench")) {
+            bench(args.length > 1 ? Integer.parseInt(args[1]) : 100_000);
+            return;
+        }
+        Path root = args.length > 0 ? Paths.get(args[0]) : Paths.get("").toAbsolutePath();
+        double threshold = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_THRESHOLD;
+        List<QuizApp.Example> examples = QuizApp.scanExamples(root);
+        List<Path> paths = new ArrayList<>();
+        for (QuizApp.Example e : examples) paths.add(e.path);
+        long[][] sigs = signatures(paths);
+        List<int[]> clusters = clusters(sigs, threshold);
+        System.out.println(examples.size() + " examples, " + clusters.size() + " near-duplicate clusters at similarity >= " + threshold);
+        for (int[] cluster : clusters) {
+            System.out.println("cluster:");
+            for (int i : cluster) {
+                System.out.printf("  %.2f  %s/%s%n", similarity(sigs[cluster[0]], sigs[i]),
+                        examples.get(i).chapter, examples.get(i).fileName);
+            }
+        }
+    }
+
+    // ---- benchmark on a synthetic corpus ----
+
+    // Families of files: each family is a repo example with every identifier longer than 3 chars renamed, so
+    // families share little beyond short tokens; 30% of files are near copies of an earlier family (about 1 line in
+    // 40 dropped and 1 in 40 renamed differently). Text is rebuilt on demand, so 100k files need no disk or heap.
+    static final class Corpus {
+        final List<String[]> bases = new ArrayList<>();
+        final int[] family;
+        final boolean[] original; // first file of its family
+
+        Corpus(Path root, int size, long seed) throws IOException {
+            for (QuizApp.Example e : QuizApp.scanExamples(root)) {
+                bases.add(new String(Files.readAllBytes(e.path), StandardCharsets.UTF_8).split("\n"));
+            }
+            if (bases.isEmpty()) throw new IOException("no CodeExamples under " + root);
+            family = new int[size];
+            original = new boolean[size];
+            Random rnd = new Random(seed);
+            int families = 0;
+            for (int i = 0; i < size; i++) {
+                boolean copy = i > 0 && rnd.nextInt(10) < 3;
+                family[i] = copy ? family[rnd.nextInt(i)] : families++;
+                original[i] = !copy;
+            }
+        }
+
+        String text(int i) {
+            String[] lines = bases.get(family[i] % bases.size());
+            String suffix = "_" + Integer.toString(family[i], 36);
+            String edited = "_e" + Integer.toString(i, 36);
+            Random edit = new Random(mix(i + 1));
+            StringBuilder sb = new StringBuilder(4096);
+            for (String line : lines) {
+                int roll = original[i] ? -1 : edit.nextInt(40);
+                if (roll == 0) continue;
+                renameIdentifiers(line, roll == 1 ? edited : suffix, sb);
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        static void renameIdentifiers(String line, String suffix, StringBuilder out) {
+            int i = 0;
+            while (i < line.length()) {
+                char c = line.charAt(i);
+                if (!Character.isJavaIdentifierStart(c)) { out.append(c); i++; continue; }
+                int start = i;
+                while (i < line.length() && Character.isJavaIdentifierPart(line.charAt(i))) i++;
+                out.append(line, start, i);
+                if (i - start > 3) out.append(suffix);
+            }
+        }
+    }
+
+    static void bench(int maxFiles) throws IOException {
+        Path root = Paths.get("").toAbsolutePath();
+        Corpus corpus = new Corpus(root, maxFiles, 11);
+        System.out.println("MinHash/LSH dedup on synthetic corpora built from " + corpus.bases.size() + " examples, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        System.out.printf("%8s %12s %12s %10s %10s %12s%n", "files", "signatures", "LSH+cluster", "clusters", "recall", "false merges");
+        for (int size = Math.min(12_500, maxFiles); size <= maxFiles; size = size * 2 > maxFiles && size < maxFiles ? maxFiles : size * 2) {
+            final int n = size;
+            long t0 = System.nanoTime();
+            long[][] sigs = new long[n][];
+            IntStream.range(0, n).parallel().forEach(i -> sigs[i] = signature(corpus.text(i)));
+            long t1 = System.nanoTime();
+            List<int[]> clusters = clusters(sigs, DEFAULT_THRESHOLD);
+            long t2 = System.nanoTime();
+
+            // recall: near copies that ended up in their family's cluster; false merge: a cluster spanning families
+            int[] clusterOf = new int[n];
+            Arrays.fill(clusterOf, -1);
+            int falseMerges = 0;
+            for (int c = 0; c < clusters.size(); c++) {
+                int[] members = clusters.get(c);
+                for (int i : members) clusterOf[i] = c;
+                for (int i : members) if (corpus.family[i] != corpus.family[members[0]]) { falseMerges++; break; }
+            }
+            int copies = 0, found = 0;
+            int[] firstInFamily = new int[n];
+            for (int i = 0; i < n; i++) {
+                int f = corpus.family[i];
+                if (corpus.original[i]) { firstInFamily[f] = i; continue; }
+                copies++;
+                if (clusterOf[i] >= 0 && clusterOf[i] == clusterOf[firstInFamily[f]]) found++;
+            }
+            System.out.printf("%8d %9.0f ms %9.0f ms %10d %9.1f%% %12d%n", n, (t1 - t0) / 1e6, (t2 - t1) / 1e6,
+                    clusters.size(), copies == 0 ? 100.0 : 100.0 * found / copies, falseMerges);
+            if (size == maxFiles) break;
+        }
+    }
+}
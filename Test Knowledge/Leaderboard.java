@@ -0,0 +1,426 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Leaderboard of quiz results: every finished attempt is recorded, and users are ranked by their best score.
+// Scores are normalized to points 0..10000 (hundredths of a percent), so quizzes of different lengths compare.
+//
+// Rank, top-k and percentile queries cost O(log B) with B = 10001 score buckets, whatever the number of users:
+// a Fenwick (binary indexed) tree holds how many users have their best score in each bucket, so "how many users
+// score below p" is a prefix sum, and "which bucket holds the k-th best user" is a descent through the tree.
+// Each bucket also keeps its users in a sorted set, so top-k only visits the buckets it returns users from.
+//
+// Inserts are safe from many threads: a user's entry is updated under its own lock, and the tree counters are
+// atomic. Queries do not lock, so while writers are active a count can be off by the updates still in flight.
+//
+//   java -cp "Test Knowledge" Leaderboard [file] [k]              print the top k (default: quiz-leaderboard.dat, 10)
+//   java -Xmx5g -cp "Test Knowledge" Leaderboard --bench [users] [threads]   (10M users by default)
+public class Leaderboard {
+    static final int MAX_POINTS = 10_000;
+    static final String DEFAULT_FILE = "quiz-leaderboard.dat";
+    private static final int MAGIC = 0x514C4244; // "QLBD"
+    private static final int VERSION = 1;
+
+    static final class UserStats {
+        int best = -1;      // -1 until the first attempt is recorded
+        int attempts;
+        long totalPoints;
+    }
+
+    static final class Standing {
+        final String user;
+        final int points;
+        final long rank;
+        Standing(String user, int points, long rank) { this.user = user; this.points = points; this.rank = rank; }
+        @Override public String toString() { return "#" + rank + " " + user + " " + percent(points); }
+    }
+
+    // Counts per score bucket; index 0 of the tree is unused, bucket b lives at tree index b + 1
+    static final class FenwickCounter {
+        private final AtomicLongArray tree;
+        private final int size;
+        private final int topBit;
+
+        FenwickCounter(int buckets) {
+            size = buckets;
+            tree = new AtomicLongArray(buckets + 1);
+            topBit = Integer.highestOneBit(buckets);
+        }
+
+        void add(int bucket, long delta) {
+            for (int i = bucket + 1; i <= size; i += i & -i) tree.getAndAdd(i, delta);
+        }
+
+        // Number of users in buckets 0..bucket (0 for bucket < 0)
+        long prefix(int bucket) {
+            long sum = 0;
+            for (int i = Math.min(bucket, size - 1) + 1; i > 0; i -= i & -i) sum += tree.get(i);
+            return sum;
+        }
+
+        // Smallest bucket whose prefix count reaches k (k >= 1); size if fewer than k users are counted
+        int bucketOfKth(long k) {
+            int pos = 0;
+            for (int step = topBit; step > 0; step >>= 1) {
+                int next = pos + step;
+                if (next <= size && tree.get(next) < k) {
+                    pos = next;
+                    k -= tree.get(next);
+                }
+            }
+            return pos;
+        }
+
+        // Linear-time build from per-bucket counts; only for a counter nobody else can see yet
+        void build(long[] counts) {
+            for (int b = 0; b < counts.length; b++) tree.set(b + 1, counts[b]);
+            for (int i = 1; i <= size; i++) {
+                int parent = i + (i & -i);
+                if (parent <= size) tree.set(parent, tree.get(parent) + tree.get(i));
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, UserStats> users = new ConcurrentHashMap<>();
+    private final FenwickCounter counts = new FenwickCounter(MAX_POINTS + 1);
+    private final ConcurrentSkipListSet<String>[] buckets;
+    private final AtomicInteger rankedUsers = new AtomicInteger();
+    private final LongAdder attempts = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Leaderboard() {
+        buckets = new ConcurrentSkipListSet[MAX_POINTS + 1];
+        for (int b = 0; b <= MAX_POINTS; b++) buckets[b] = new ConcurrentSkipListSet<>();
+    }
+
+    // "7/10" -> 7000 points
+    static int points(int score, int outOf) {
+        if (outOf <= 0) return 0;
+        return (int) ((long) Math.max(0, Math.min(score, outOf)) * MAX_POINTS / outOf);
+    }
+
+    static String percent(int points) {
+        return points / 100 + "." + (points % 100 < 10 ? "0" : "") + points % 100 + "%";
+    }
+
+    // Records one finished attempt; returns the user's best points after it
+    int record(String user, int points) {
+        if (user == null || user.isEmpty()) throw new IllegalArgumentException("user name required");
+        if (points < 0 || points > MAX_POINTS) throw new IllegalArgumentException("points out of range: " + points);
+        UserStats e = users.get(user);
+        if (e == null) {
+            UserStats created = new UserStats();
+            e = users.putIfAbsent(user, created);
+            if (e == null) e = created;
+        }
+        synchronized (e) {
+            if (e.best < 0) {
+                counts.add(points, 1);
+                buckets[points].add(user);
+                rankedUsers.incrementAndGet();
+                e.best = points;
+            } else if (points > e.best) {
+                // add to the new bucket before leaving the old one, so the user is never missing from top-k
+                buckets[points].add(user);
+                counts.add(points, 1);
+                counts.add(e.best, -1);
+                buckets[e.best].remove(user);
+                e.best = points;
+            }
+            e.attempts++;
+            e.totalPoints += points;
+            attempts.increment();
+            return e.best;
+        }
+    }
+
+    int size() { return rankedUsers.get(); }
+
+    long totalAttempts() { return attempts.sum(); }
+
+    int bestPoints(String user) {
+        UserStats e = users.get(user);
+        if (e == null) return -1;
+        synchronized (e) { return e.best; }
+    }
+
+    // 1 + number of users with a strictly better best score (ties share a rank); -1 for an unknown user
+    long rank(String user) {
+        int best = bestPoints(user);
+        if (best < 0) return -1;
+        return 1 + counts.prefix(MAX_POINTS) - counts.prefix(best);
+    }
+
+    // Share of ranked users whose best score is strictly below this user's, 0..100; -1 for an unknown user
+    double percentile(String user) {
+        int best = bestPoints(user);
+        long total = counts.prefix(MAX_POINTS);
+        if (best < 0 || total == 0) return -1;
+        return 100.0 * counts.prefix(best - 1) / total;
+    }
+
+    // Lowest score that at least q percent of users reach or stay below (q = 50 -> median); -1 when empty
+    int pointsAtPercentile(double q) {
+        long total = counts.prefix(MAX_POINTS);
+        if (total == 0) return -1;
+        long k = Math.max(1, (long) Math.ceil(q / 100.0 * total));
+        return Math.min(MAX_POINTS, counts.bucketOfKth(Math.min(k, total)));
+    }
+
+    // Best k users, highest score first; users with equal scores are listed by name
+    List<Standing> top(int k) {
+        List<Standing> result = new ArrayList<>(Math.min(k, 1024));
+        long total = counts.prefix(MAX_POINTS);
+        int ceiling = MAX_POINTS;
+        while (result.size() < k && ceiling >= 0) {
+            long below = counts.prefix(ceiling);
+            if (below == 0) break;
+            int bucket = Math.min(ceiling, counts.bucketOfKth(below)); // highest non-empty bucket <= ceiling
+            long better = total - below; // users above this bucket
+            for (String user : buckets[bucket]) {
+                if (result.size() == k) break;
+                result.add(new Standing(user, bucket, better + 1));
+            }
+            ceiling = bucket - 1;
+        }
+        return result;
+    }
+
+    // ---- snapshots ----
+
+    // Writes to a temporary file and renames it over the target, so a crash never leaves a torn snapshot.
+    // Concurrent writers may keep recording; each user's entry is copied under its lock.
+    void save(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(MAX_POINTS);
+            for (Map.Entry<String, UserStats> me : users.entrySet()) {
+                UserStats e = me.getValue();
+                int best, count;
+                long total;
+                synchronized (e) {
+                    best = e.best; count = e.attempts; total = e.totalPoints;
+                }
+                if (best < 0) continue;
+                out.writeBoolean(true);
+                out.writeUTF(me.getKey());
+                out.writeShort(best);
+                out.writeInt(count);
+                out.writeLong(total);
+            }
+            out.writeBoolean(false);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    // Empty leaderboard when the file does not exist yet
+    static Leaderboard load(Path file) throws IOException {
+        Leaderboard board = new Leaderboard();
+        if (!Files.exists(file)) return board;
+        long[] perBucket = new long[MAX_POINTS + 1];
+        long attemptCount = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a leaderboard snapshot: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported snapshot version " + version + ": " + file);
+            if (in.readInt() != MAX_POINTS) throw new IOException("snapshot uses a different point scale: " + file);
+            while (in.readBoolean()) {
+                String user = in.readUTF();
+                UserStats e = new UserStats();
+                e.best = in.readShort();
+                e.attempts = in.readInt();
+                e.totalPoints = in.readLong();
+                if (e.best < 0 || e.best > MAX_POINTS) throw new IOException("corrupt entry for " + user + ": " + file);
+                board.users.put(user, e);
+                board.buckets[e.best].add(user);
+                perBucket[e.best]++;
+                attemptCount += e.attempts;
+            }
+        }
+        board.counts.build(perBucket);
+        board.rankedUsers.set(board.users.size());
+        board.attempts.add(attemptCount);
+        return board;
+    }
+
+    // Called by QuizApp when -Dquiz.user is set: record the attempt and show where it places the user.
+    // Quiz processes that finish together each hold <file>.lock across load, record and save, so none of them
+    // overwrites another's result. The lock is on a side file because save() renames a new snapshot over the old.
+    static void recordQuizResult(String user, int score, int outOf) {
+        Path file = Paths.get(System.getProperty("quiz.leaderboard", DEFAULT_FILE));
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        try (FileChannel lock = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            lock.lock();   // released when the channel closes
+            Leaderboard board = load(file);
+            int best = board.record(user, points(score, outOf));
+            board.save(file);
+            System.out.println("Leaderboard: " + user + " best " + percent(best) + ", rank " + board.rank(user)
+                    + " of " + board.size() + " (better than " + Math.round(board.percentile(user)) + "% of players)");
+        } catch (IOException e) {
+            System.err.println("Leaderboard not updated: " + e.getMessage());
+        }
+    }
+
+    // ---- CLI and benchmark ----
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--bench")) {
+            int users = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+            bench(users, threads);
+            return;
+        }
+        Path file = Paths.get(args.length > 0 ? args[0] : DEFAULT_FILE);
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Leaderboard board = load(file);
+        System.out.println(board.size() + " players, " + board.totalAttempts() + " attempts"
+                + (board.size() > 0 ? ", median best " + percent(board.pointsAtPercentile(50)) : ""));
+        for (Standing s : board.top(k)) System.out.println(s);
+    }
+
+    interface Worker { void run(int thread) throws Exception; }
+
+    // Runs one worker per thread and returns the wall time in ms
+    static double runThreads(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] ts = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            ts[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(id);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            ts[t].start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread t : ts) t.join();
+        return (System.nanoTime() - t0) / 1e6;
+    }
+
+    static volatile long sink;
+
+    static String userName(int i) { return "u" + Integer.toString(i, 36); }
+
+    static void bench(int userCount, int threads) throws Exception {
+        System.out.println("Leaderboard benchmark: " + userCount + " users, " + threads + " writer threads, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        Leaderboard board = new Leaderboard();
+
+        double insertMs = runThreads(threads, t -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = t; i < userCount; i += threads) board.record(userName(i), rnd.nextInt(MAX_POINTS + 1));
+        });
+        System.out.printf("insert new users:          %8.0f ms  (%.2f M inserts/s)%n", insertMs, userCount / insertMs / 1000);
+
+        int updates = Math.max(1, userCount / 10);
+        double updateMs = runThreads(threads, t -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = t; i < updates; i += threads) board.record(userName(rnd.nextInt(userCount)), rnd.nextInt(MAX_POINTS + 1));
+        });
+        System.out.printf("repeat attempts:           %8.0f ms  (%.2f M attempts/s)%n", updateMs, updates / updateMs / 1000);
+
+        // Queries while writers keep recording
+        int queries = 1_000_000;
+        long[] queryNanos = new long[1];
+        double mixedMs = runThreads(threads + 1, t -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            if (t == threads) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < queries; i++) sink += board.rank(userName(rnd.nextInt(userCount)));
+                queryNanos[0] = System.nanoTime() - t0;
+            } else {
+                for (int i = t; i < updates; i += threads) board.record(userName(rnd.nextInt(userCount)), rnd.nextInt(MAX_POINTS + 1));
+            }
+        });
+        System.out.printf("rank() during writes:      %8.0f ns/query  (%d queries, %.0f ms wall)%n",
+                (double) queryNanos[0] / queries, queries, mixedMs);
+
+        if (board.size() != userCount || board.counts.prefix(MAX_POINTS) != userCount) {
+            throw new AssertionError("lost users: " + board.size() + " / " + board.counts.prefix(MAX_POINTS));
+        }
+        checkAgainstScan(board, new Random(3), userCount);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < queries; i++) sink += board.rank(userName(i % userCount));
+        System.out.printf("rank(user):                %8.0f ns/query%n", (System.nanoTime() - t0) / (double) queries);
+        t0 = System.nanoTime();
+        for (int i = 0; i < queries; i++) sink += (long) board.percentile(userName(i % userCount));
+        System.out.printf("percentile(user):          %8.0f ns/query%n", (System.nanoTime() - t0) / (double) queries);
+        t0 = System.nanoTime();
+        for (int i = 0; i < queries; i++) sink += board.pointsAtPercentile(i % 100);
+        System.out.printf("pointsAtPercentile(q):     %8.0f ns/query%n", (System.nanoTime() - t0) / (double) queries);
+        t0 = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) sink += board.top(100).size();
+        System.out.printf("top(100):                  %8.1f us/query%n", (System.nanoTime() - t0) / 10_000 / 1e3);
+
+        Path file = Files.createTempFile("leaderboard", ".dat");
+        try {
+            t0 = System.nanoTime();
+            board.save(file);
+            double saveMs = (System.nanoTime() - t0) / 1e6;
+            t0 = System.nanoTime();
+            Leaderboard loaded = load(file);
+            double loadMs = (System.nanoTime() - t0) / 1e6;
+            System.out.printf("snapshot save / load:      %8.0f ms / %.0f ms  (%.1f MB)%n", saveMs, loadMs, Files.size(file) / 1e6);
+            if (loaded.size() != board.size() || loaded.totalAttempts() != board.totalAttempts()
+                    || !loaded.top(50).toString().equals(board.top(50).toString())) {
+                throw new AssertionError("snapshot round trip differs");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("top 3: " + board.top(3) + ", median best " + percent(board.pointsAtPercentile(50)));
+    }
+
+    // Recomputes a few answers the slow way (a scan over every user) and compares
+    static void checkAgainstScan(Leaderboard board, Random rnd, int userCount) {
+        int[] bestByUser = new int[userCount];
+        long[] perBucket = new long[MAX_POINTS + 1];
+        for (int i = 0; i < userCount; i++) {
+            bestByUser[i] = board.bestPoints(userName(i));
+            perBucket[bestByUser[i]]++;
+        }
+        for (int n = 0; n < 1000; n++) {
+            int i = rnd.nextInt(userCount);
+            long better = 0;
+            for (int b = bestByUser[i] + 1; b <= MAX_POINTS; b++) better += perBucket[b];
+            if (board.rank(userName(i)) != better + 1) throw new AssertionError("rank mismatch for " + userName(i));
+        }
+        List<Standing> top = board.top(1000);
+        for (int j = 1; j < top.size(); j++) {
+            if (top.get(j).points > top.get(j - 1).points) throw new AssertionError("top-k out of order at " + j);
+        }
+    }
+}
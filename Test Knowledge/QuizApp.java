@@ -1,38 +1,88 @@
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class QuizApp {
 
     static class Example {
         final String chapter;
         final String fileName;
-        Example(String chapter, String fileName) { this.chapter = chapter; this.fileName = fileName; }
+        final Path path;
+        Example(String chapter, String fileName, Path path) { this.chapter = chapter; this.fileName = fileName; this.path = path; }
     }
 
     static class Question {
+        final String key; // stable across runs, e.g. "example:Class Design/Primate.java"; used by AnswerStats
         final String prompt;
         final List<String> options;
         final int correctIndex;
-        Question(String prompt, List<String> options, int correctIndex) {
-            this.prompt = prompt; this.options = options; this.correctIndex = correctIndex;
+        Question(String key, String prompt, List<String> options, int correctIndex) {
+            this.key = key; this.prompt = prompt; this.options = options; this.correctIndex = correctIndex;
         }
     }
 
+    // Lazy holder: the stdin reader is only built on the first readChoice, after Q1 is already on screen.
+    // The JVM initializes a nested class on first use, so this needs no locking or null checks.
+    static class Stdin {
+        static final BufferedReader IN = new BufferedReader(new InputStreamReader(System.in));
+    }
+
+    // Same idiom for the answer statistics file: only opened once an answer is recorded with -Dquiz.stats set
+    static class Stats {
+        static final AnswerStats STORE = AnswerStats.openIfEnabled();
+    }
+
+    // And for the name pool: every scan (QuizServer, ExampleDedup, each quiz) shares one copy of each chapter and
+    // file name, see StringPool
+    static class Names {
+        static final StringPool POOL = new StringPool(1 << 16);
+    }
+
+    // And for the attempt log: rows for this run are kept in memory and appended when the quiz ends
+    static class Attempts {
+        static final AttemptLog LOG = new AttemptLog();
+        static final long SESSION = System.currentTimeMillis();
+    }
+
+    // Usage: QuizApp [--practice] [--dedup] [--generate N] [root]
+    //   --practice    endless questions until "quit" or end of input
+    //   --dedup       ask about only one example of each near-duplicate cluster (see ExampleDedup)
+    //   --generate N  build N questions in parallel without asking them, and report throughput and heap use
     public static void main(String[] args) throws IOException {
-        Path root = args.length > 0 ? Paths.get(args[0]) : Paths.get("").toAbsolutePath();
+        boolean practice = false;
+        boolean dedup = false;
+        long generate = -1;
+        String rootArg = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--practice")) practice = true;
+            else if (args[i].equals("--dedup")) dedup = true;
+            else if (args[i].equals("--generate") && i + 1 < args.length) generate = Long.parseLong(args[++i]);
+            else rootArg = args[i];
+        }
+        Path root = rootArg != null ? Paths.get(rootArg) : Paths.get("").toAbsolutePath();
         List<Example> examples = scanExamples(root);
+        if (dedup) examples = ExampleDedup.collapse(examples, ExampleDedup.DEFAULT_THRESHOLD);
 
+        if (generate >= 0) {
+            generateInParallel(examples, generate);
+            return;
+        }
         if (examples.isEmpty()) {
             System.out.println("No code examples found under: " + root);
             System.out.println("Falling back to chapter-name quiz.");
             List<String> chapters = scanChapters(root);
-            runChapterNameQuiz(chapters);
+            runChapterNameQuiz(chapters, practice);
             return;
         }
 
-        runExampleToChapterQuiz(examples);
+        runExampleToChapterQuiz(examples, practice);
     }
 
     static List<Example> scanExamples(Path root) throws IOException {
@@ -45,7 +95,7 @@ public class QuizApp {
                 String chapterName = friendlyChapterName(chapterDir.getFileName().toString());
                 try (DirectoryStream<Path> files = Files.newDirectoryStream(codeDir, "*.java")) {
                     for (Path f : files) {
-                        list.add(new Example(chapterName, f.getFileName().toString()));
+                        list.add(new Example(chapterName, Names.POOL.intern(f.getFileName().toString()), f));
                     }
                 } catch (IOException ignored) {
                 }
@@ -54,9 +104,34 @@ public class QuizApp {
         return list;
     }
 
+    // Batch consumer of the lazy source: the stream splits the index range across the common pool, and each
+    // question is tallied and dropped, so heap use does not grow with N
+    static void generateInParallel(List<Example> examples, long count) {
+        List<String> chapters = distinctChapters(examples);
+        if (chapters.size() < 2) {
+            System.out.println("Not enough distinct chapters to create multiple-choice questions.");
+            return;
+        }
+        Runtime rt = Runtime.getRuntime();
+        long t0 = System.nanoTime();
+        Map<String, Long> byAnswer = exampleQuestionStream(examples, chapters, 42, count).parallel()
+                .collect(Collectors.groupingByConcurrent(q -> q.options.get(q.correctIndex), Collectors.counting()));
+        double ms = (System.nanoTime() - t0) / 1e6;
+        System.out.printf("%d questions in %.0f ms (%.0f/s) on %d threads, heap in use afterwards %d MB%n",
+                count, ms, count / ms * 1000, ForkJoinPool.getCommonPoolParallelism() + 1,
+                (rt.totalMemory() - rt.freeMemory()) >> 20);
+        for (Map.Entry<String, Long> e : new TreeMap<>(byAnswer).entrySet()) {
+            System.out.printf("  %-28s %d%n", e.getKey(), e.getValue());
+        }
+    }
+
     static String friendlyChapterName(String folder) {
-        // "1-Building Blocks" -> "Building Blocks"
-        return folder.replaceFirst("^[0-9]+[- ]*", "");
+        // "1-Building Blocks" -> "Building Blocks": skip leading digits, then any '-' or ' ' after them. Scanning
+        // instead of replaceFirst("^[0-9]+[- ]*", ""): no regex, and the pool is asked about the range directly
+        int start = 0, n = folder.length();
+        while (start < n && folder.charAt(start) >= '0' && folder.charAt(start) <= '9') start++;
+        if (start > 0) while (start < n && (folder.charAt(start) == '-' || folder.charAt(start) == ' ')) start++;
+        return Names.POOL.intern(folder, start, n);
     }
 
     static List<String> scanChapters(Path root) throws IOException {
@@ -68,121 +143,297 @@ public class QuizApp {
                 chapters.add(friendlyChapterName(name));
             }
         }
-        return chapters.stream().distinct().sorted().collect(Collectors.toList());
+        // TreeSet instead of stream().distinct().sorted(): keeps the stream/Collectors classes off the startup path
+        return new ArrayList<>(new TreeSet<>(chapters));
     }
 
-    static void runExampleToChapterQuiz(List<Example> examples) {
-        List<String> chapters = examples.stream().map(e -> e.chapter).distinct().sorted().collect(Collectors.toList());
+    static void runExampleToChapterQuiz(List<Example> examples, boolean practice) {
+        List<String> chapters = distinctChapters(examples);
         if (chapters.size() < 2) {
             System.out.println("Not enough distinct chapters to create multiple-choice questions.");
             return;
         }
+        long count = practice ? ENDLESS : Math.min(10, examples.size());
+        runQuiz(exampleQuestions(examples, chapters, new Random().nextLong(), count));
+    }
 
-        Collections.shuffle(examples, new Random());
-        int total = Math.min(10, examples.size());
-        List<Question> questions = new ArrayList<>();
-        Random rnd = new Random();
-
-        for (int i = 0; i < total; i++) {
-            Example ex = examples.get(i);
-            List<String> options = new ArrayList<>();
-            options.add(ex.chapter);
+    static List<String> distinctChapters(List<Example> examples) {
+        Set<String> chapterSet = new TreeSet<>();
+        for (Example e : examples) chapterSet.add(e.chapter);
+        return new ArrayList<>(chapterSet);
+    }
 
-            List<String> distractors = new ArrayList<>(chapters);
-            distractors.remove(ex.chapter);
-            Collections.shuffle(distractors, rnd);
-            int needed = Math.min(3, distractors.size());
-            options.addAll(distractors.subList(0, needed));
+    // chapters must hold at least 2 names
+    static Question exampleQuestion(Example ex, List<String> chapters, Random rnd) {
+        List<String> options = new ArrayList<>();
+        options.add(ex.chapter);
 
-            while (options.size() < 4 && options.size() < chapters.size()) {
-                String pick = chapters.get(rnd.nextInt(chapters.size()));
-                if (!options.contains(pick)) options.add(pick);
-            }
+        List<String> distractors = new ArrayList<>(chapters);
+        distractors.remove(ex.chapter);
+        Collections.shuffle(distractors, rnd);
+        int needed = Math.min(3, distractors.size());
+        options.addAll(distractors.subList(0, needed));
 
-            Collections.shuffle(options, rnd);
-            int correctIndex = options.indexOf(ex.chapter);
-            String prompt = String.format("Which chapter does the example '%s' belong to?", ex.fileName);
-            questions.add(new Question(prompt, options, correctIndex));
+        while (options.size() < 4 && options.size() < chapters.size()) {
+            String pick = chapters.get(rnd.nextInt(chapters.size()));
+            if (!options.contains(pick)) options.add(pick);
         }
 
-        runQuiz(questions);
+        Collections.shuffle(options, rnd);
+        int correctIndex = options.indexOf(ex.chapter);
+        String prompt = "Which chapter does the example '" + ex.fileName + "' belong to?";
+        return new Question("example:" + ex.chapter + "/" + ex.fileName, prompt, options, correctIndex);
     }
 
-    static void runChapterNameQuiz(List<String> chapters) {
+    static void runChapterNameQuiz(List<String> chapters, boolean practice) {
         if (chapters.size() < 2) {
             System.out.println("Not enough chapters to build a quiz.");
             return;
         }
-        Collections.shuffle(chapters, new Random());
-        int total = Math.min(10, chapters.size());
-        List<Question> questions = new ArrayList<>();
-        Random rnd = new Random();
-
-        for (int i = 0; i < total; i++) {
-            String answer = chapters.get(i);
-            List<String> options = new ArrayList<>();
-            options.add(answer);
-
-            List<String> distractors = new ArrayList<>(chapters);
-            Collections.shuffle(distractors, rnd);
-            for (String d : distractors) {
-                if (!d.equals(answer)) options.add(d);
-                if (options.size() == 4) break;
-            }
+        long count = practice ? ENDLESS : Math.min(10, chapters.size());
+        runQuiz(chapterQuestions(chapters, new Random().nextLong(), count));
+    }
 
-            Collections.shuffle(options, rnd);
-            int correctIndex = options.indexOf(answer);
-            String prompt = "Select the valid chapter name:";
-            questions.add(new Question(prompt, options, correctIndex));
+    // needs at least 2 chapters
+    static Question chapterQuestion(String answer, List<String> chapters, Random rnd) {
+        List<String> options = new ArrayList<>();
+        options.add(answer);
+
+        List<String> distractors = new ArrayList<>(chapters);
+        Collections.shuffle(distractors, rnd);
+        for (String d : distractors) {
+            if (!d.equals(answer)) options.add(d);
+            if (options.size() == 4) break;
         }
 
-        runQuiz(questions);
+        Collections.shuffle(options, rnd);
+        int correctIndex = options.indexOf(answer);
+        String prompt = "Select the valid chapter name:";
+        return new Question("chapter:" + answer, prompt, options, correctIndex);
     }
 
-    static void runQuiz(List<Question> questions) {
-        Scanner sc = new Scanner(System.in);
-        System.out.println("Java SE 8 Study Guide Quiz");
-        System.out.println("--------------------------");
-        int score = 0;
-        int qnum = 1;
+    // ---- lazy question sources ----
 
-        for (Question q : questions) {
-            System.out.println();
-            System.out.println("Q" + qnum + ". " + q.prompt);
-            for (int i = 0; i < q.options.size(); i++) {
-                System.out.printf("  %c) %s%n", (char)('A' + i), q.options.get(i));
-            }
-            int choice = readChoice(sc, q.options.size());
-            if (choice == q.correctIndex) {
-                System.out.println("\u2713 Correct");
-                score++;
-            } else {
-                System.out.println("\u2717 Incorrect");
-                System.out.println("   Answer: " + q.options.get(q.correctIndex));
+    static final long ENDLESS = Long.MAX_VALUE;
+
+    // Builds the question for one item (an example or chapter) with the given randomness
+    interface QuestionMaker {
+        Question make(int item, Random rnd);
+    }
+
+    // Produces question number i on demand from (seed, i) alone: no question list is built and nothing is kept,
+    // so memory stays constant however many questions are consumed, and any index range can be split off and
+    // generated on another thread. Item order is a seeded permutation per round of `items` questions, so every
+    // item is asked once before any repeats; the endless practice mode just starts a new round with a new order.
+    static final class QuestionSpliterator implements Spliterator<Question> {
+        private final QuestionMaker maker;
+        private final int items;
+        private final long seed;
+        private long index;
+        private final long fence;
+
+        QuestionSpliterator(QuestionMaker maker, int items, long seed, long origin, long fence) {
+            this.maker = maker; this.items = items; this.seed = seed; this.index = origin; this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Question> action) {
+            if (index >= fence) return false;
+            action.accept(question(index++));
+            return true;
+        }
+
+        Question question(long i) {
+            long round = i / items;
+            int item = permute((int) (i % items), items, seed + round * 0x9E3779B97F4A7C15L);
+            return maker.make(item, new Random(mix(seed ^ mix(i))));
+        }
+
+        @Override
+        public Spliterator<Question> trySplit() {
+            long mid = index + (fence - index) / 2;
+            if (mid <= index) return null;
+            QuestionSpliterator prefix = new QuestionSpliterator(maker, items, seed, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() { return fence - index; }
+
+        @Override
+        public int characteristics() {
+            int c = ORDERED | IMMUTABLE | NONNULL;
+            return fence == ENDLESS ? c : c | SIZED | SUBSIZED;
+        }
+    }
+
+    // count = ENDLESS for practice mode; the lists are only read, never shuffled
+    static Spliterator<Question> exampleQuestions(List<Example> examples, List<String> chapters, long seed, long count) {
+        return new QuestionSpliterator((item, rnd) -> exampleQuestion(examples.get(item), chapters, rnd),
+                examples.size(), seed, 0, count);
+    }
+
+    static Spliterator<Question> chapterQuestions(List<String> chapters, long seed, long count) {
+        return new QuestionSpliterator((item, rnd) -> chapterQuestion(chapters.get(item), chapters, rnd),
+                chapters.size(), seed, 0, count);
+    }
+
+    static Stream<Question> exampleQuestionStream(List<Example> examples, List<String> chapters, long seed, long count) {
+        return StreamSupport.stream(exampleQuestions(examples, chapters, seed, count), false);
+    }
+
+    // Bijection on [0, n): a 4-round Feistel network over the smallest even bit width that covers n,
+    // re-applied ("cycle walking") until the value lands below n
+    static int permute(int i, int n, long key) {
+        int halfBits = Math.max(1, (33 - Integer.numberOfLeadingZeros(n - 1)) / 2);
+        int mask = (1 << halfBits) - 1;
+        int x = i;
+        do {
+            int left = x >>> halfBits, right = x & mask;
+            for (int r = 0; r < 4; r++) {
+                int f = (int) mix(key + r + ((long) right << 8)) & mask;
+                int t = right;
+                right = left ^ f;
+                left = t;
             }
-            qnum++;
+            x = left << halfBits | right;
+        } while (x >= n);
+        return x;
+    }
+
+    // SplitMix64 finalizer: spreads nearby seeds and indexes over all 64 bits
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Asks questions until the source runs out or the user quits (typing "quit", or end of input)
+    static void runQuiz(Spliterator<Question> questions) {
+        System.out.print(HEADER);
+        int score = 0;
+        int asked = 0;
+        // Spliterators.iterator rather than forEachRemaining: no lambda to bootstrap before the first question
+        Iterator<Question> it = Spliterators.iterator(questions);
+
+        while (it.hasNext()) {
+            Question q = it.next();
+            System.out.print(questionText(asked + 1, q));
+            if (asked == 0) reportTimeToFirstQuestion();
+            long shownAt = System.nanoTime();
+            int choice = readChoice(q.options.size());
+            if (choice == QUIT) break;
+            asked++;
+            recordAnswer(q, choice);
+            recordAttempt(q, choice, (System.nanoTime() - shownAt) / 1_000_000);
+            if (choice == q.correctIndex) score++;
+            System.out.print(feedbackText(q, choice));
         }
 
         System.out.println();
-        System.out.printf("Score: %d/%d%n", score, questions.size());
+        System.out.printf("Score: %d/%d%n", score, asked);
+
+        // Opt-in, so scripted runs (e.g. QuizLauncher's training run) never touch the leaderboard file
+        String user = System.getProperty("quiz.user");
+        if (user != null && !user.isEmpty() && asked > 0) Leaderboard.recordQuizResult(user, score, asked);
+        if (asked > 0) saveAttempts();
     }
 
-    static int readChoice(Scanner sc, int optionCount) {
-        while (true) {
-            System.out.print("Your choice (A-" + (char)('A' + optionCount - 1) + " or 1-" + optionCount + "): ");
-            String line = sc.nextLine().trim();
-            if (line.isEmpty()) continue;
+    // Lifetime per-question/per-option counts, see AnswerStats; a no-op unless -Dquiz.stats=<file> is given
+    static void recordAnswer(Question q, int choice) {
+        if (System.getProperty("quiz.stats") == null || Stats.STORE == null) return;
+        Stats.STORE.record(q.key, q.options, q.correctIndex, choice);
+    }
 
-            char ch = Character.toUpperCase(line.charAt(0));
-            int idx = ch - 'A';
-            if (idx >= 0 && idx < optionCount) return idx;
+    // One row per answer (time, chapter, file, option picked, response time) for offline analysis, see AttemptLog;
+    // a no-op unless -Dquiz.attempts=<file> is given
+    static void recordAttempt(Question q, int choice, long responseMillis) {
+        if (System.getProperty("quiz.attempts") == null) return;
+        Attempts.LOG.appendAttempt(System.currentTimeMillis(), Attempts.SESSION, q.key, q.options.get(choice),
+                choice == q.correctIndex, (int) Math.min(responseMillis, Integer.MAX_VALUE));
+    }
 
+    static void saveAttempts() {
+        String file = System.getProperty("quiz.attempts");
+        if (file == null) return;
+        try {
+            Attempts.LOG.appendTo(Paths.get(file));
+        } catch (IOException e) {
+            System.err.println("Could not save attempts to " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Set by QuizLauncher to the wall-clock time just before it spawned this JVM
+    static void reportTimeToFirstQuestion() {
+        String launchedAt = System.getProperty("quiz.launchedAt");
+        if (launchedAt == null) return;
+        long millis = System.currentTimeMillis() - Long.parseLong(launchedAt);
+        System.err.println("[startup] time-to-first-question: " + millis + " ms");
+    }
+
+    // Text helpers shared by the console quiz and QuizServer, so both show the same flow
+    static final String HEADER = "Java SE 8 Study Guide Quiz\n--------------------------\n";
+
+    static String questionText(int qnum, Question q) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('\n').append('Q').append(qnum).append(". ").append(q.prompt).append('\n');
+        for (int i = 0; i < q.options.size(); i++) {
+            sb.append("  ").append((char)('A' + i)).append(") ").append(q.options.get(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    static String feedbackText(Question q, int choice) {
+        if (choice == q.correctIndex) return "\u2713 Correct\n";
+        return "\u2717 Incorrect\n   Answer: " + q.options.get(q.correctIndex) + "\n";
+    }
+
+    static String choicePrompt(int optionCount) {
+        return "Your choice (A-" + (char)('A' + optionCount - 1) + " or 1-" + optionCount + "): ";
+    }
+
+    static String invalidChoiceText(int optionCount) {
+        return "Please enter a letter A-" + (char)('A' + optionCount - 1) + " or a number 1-" + optionCount + ".\n";
+    }
+
+    // A-D (any case) or 1-4; returns -1 for blank or invalid input
+    static int parseChoice(String line, int optionCount) {
+        line = line.trim();
+        if (line.isEmpty()) return -1;
+
+        char ch = Character.toUpperCase(line.charAt(0));
+        int idx = ch - 'A';
+        if (idx >= 0 && idx < optionCount) return idx;
+
+        try {
+            int num = Integer.parseInt(line);
+            if (num >= 1 && num <= optionCount) return num - 1;
+        } catch (NumberFormatException ignored) {}
+        return -1;
+    }
+
+    static final int QUIT = -2;
+
+    static boolean isQuit(String line) {
+        return line.trim().equalsIgnoreCase("quit");
+    }
+
+    static int readChoice(int optionCount) {
+        while (true) {
+            System.out.print(choicePrompt(optionCount));
+            String line;
             try {
-                int num = Integer.parseInt(line);
-                if (num >= 1 && num <= optionCount) return num - 1;
-            } catch (NumberFormatException ignored) {}
+                line = Stdin.IN.readLine();
+            } catch (IOException e) {
+                line = null;
+            }
+            if (line == null || isQuit(line)) return QUIT; // end of input ends the quiz like "quit"
+            if (line.trim().isEmpty()) continue;
 
-            System.out.println("Please enter a letter A-" + (char)('A' + optionCount - 1) + " or a number 1-" + optionCount + ".");
+            int choice = parseChoice(line, optionCount);
+            if (choice >= 0) return choice;
+            System.out.print(invalidChoiceText(optionCount));
         }
     }
 }
@@ -0,0 +1,156 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+// Starts QuizApp in a fresh JVM that maps an application class-data-sharing (AppCDS) archive,
+// so the classes QuizApp needs are loaded pre-parsed instead of being read from the class path.
+// The first run (or --rebuild) does a short scripted training run to produce the archive.
+// CDS only accepts JAR files on the class path, so the QuizApp classes are packed into QuizApp.jar first.
+//
+// Usage: java -cp "Test Knowledge" QuizLauncher [--no-cds] [--rebuild] [root]
+public class QuizLauncher {
+    static final String ARCHIVE_NAME = "QuizApp.jsa";
+    static final String CLASS_LIST_NAME = "QuizApp.classlist";
+    static final String JAR_NAME = "QuizApp.jar";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean useCds = true;
+        boolean rebuild = false;
+        List<String> quizArgs = new ArrayList<>();
+        for (String a : args) {
+            if (a.equals("--no-cds")) useCds = false;
+            else if (a.equals("--rebuild")) rebuild = true;
+            else quizArgs.add(a);
+        }
+
+        File classDir = new File(System.getProperty("java.class.path").split(File.pathSeparator)[0]).getAbsoluteFile();
+        String classPath = classDir.getPath();
+        File archive = new File(classDir, ARCHIVE_NAME);
+        int feature = javaFeatureVersion();
+
+        List<String> jvmFlags = new ArrayList<>();
+        if (useCds && feature < 10) {
+            System.err.println("[startup] AppCDS needs JDK 10+ (running on " + feature + "); starting without an archive.");
+            useCds = false;
+        }
+        if (useCds) {
+            File[] classes = packedClasses(classDir);
+            long newestClass = 0;
+            for (File f : classes) newestClass = Math.max(newestClass, f.lastModified());
+            File jar = new File(classDir, JAR_NAME);
+            classPath = jar.getPath();
+            // Any packed class recompiled since the last build (not just QuizApp.class) makes the jar and archive stale
+            if (rebuild || !archive.isFile() || !jar.isFile()
+                    || jar.lastModified() < newestClass || archive.lastModified() < newestClass) {
+                packJar(classes, jar);
+                long t0 = System.currentTimeMillis();
+                createArchive(feature, classPath, classDir, archive, quizArgs);
+                System.err.println("[startup] built " + archive.getName() + " in " + (System.currentTimeMillis() - t0) + " ms");
+            }
+            jvmFlags.add("-XX:SharedArchiveFile=" + archive.getPath());
+            jvmFlags.add("-Xshare:auto"); // fall back silently if the archive does not match this JVM
+        }
+        // A short-lived CLI never reaches C2; stopping at C1 saves compiler threads' startup work
+        jvmFlags.add("-XX:TieredStopAtLevel=1");
+        jvmFlags.add("-Dquiz.launchedAt=" + System.currentTimeMillis());
+        for (String prop : new String[] { "quiz.user", "quiz.leaderboard", "quiz.stats", "quiz.attempts" }) {
+            if (System.getProperty(prop) != null) jvmFlags.add("-D" + prop + "=" + System.getProperty(prop));
+        }
+
+        Process p = new ProcessBuilder(command(classPath, jvmFlags, quizArgs)).inheritIO().start();
+        System.exit(p.waitFor());
+    }
+
+    // Training run: answer every question with "A" so the run loads the same classes a real session does
+    static void createArchive(int feature, String classPath, File classDir, File archive, List<String> quizArgs)
+            throws IOException, InterruptedException {
+        if (feature >= 13) {
+            // JDK 13+: dynamic archive written when the training JVM exits
+            runTraining(command(classPath, Arrays.asList("-XX:ArchiveClassesAtExit=" + archive.getPath()), quizArgs));
+            return;
+        }
+        // JDK 10-12: dump the loaded-class list first, then build a static archive from it
+        File classList = new File(classDir, CLASS_LIST_NAME);
+        runTraining(command(classPath, Arrays.asList("-XX:DumpLoadedClassList=" + classList.getPath()), quizArgs));
+        List<String> dump = new ArrayList<>();
+        dump.add(javaExecutable());
+        dump.add("-Xshare:dump");
+        dump.add("-XX:SharedClassListFile=" + classList.getPath());
+        dump.add("-XX:SharedArchiveFile=" + archive.getPath());
+        dump.add("-cp");
+        dump.add(classPath);
+        runTraining(dump);
+    }
+
+    static void runTraining(List<String> cmd) throws IOException, InterruptedException {
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        try (OutputStream stdin = p.getOutputStream()) {
+            StringBuilder answers = new StringBuilder();
+            for (int i = 0; i < 64; i++) answers.append("A\n");
+            stdin.write(answers.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        drain(p.getInputStream());
+        int exit = p.waitFor();
+        if (exit != 0) throw new IOException("training run failed (exit " + exit + "): " + cmd);
+    }
+
+    // QuizApp.class plus its nested classes (QuizApp$Question.class, ...) and the stores it records to
+    static File[] packedClasses(File classDir) throws IOException {
+        File[] classes = classDir.listFiles((dir, name) -> name.endsWith(".class")
+                && (name.startsWith("QuizApp.") || name.startsWith("QuizApp$")
+                    || name.startsWith("Leaderboard.") || name.startsWith("Leaderboard$")
+                    || name.startsWith("AnswerStats.") || name.startsWith("AnswerStats$")
+                    || name.startsWith("AttemptLog.") || name.startsWith("AttemptLog$")
+                    || name.startsWith("StringPool.") || name.startsWith("StringPool$")));
+        if (classes == null || classes.length == 0) throw new IOException("QuizApp.class not found in " + classDir);
+        return classes;
+    }
+
+    static void packJar(File[] classes, File jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (File f : classes) {
+                out.putNextEntry(new JarEntry(f.getName()));
+                out.write(Files.readAllBytes(f.toPath()));
+                out.closeEntry();
+            }
+        }
+    }
+
+    static List<String> command(String classPath, List<String> jvmFlags, List<String> quizArgs) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(javaExecutable());
+        cmd.addAll(jvmFlags);
+        cmd.add("-cp");
+        cmd.add(classPath);
+        cmd.add("QuizApp");
+        cmd.addAll(quizArgs);
+        return cmd;
+    }
+
+    static String javaExecutable() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+
+    // "1.8" -> 8, "17" -> 17
+    static int javaFeatureVersion() {
+        String spec = System.getProperty("java.specification.version");
+        if (spec.startsWith("1.")) spec = spec.substring(2);
+        return Integer.parseInt(spec);
+    }
+
+    static void drain(InputStream in) throws IOException {
+        byte[] buf = new byte[8192];
+        while (in.read(buf) != -1) {
+            // discard training output
+        }
+    }
+}
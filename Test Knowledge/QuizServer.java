@@ -0,0 +1,304 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterators;
+
+// Hosts the QuizApp question flow for many terminal clients at once:
+//   java -cp "Test Knowledge" QuizServer [port] [root]      then: telnet localhost 5050  (or: nc localhost 5050)
+// One thread drives every connection through a java.nio Selector. Each connection is a small state machine
+// (question shown -> waiting for a line -> feedback + next question -> score), and its socket buffers are
+// direct ByteBuffers borrowed from a pool, so steady-state traffic allocates no new buffers.
+public class QuizServer {
+    static final int DEFAULT_PORT = 5050;
+    static final int BUFFER_SIZE = 4096;
+    static final int MAX_LINE = 256;
+
+    // Direct buffers are expensive to allocate and are freed only by GC; reuse them across connections
+    static final class BufferPool {
+        private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+        private final int bufferSize;
+        int allocated;
+
+        BufferPool(int bufferSize) { this.bufferSize = bufferSize; }
+
+        ByteBuffer acquire() {
+            ByteBuffer b = free.poll();
+            if (b == null) {
+                allocated++;
+                return ByteBuffer.allocateDirect(bufferSize);
+            }
+            return b;
+        }
+
+        void release(ByteBuffer b) {
+            b.clear();
+            free.push(b);
+        }
+    }
+
+    static final class Session {
+        final SocketChannel channel;
+        final ByteBuffer in;
+        final ByteBuffer out;                              // encoded bytes not yet written to the socket
+        final StringBuilder pending = new StringBuilder(); // text not yet encoded into out
+        final StringBuilder line = new StringBuilder();
+        final Iterator<QuizApp.Question> questions; // lazy: one question is built when the previous one is answered
+        QuizApp.Question current;                  // null once the quiz is over
+        int index;                                 // questions answered so far
+        int score;
+        boolean closeWhenFlushed;
+        boolean writeBlocked;                      // out did not drain: reading is paused until it does
+        boolean closed;
+
+        Session(SocketChannel channel, ByteBuffer in, ByteBuffer out, Iterator<QuizApp.Question> questions) {
+            this.channel = channel; this.in = in; this.out = out; this.questions = questions;
+            current = questions.hasNext() ? questions.next() : null;
+        }
+
+        void advance() { current = questions.hasNext() ? questions.next() : null; }
+    }
+
+    private final List<QuizApp.Example> examples;
+    private final List<String> chapters;
+    private final List<String> chapterNames; // fallback when there are no examples
+    private final Random rnd = new Random();
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    int openSessions;
+    private SelectionKey serverKey;
+    private long acceptPausedUntil;   // nanoTime; 0 while accepting normally
+
+    QuizServer(Path root, int port) throws IOException {
+        examples = QuizApp.scanExamples(root);
+        chapters = QuizApp.distinctChapters(examples);
+        chapterNames = examples.isEmpty() ? QuizApp.scanChapters(root) : new ArrayList<String>();
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", port), 4096);
+        server.configureBlocking(false);
+        serverKey = server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    int port() { return server.socket().getLocalPort(); }
+
+    Iterator<QuizApp.Question> newQuestionSource() {
+        long seed = rnd.nextLong();
+        if (chapters.size() >= 2) {
+            return Spliterators.iterator(QuizApp.exampleQuestions(examples, chapters, seed, Math.min(10, examples.size())));
+        }
+        if (chapterNames.size() >= 2) {
+            return Spliterators.iterator(QuizApp.chapterQuestions(chapterNames, seed, Math.min(10, chapterNames.size())));
+        }
+        return Collections.<QuizApp.Question>emptyList().iterator();
+    }
+
+    void run() throws IOException {
+        while (true) {
+            if (acceptPausedUntil == 0) {
+                selector.select();
+            } else {
+                selector.select(Math.max(1, (acceptPausedUntil - System.nanoTime()) / 1_000_000));
+                if (System.nanoTime() - acceptPausedUntil >= 0) {
+                    acceptPausedUntil = 0;
+                    serverKey.interestOps(SelectionKey.OP_ACCEPT);
+                }
+            }
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                if (!key.isValid()) continue;
+                if (key.isAcceptable()) {
+                    try {
+                        accept();
+                    } catch (IOException e) {
+                        // Out of file descriptors, or a connection aborted before it was accepted. The server key
+                        // stays registered; accepting pauses for 100 ms instead of spinning on the same error.
+                        System.err.println("accept failed, retrying in 100 ms: " + e.getMessage());
+                        key.interestOps(0);
+                        acceptPausedUntil = System.nanoTime() + 100_000_000L;
+                    }
+                    continue;
+                }
+                try {
+                    if (key.isReadable()) read(key);
+                    if (key.isValid() && key.isWritable()) {
+                        flush(key);
+                        Session s = (Session) key.attachment();
+                        if (key.isValid() && !s.writeBlocked && s.in.position() > 0) consume(key, s); // lines left over
+                    }
+                } catch (IOException e) {
+                    close(key); // connection reset or similar: drop just this client
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) open(ch);
+    }
+
+    // Failures from here on belong to this client only, never to the server key
+    private void open(SocketChannel ch) {
+        ByteBuffer in = pool.acquire(), out = pool.acquire();
+        Session s;
+        SelectionKey key;
+        try {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true); // prompts are small; do not wait to coalesce them
+            s = new Session(ch, in, out, newQuestionSource());
+            key = ch.register(selector, SelectionKey.OP_READ, s);
+        } catch (IOException e) {
+            pool.release(in);
+            pool.release(out);
+            try {
+                ch.close();
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        openSessions++;
+        try {
+            if (s.current == null) {
+                s.closeWhenFlushed = true;
+                send(key, "Not enough chapters to build a quiz.\n");
+            } else {
+                send(key, QuizApp.HEADER + QuizApp.questionText(1, s.current) + QuizApp.choicePrompt(s.current.options.size()));
+            }
+        } catch (IOException e) {
+            close(key);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Session s = (Session) key.attachment();
+        int n = s.channel.read(s.in);
+        if (n < 0) {
+            close(key);
+            return;
+        }
+        consume(key, s);
+    }
+
+    // Handles the complete lines in `in` while the client keeps up. Once a reply cannot be written out, the rest
+    // of the input stays in `in` and reading stops until flush() drains the reply, so a client that sends answers
+    // but never reads holds at most one reply in memory instead of growing `pending` without bound.
+    private void consume(SelectionKey key, Session s) throws IOException {
+        s.in.flip();
+        while (s.in.hasRemaining() && key.isValid() && !s.writeBlocked) {
+            int b = s.in.get() & 0xFF;
+            if (b == '\n') {
+                onLine(key, s, s.line.toString());
+                s.line.setLength(0);
+            } else if (b >= 0x20 && b < 0x7F && s.line.length() < MAX_LINE) {
+                s.line.append((char) b); // answers are ASCII; skip CR and telnet control bytes
+            }
+        }
+        if (key.isValid()) s.in.compact();
+    }
+
+    private void onLine(SelectionKey key, Session s, String line) throws IOException {
+        if (s.closeWhenFlushed) return;
+        if (QuizApp.isQuit(line)) {
+            s.closeWhenFlushed = true;
+            send(key, "Bye. Score: " + s.score + "/" + s.index + "\n");
+            return;
+        }
+        QuizApp.Question q = s.current;
+        int optionCount = q.options.size();
+        if (line.trim().isEmpty()) {
+            send(key, QuizApp.choicePrompt(optionCount));
+            return;
+        }
+        int choice = QuizApp.parseChoice(line, optionCount);
+        if (choice < 0) {
+            send(key, QuizApp.invalidChoiceText(optionCount) + QuizApp.choicePrompt(optionCount));
+            return;
+        }
+        QuizApp.recordAnswer(q, choice);
+        if (choice == q.correctIndex) s.score++;
+        StringBuilder reply = new StringBuilder(QuizApp.feedbackText(q, choice));
+        s.index++;
+        s.advance();
+        if (s.current != null) {
+            reply.append(QuizApp.questionText(s.index + 1, s.current)).append(QuizApp.choicePrompt(s.current.options.size()));
+        } else {
+            reply.append("\nScore: ").append(s.score).append('/').append(s.index).append('\n');
+            s.closeWhenFlushed = true;
+        }
+        send(key, reply);
+    }
+
+    private void send(SelectionKey key, CharSequence text) throws IOException {
+        ((Session) key.attachment()).pending.append(text);
+        flush(key);
+    }
+
+    // Encode as much pending text as fits, write what the socket accepts, and wait for OP_WRITE if anything is left
+    private void flush(SelectionKey key) throws IOException {
+        Session s = (Session) key.attachment();
+        while (true) {
+            if (s.pending.length() > 0) {
+                CharBuffer chars = CharBuffer.wrap(s.pending);
+                encoder.reset();
+                encoder.encode(chars, s.out, true);
+                s.pending.delete(0, chars.position());
+            }
+            s.out.flip();
+            s.channel.write(s.out);
+            boolean stuck = s.out.hasRemaining();
+            s.out.compact();
+            if (stuck) {
+                s.writeBlocked = true;
+                key.interestOps(SelectionKey.OP_WRITE);   // stop reading: no new replies until this one is out
+                return;
+            }
+            if (s.pending.length() == 0) break;
+        }
+        s.writeBlocked = false;
+        key.interestOps(SelectionKey.OP_READ);
+        if (s.closeWhenFlushed) close(key);
+    }
+
+    private void close(SelectionKey key) {
+        Session s = (Session) key.attachment();
+        if (s == null || s.closed) return;   // only client keys carry a Session; the server key is never cancelled
+        key.cancel();
+        s.closed = true;
+        try {
+            s.channel.close();
+        } catch (IOException ignored) {
+        }
+        pool.release(s.in);
+        pool.release(s.out);
+        openSessions--;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path root = args.length > 1 ? Paths.get(args[1]) : Paths.get("").toAbsolutePath();
+        QuizServer server = new QuizServer(root, port);
+        // QuizServerLoadTest reads this line to find the port when started with port 0
+        System.out.println("QuizServer listening on 127.0.0.1:" + server.port());
+        System.out.flush();
+        server.run();
+    }
+}
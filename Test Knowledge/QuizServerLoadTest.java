@@ -0,0 +1,164 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+// Drives many simulated quiz takers against QuizServer and reports answer latency percentiles.
+// Answer latency = time from sending an answer line until the next "Your choice (...): " prompt has arrived.
+//   java -cp "Test Knowledge" QuizServerLoadTest [clients] [host:port | root]
+// Without host:port it starts QuizServer in a child JVM on a free port, so each process needs only one
+// file descriptor per client (raise the open-files limit, e.g. `ulimit -n 20000`, for 10k clients).
+public class QuizServerLoadTest {
+    static final int MAX_PENDING_CONNECTS = 256; // ramp up so the listen backlog is never overrun
+    static final byte[][] ANSWERS = { "A\n".getBytes(StandardCharsets.US_ASCII), "B\n".getBytes(StandardCharsets.US_ASCII),
+            "C\n".getBytes(StandardCharsets.US_ASCII), "D\n".getBytes(StandardCharsets.US_ASCII) };
+
+    static final class Client {
+        final SocketChannel channel;
+        long connectStarted;
+        long answerSentAt;   // 0 while no answer is outstanding
+        int tail;            // last three received bytes, to spot the "): " that ends every prompt
+        ByteBuffer outgoing;
+        Client(SocketChannel channel) { this.channel = channel; }
+    }
+
+    // Growable array of latency samples in nanoseconds
+    static final class Samples {
+        long[] values = new long[1024];
+        int size;
+        void add(long v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    static String percentiles(Samples s) {
+        long[] v = s.sorted();
+        if (v.length == 0) return "no samples";
+        return String.format("n=%d p50=%.2f ms p90=%.2f ms p99=%.2f ms p99.9=%.2f ms max=%.2f ms",
+                v.length, at(v, 0.50), at(v, 0.90), at(v, 0.99), at(v, 0.999), v[v.length - 1] / 1e6);
+    }
+
+    static double at(long[] sorted, double q) {
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Process child = null;
+        InetSocketAddress address;
+        if (args.length > 1 && args[1].contains(":")) {
+            String[] hp = args[1].split(":");
+            address = new InetSocketAddress(hp[0], Integer.parseInt(hp[1]));
+        } else {
+            String root = args.length > 1 ? args[1] : new File("").getAbsolutePath();
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "QuizServer", "0", root)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            String banner = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            if (banner == null) throw new IOException("QuizServer did not start");
+            String hostPort = banner.substring(banner.lastIndexOf(' ') + 1);
+            address = new InetSocketAddress("127.0.0.1", Integer.parseInt(hostPort.substring(hostPort.indexOf(':') + 1)));
+        }
+        try {
+            run(clients, address);
+        } finally {
+            if (child != null) child.destroy();
+        }
+    }
+
+    static void run(int clients, InetSocketAddress address) throws IOException {
+        Selector selector = Selector.open();
+        ByteBuffer readBuf = ByteBuffer.allocateDirect(64 * 1024); // shared: one thread, and only the tail is kept
+        Random rnd = new Random(9);
+        Samples answerLatency = new Samples();
+        Samples firstQuestion = new Samples();
+        int started = 0, pendingConnects = 0, finished = 0, failed = 0;
+        long answers = 0;
+        long t0 = System.nanoTime();
+
+        while (finished + failed < clients) {
+            while (started < clients && pendingConnects < MAX_PENDING_CONNECTS) {
+                SocketChannel ch = SocketChannel.open();
+                ch.configureBlocking(false);
+                ch.socket().setTcpNoDelay(true);
+                Client c = new Client(ch);
+                c.connectStarted = System.nanoTime();
+                ch.connect(address);
+                ch.register(selector, SelectionKey.OP_CONNECT, c);
+                started++;
+                pendingConnects++;
+            }
+            selector.select(1000);
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Client c = (Client) key.attachment();
+                try {
+                    if (key.isConnectable()) {
+                        c.channel.finishConnect();
+                        pendingConnects--;
+                        key.interestOps(SelectionKey.OP_READ);
+                        continue;
+                    }
+                    if (key.isWritable()) {
+                        c.channel.write(c.outgoing);
+                        if (!c.outgoing.hasRemaining()) key.interestOps(SelectionKey.OP_READ);
+                    }
+                    if (!key.isReadable()) continue;
+                    readBuf.clear();
+                    int n = c.channel.read(readBuf);
+                    if (n < 0) { // server closes after printing the score
+                        key.cancel();
+                        c.channel.close();
+                        finished++;
+                        continue;
+                    }
+                    readBuf.flip();
+                    boolean prompt = false;
+                    while (readBuf.hasRemaining()) {
+                        c.tail = ((c.tail << 8) | (readBuf.get() & 0xFF)) & 0xFFFFFF;
+                        if (c.tail == ((')' << 16) | (':' << 8) | ' ')) prompt = true;
+                    }
+                    if (!prompt) continue;
+                    long now = System.nanoTime();
+                    if (c.answerSentAt == 0) firstQuestion.add(now - c.connectStarted);
+                    else answerLatency.add(now - c.answerSentAt);
+                    c.outgoing = ByteBuffer.wrap(ANSWERS[rnd.nextInt(ANSWERS.length)]);
+                    c.answerSentAt = System.nanoTime();
+                    c.channel.write(c.outgoing);
+                    answers++;
+                    if (c.outgoing.hasRemaining()) key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                } catch (IOException e) {
+                    if (key.isValid() && (key.interestOps() & SelectionKey.OP_CONNECT) != 0) pendingConnects--;
+                    key.cancel();
+                    c.channel.close();
+                    failed++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        selector.close();
+
+        System.out.printf("clients=%d finished=%d failed=%d answers=%d in %.2f s (%.0f answers/s)%n",
+                clients, finished, failed, answers, seconds, answers / seconds);
+        System.out.println("connect -> first question: " + percentiles(firstQuestion));
+        System.out.println("answer latency:            " + percentiles(answerLatency));
+    }
+}
@@ -0,0 +1,363 @@
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// A canonicalizing pool for strings, like String.intern(), but:
+//   - lookups take a CharSequence range or a byte[] slice and compare in place, so a name that is already pooled
+//     costs no allocation (String.intern() needs a String first, which is garbage as soon as it's found)
+//   - entries are weak: once no one else references a pooled string, GC clears it and the pool drops the entry
+//     (a ConcurrentHashMap<String, String> keeps every name alive until it's removed)
+//   - the pool is bounded: a full stripe evicts entries, so interning still works, only less of it is shared
+// 16 stripes, each a hash table of WeakReference entries guarded by its own lock. Reads don't lock: they walk
+// the chain of the bucket. A miss is retried under the lock, because a concurrent insert or resize can hide an
+// entry from an unlocked reader for a moment.
+// Hashes follow String.hashCode(), so a String argument reuses its cached hash. Byte slices are read as ASCII.
+// A slice with non-ASCII bytes is decoded as UTF-8 into a String first.
+//
+//   java -cp "Test Knowledge" StringPool --bench [distinct names] [lookups] [threads]
+public class StringPool {
+    private static final int STRIPES = 16;   // 1 << 4, matching the >>> 28 in intern()
+
+    static final class Entry extends WeakReference<String> {
+        final int hash;
+        volatile Entry next;
+
+        Entry(String s, int hash, Entry next, ReferenceQueue<String> queue) {
+            super(s, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    static final class Stripe {
+        final int capacity, maxTable;
+        final ReferenceQueue<String> queue = new ReferenceQueue<>();
+        volatile AtomicReferenceArray<Entry> table;
+        int count;   // entries linked into the table; guarded by this
+        int clock;   // next bucket to evict from when the stripe is full
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.maxTable = tableSizeFor(capacity + capacity / 3 + 1);
+            this.table = new AtomicReferenceArray<>(Math.min(16, maxTable));
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int maxEntries;
+
+    StringPool(int maxEntries) {
+        int perStripe = Math.max(4, (maxEntries + STRIPES - 1) / STRIPES);
+        this.maxEntries = perStripe * STRIPES;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(perStripe);
+    }
+
+    static int tableSizeFor(int n) {
+        int size = 1;
+        while (size < n && size < (1 << 30)) size <<= 1;
+        return size;
+    }
+
+    int maxEntries() { return maxEntries; }
+
+    String intern(String s) {
+        return intern(s.hashCode(), s, null, 0, s.length());
+    }
+
+    String intern(CharSequence cs) {
+        return cs instanceof String ? intern((String) cs) : intern(cs, 0, cs.length());
+    }
+
+    // The pooled copy of cs.subSequence(start, end), without creating it when it's already pooled
+    String intern(CharSequence cs, int start, int end) {
+        if (start < 0 || end > cs.length() || start > end) throw new IndexOutOfBoundsException(start + ".." + end);
+        if (start == 0 && end == cs.length() && cs instanceof String) return intern((String) cs);
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + cs.charAt(i);
+        return intern(h, cs, null, start, end - start);
+    }
+
+    // The pooled string for bytes[off, off + len): ASCII is compared in place; anything else is decoded as UTF-8
+    String intern(byte[] bytes, int off, int len) {
+        if (off < 0 || len < 0 || off + len > bytes.length) throw new IndexOutOfBoundsException(off + "+" + len);
+        int h = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            byte b = bytes[i];
+            if (b < 0) return intern(new String(bytes, off, len, StandardCharsets.UTF_8));
+            h = 31 * h + b;
+        }
+        return intern(h, null, bytes, off, len);
+    }
+
+    // Exactly one of cs and bytes is non-null; the key is its [off, off + len) range
+    private String intern(int hash, CharSequence cs, byte[] bytes, int off, int len) {
+        int h = hash ^ (hash >>> 16);
+        Stripe st = stripes[(h * 0x9E3779B9) >>> 28];   // top bits of a multiplicative hash: names spread evenly
+        String found = find(st.table, h, cs, bytes, off, len);
+        if (found != null) return found;
+        synchronized (st) {
+            expunge(st);
+            AtomicReferenceArray<Entry> t = st.table;
+            found = find(t, h, cs, bytes, off, len);
+            if (found != null) return found;
+
+            String s = bytes != null ? new String(bytes, off, len, StandardCharsets.ISO_8859_1)
+                    : cs instanceof String && off == 0 && len == cs.length() ? (String) cs
+                    : cs.subSequence(off, off + len).toString();
+            if (st.count >= st.capacity) evictOne(st);
+            if (st.count >= t.length() - t.length() / 4 && t.length() < st.maxTable) t = resize(st);
+            int i = h & (t.length() - 1);
+            t.set(i, new Entry(s, h, t.get(i), st.queue));
+            st.count++;
+            return s;
+        }
+    }
+
+    private static String find(AtomicReferenceArray<Entry> t, int h, CharSequence cs, byte[] bytes, int off, int len) {
+        for (Entry e = t.get(h & (t.length() - 1)); e != null; e = e.next) {
+            if (e.hash != h) continue;
+            String s = e.get();
+            if (s != null && matches(s, cs, bytes, off, len)) return s;
+        }
+        return null;
+    }
+
+    private static boolean matches(String s, CharSequence cs, byte[] bytes, int off, int len) {
+        if (s.length() != len) return false;
+        if (bytes != null) {
+            for (int i = 0; i < len; i++) if (s.charAt(i) != bytes[off + i]) return false;
+            return true;
+        }
+        if (cs instanceof String && off == 0 && len == cs.length()) return s.equals(cs);
+        for (int i = 0; i < len; i++) if (s.charAt(i) != cs.charAt(off + i)) return false;
+        return true;
+    }
+
+    // Unlinks entries whose strings were collected; caller holds the stripe lock
+    private static void expunge(Stripe st) {
+        Object ref;
+        while ((ref = st.queue.poll()) != null) unlink(st, (Entry) ref);
+    }
+
+    private static boolean unlink(Stripe st, Entry target) {
+        AtomicReferenceArray<Entry> t = st.table;
+        int i = target.hash & (t.length() - 1);
+        Entry prev = null;
+        for (Entry e = t.get(i); e != null; prev = e, e = e.next) {
+            if (e != target) continue;
+            if (prev == null) t.set(i, e.next);
+            else prev.next = e.next;
+            st.count--;
+            return true;
+        }
+        return false;   // already evicted
+    }
+
+    // Drops the head of the next non-empty bucket, round-robin
+    private static void evictOne(Stripe st) {
+        AtomicReferenceArray<Entry> t = st.table;
+        for (int n = 0; n < t.length(); n++) {
+            int i = st.clock++ & (t.length() - 1);
+            Entry e = t.get(i);
+            if (e != null) {
+                t.set(i, e.next);
+                e.clear();
+                st.count--;
+                return;
+            }
+        }
+    }
+
+    // Relinks entries into a table twice the size. An unlocked reader walking a chain meanwhile can miss an entry.
+    // That only sends it to the locked path.
+    private static AtomicReferenceArray<Entry> resize(Stripe st) {
+        AtomicReferenceArray<Entry> old = st.table;
+        int n = old.length() * 2;
+        AtomicReferenceArray<Entry> t = new AtomicReferenceArray<>(n);
+        for (int i = 0; i < old.length(); i++) {
+            for (Entry e = old.get(i), next; e != null; e = next) {
+                next = e.next;
+                int j = e.hash & (n - 1);
+                e.next = t.get(j);
+                t.set(j, e);
+            }
+        }
+        st.table = t;
+        return t;
+    }
+
+    // Pooled strings still referenced from outside (collected ones are dropped first)
+    int size() {
+        int n = 0;
+        for (Stripe st : stripes) {
+            synchronized (st) {
+                expunge(st);
+                n += st.count;
+            }
+        }
+        return n;
+    }
+
+    // ---- benchmark ----
+
+    interface Interner { String intern(byte[] arena, int off, int len); }
+
+    static volatile long sink;
+
+    static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // Distinct ASCII names like a scanner produces, packed into one byte[]; offsets has one extra end entry
+    static final class Names {
+        final byte[] arena;
+        final int[] offsets;
+
+        Names(String prefix, int distinct) {
+            StringBuilder sb = new StringBuilder();
+            offsets = new int[distinct + 1];
+            String[] kinds = { "Demo", "Lab", "Test", "Example" };
+            for (int d = 0; d < distinct; d++) {
+                offsets[d] = sb.length();
+                sb.append(prefix).append(kinds[d & 3]).append(d).append(".java");
+            }
+            offsets[distinct] = sb.length();
+            arena = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    static final class Result {
+        final double nsPerOp, bytesPerOp;
+        Result(double nsPerOp, double bytesPerOp) { this.nsPerOp = nsPerOp; this.bytesPerOp = bytesPerOp; }
+    }
+
+    // Each thread interns its share of picks (indexes into names) and stores the canonical string per name
+    static Result run(Interner interner, Names names, int[] picks, int threads, String[] canonical) throws InterruptedException {
+        ThreadMXBean mx = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] allocated = new long[threads];
+        List<Thread> workers = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int w = 0; w < threads; w++) {
+            final int id = w;
+            Thread t = new Thread(() -> {
+                long me = Thread.currentThread().getId();
+                long a0 = mx.getThreadAllocatedBytes(me);
+                long h = 0;
+                for (int i = id; i < picks.length; i += threads) {
+                    int n = picks[i];
+                    String s = interner.intern(names.arena, names.offsets[n], names.offsets[n + 1] - names.offsets[n]);
+                    canonical[n] = s;
+                    h += s.length();
+                }
+                sink += h;
+                allocated[id] = mx.getThreadAllocatedBytes(me) - a0;
+            });
+            workers.add(t);
+            t.start();
+        }
+        for (Thread t : workers) t.join();
+        long ns = System.nanoTime() - t0;
+        long bytes = 0;
+        for (long b : allocated) bytes += b;
+        return new Result((double) ns / picks.length, (double) bytes / picks.length);
+    }
+
+    static String fresh(byte[] arena, int off, int len) {
+        return new String(arena, off, len, StandardCharsets.ISO_8859_1);
+    }
+
+    static void bench(int distinct, int lookups, int threads) throws InterruptedException {
+        Random rnd = new Random(42);
+        int[] picks = new int[lookups];
+        for (int i = 0; i < lookups; i++) picks[i] = (int) (distinct * Math.pow(rnd.nextDouble(), 3));   // skewed
+        for (int i = 0; i < distinct; i++) picks[rnd.nextInt(lookups)] = i;                               // all seen
+
+        String[] variants = { "String.intern()", "ConcurrentHashMap", "StringPool, from String", "StringPool, from bytes" };
+        System.out.printf("%,d lookups of %,d distinct names on %d threads; each name is read from a byte[] arena%n%n",
+                lookups, distinct, threads);
+        System.out.printf("%-24s %9s %12s %16s %14s%n", "", "ns/op", "alloc B/op", "retained heap", "after release");
+        for (int v = 0; v < variants.length; v++) {
+            // Warm up on other names, so the measured run starts with an empty pool and compiled code
+            for (int round = 0; round < 2; round++) {
+                boolean warmUp = round == 0;
+                Names names = new Names(warmUp ? "Warm" + v : "Name" + v, distinct);
+                String[] canonical = new String[distinct];
+                long before = usedHeapAfterGc();
+
+                ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
+                StringPool pool = new StringPool(2 * distinct);   // headroom: no evictions
+                Interner interner;
+                switch (v) {
+                    case 0: interner = (a, off, len) -> fresh(a, off, len).intern(); break;
+                    case 1: interner = (a, off, len) -> {
+                        String s = fresh(a, off, len);
+                        String old = map.putIfAbsent(s, s);
+                        return old != null ? old : s;
+                    }; break;
+                    case 2: interner = (a, off, len) -> pool.intern(fresh(a, off, len)); break;
+                    default: interner = pool::intern;
+                }
+                Result r = run(interner, names, picks, threads, canonical);
+                if (warmUp) continue;
+
+                long retained = usedHeapAfterGc() - before;
+                for (int n = 0; n < distinct; n++) {
+                    String again = interner.intern(names.arena, names.offsets[n], names.offsets[n + 1] - names.offsets[n]);
+                    if (again != canonical[n]) throw new AssertionError(variants[v] + " returned a second copy of " + again);
+                }
+                // Drop every outside reference: weak entries go away, strong ones stay
+                Arrays.fill(canonical, null);
+                String left = v == 0 ? "(JVM table)" : v == 1 ? String.format("%,d kept", map.size())
+                        : String.format("%,d kept", sizeAfterGc(pool));
+                System.out.printf("%-24s %9.1f %12.1f %13.1f MB %14s%n", variants[v], r.nsPerOp, r.bytesPerOp,
+                        retained / 1e6, left);
+                sink += map.size() + pool.maxEntries();
+            }
+        }
+        System.out.println();
+        System.out.println("retained heap: the pool plus one canonical copy of each name, measured after GC.");
+        System.out.println("String.intern()'s table lives outside the Java heap, so only its strings are counted.");
+
+        // Bounded: a pool smaller than the working set keeps at most its capacity and still returns equal strings
+        StringPool small = new StringPool(distinct / 4);
+        Names names = new Names("Small", distinct);
+        String[] canonical = new String[distinct];
+        run(small::intern, names, picks, threads, canonical);
+        System.out.printf("%nBounded pool (capacity %,d, %,d distinct names): holds %,d entries%n",
+                small.maxEntries(), distinct, small.size());
+    }
+
+    // Cleared references reach the pool's queues from the JVM's reference handler thread, a little after the GC
+    static int sizeAfterGc(StringPool pool) throws InterruptedException {
+        int size = pool.size();
+        for (int i = 0; i < 20; i++) {
+            usedHeapAfterGc();
+            Thread.sleep(50);
+            int now = pool.size();
+            if (now == size && i > 0) break;
+            size = now;
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0 && args[0].equals("--bench")) {
+            int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+            int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            bench(distinct, lookups, threads);
+            return;
+        }
+        System.out.println("Usage: StringPool --bench [distinct names] [lookups] [threads]");
+    }
+}
@@ -0,0 +1,522 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+// Keeps one JVM warm and runs any chapter demo's main on request, so editing and re-running a demo doesn't pay
+// for a JVM startup (and a javac startup) every time.
+//   - demos are found by scanning <root>/*/CodeExamples/*.java and are named by class name, e.g. HelloWorld
+//   - a demo is compiled in memory with javax.tools (so the daemon needs a JDK, not a JRE); the class bytes are
+//     kept until the SHA-256 of the source file changes, and only then is it compiled again
+//   - each demo gets its own classloader holding its classes, defined ahead of the next request. Every run uses
+//     a fresh loader, so static initializers run again exactly as with `java HelloWorld`
+//   - System.out/System.err are routed per thread (and to threads the demo starts) to the requesting connection
+// A demo that calls System.exit would stop the daemon; none of the chapter demos do.
+//
+// Protocol: one request per connection, one text line, so nc or bash's /dev/tcp work as clients:
+//   "<DemoName> [args...]"  -> the demo's output, then "-- exit <0|1> in <ms> ms (compiled|cached)"
+//   "list"                  -> the known demos
+//   "stop"                  -> shuts the daemon down
+// Java 8 has no Unix domain socket channels (they arrived in Java 16), so the daemon listens on 127.0.0.1 only.
+//
+// Usage (from the repository root, after `javac -d misc misc/DemoDaemon.java`):
+//   java -cp misc DemoDaemon [--port N] [root]          start the daemon (default port 5151, root: current dir)
+//   echo "HelloWorld" | nc localhost 5151               run a demo
+//   java -cp misc DemoDaemon --run HelloWorld [args]    the same from a Java client (pays its own JVM startup;
+//                                                       -Ddemo.port=N for a daemon on another port)
+//   java -cp misc DemoDaemon --bench [runs] [root]      cold `java Demo` processes vs requests to a warm daemon
+public class DemoDaemon {
+
+    static final int DEFAULT_PORT = 5151;
+
+    // ---- Output routing -------------------------------------------------------------------------------
+
+    // System.out/err are process-wide, so they are replaced once by streams that write to whatever the current
+    // thread's request asked for. PrintStream encodes and hands its bytes over on the calling thread, which is
+    // what makes per-thread routing work. Threads a demo starts inherit its route.
+    static final InheritableThreadLocal<OutputStream> ROUTE = new InheritableThreadLocal<>();
+
+    static final class RoutedStream extends OutputStream {
+        private final OutputStream fallback;
+
+        RoutedStream(OutputStream fallback) { this.fallback = fallback; }
+
+        private OutputStream target() {
+            OutputStream out = ROUTE.get();
+            return out != null ? out : fallback;
+        }
+
+        @Override public void write(int b) throws IOException { target().write(b); }
+        @Override public void write(byte[] b, int off, int len) throws IOException { target().write(b, off, len); }
+        @Override public void flush() throws IOException { target().flush(); }
+    }
+
+    static PrintStream console = System.out;
+
+    static synchronized void installRouting() {
+        if (System.out instanceof RoutedPrintStream) return;
+        console = System.out;
+        System.setOut(new RoutedPrintStream(new RoutedStream(System.out)));
+        System.setErr(new RoutedPrintStream(new RoutedStream(System.err)));
+    }
+
+    static final class RoutedPrintStream extends PrintStream {
+        RoutedPrintStream(OutputStream out) { super(out, true); }
+    }
+
+    // ---- Compiling and loading ------------------------------------------------------------------------
+
+    // Child-first: a demo's own classes always win over anything with the same name on the daemon's class path,
+    // and the parent is the extension/platform loader, so demos cannot see (or clash with) the misc tools.
+    static final class DemoLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        DemoLoader(Map<String, byte[]> classes) {
+            super(ClassLoader.getSystemClassLoader().getParent());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] b = classes.get(name);
+            if (b == null) throw new ClassNotFoundException(name);
+            return defineClass(name, b, 0, b.length);
+        }
+
+        // Defines (but does not initialize) every class, so a run only has to call main
+        DemoLoader preload() {
+            for (String name : classes.keySet()) {
+                try {
+                    loadClass(name);
+                } catch (ClassNotFoundException | LinkageError e) {
+                    // left for the run to report
+                }
+            }
+            return this;
+        }
+    }
+
+    static final class CompileException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        CompileException(String message) { super(message); }
+    }
+
+    // Collects class files in memory instead of writing them next to the source
+    static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        final Map<String, byte[]> classes = new HashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager fm) { super(fm); }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new ByteArrayOutputStream() {
+                        @Override
+                        public void close() {
+                            synchronized (classes) { classes.put(className, toByteArray()); }
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private final JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+    private StandardJavaFileManager fileManager;   // reused between compiles, guarded by compile()'s lock
+
+    // Compiles one demo file on its own (no class path, no source path) and returns its classes by binary name
+    synchronized Map<String, byte[]> compile(Path source) throws CompileException, IOException {
+        if (javac == null) throw new CompileException("no Java compiler in this runtime; start the daemon with a JDK");
+        if (fileManager == null) {
+            fileManager = javac.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        }
+        fileManager.setLocation(StandardLocation.CLASS_PATH, Collections.<java.io.File>emptyList());
+        fileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.<java.io.File>emptyList());
+        MemoryFileManager out = new MemoryFileManager(fileManager);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StringWriter messages = new StringWriter();
+        boolean ok = javac.getTask(messages, out, diagnostics, Arrays.asList("-g", "-proc:none", "-Xlint:none"), null,
+                fileManager.getJavaFileObjects(source.toFile())).call();
+        if (!ok) {
+            StringBuilder sb = new StringBuilder(messages.toString());
+            diagnostics.getDiagnostics().forEach(d -> sb.append(d).append('\n'));
+            throw new CompileException(sb.toString());
+        }
+        return out.classes;
+    }
+
+    // One per demo source: the bytes of its last successful compile, and a loader already holding them
+    static final class Demo {
+        final Path source;
+        byte[] hash;
+        Map<String, byte[]> classes;
+        DemoLoader next;
+
+        Demo(Path source) { this.source = source; }
+    }
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---- Daemon ---------------------------------------------------------------------------------------
+
+    private final Path root;
+    private final Map<String, Path> index = new ConcurrentHashMap<>();
+    private final Map<Path, Demo> demos = new ConcurrentHashMap<>();
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "demo-request");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile ServerSocket server;
+    boolean log = true;
+
+    DemoDaemon(Path root) {
+        this.root = root;
+    }
+
+    // Demo class name -> source, for every <root>/*/CodeExamples/*.java
+    void scan() throws IOException {
+        Map<String, Path> found = new HashMap<>();
+        try (DirectoryStream<Path> chapters = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path chapter : chapters) {
+                Path dir = chapter.resolve("CodeExamples");
+                if (!Files.isDirectory(dir)) continue;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.java")) {
+                    for (Path f : files) {
+                        String name = f.getFileName().toString();
+                        found.put(name.substring(0, name.length() - ".java".length()), f);
+                    }
+                }
+            }
+        }
+        index.keySet().retainAll(found.keySet());
+        index.putAll(found);
+    }
+
+    Path find(String name) throws IOException {
+        Path p = index.get(name);
+        if (p == null || !Files.exists(p)) {
+            scan();   // a demo added or moved since the last scan
+            p = index.get(name);
+        }
+        return p;
+    }
+
+    // Runs one demo with System.out/err going to out. Returns the text of the trailer line.
+    String run(String name, String[] args, OutputStream out) throws IOException {
+        long t0 = System.nanoTime();
+        PrintStream report = new PrintStream(out, true, "UTF-8");
+        Path source = find(name);
+        if (source == null) {
+            report.println("unknown demo: " + name + " (send \"list\" for the demos under " + root + ")");
+            return finish(report, trailer(1, t0, "unknown"));
+        }
+        Demo demo = demos.computeIfAbsent(source, Demo::new);
+        DemoLoader loader;
+        boolean compiled = false;
+        synchronized (demo) {
+            byte[] hash = sha256(Files.readAllBytes(source));
+            if (!Arrays.equals(hash, demo.hash)) {
+                try {
+                    demo.classes = compile(source);
+                } catch (CompileException e) {
+                    report.print(e.getMessage());
+                    return finish(report, trailer(1, t0, "compile error"));
+                }
+                demo.hash = hash;
+                demo.next = null;
+                compiled = true;
+            }
+            loader = demo.next != null ? demo.next : new DemoLoader(demo.classes);
+            demo.next = null;
+        }
+
+        int status = 0;
+        OutputStream previous = ROUTE.get();
+        Thread self = Thread.currentThread();
+        ClassLoader previousContext = self.getContextClassLoader();
+        ROUTE.set(out);
+        self.setContextClassLoader(loader);
+        try {
+            Method main = loader.loadClass(name).getMethod("main", String[].class);
+            if (!Modifier.isStatic(main.getModifiers())) throw new NoSuchMethodException(name + ".main is not static");
+            main.setAccessible(true);   // demos may declare a non-public class
+            main.invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            status = 1;
+            Throwable cause = e.getCause();
+            cause.setStackTrace(demoFrames(cause.getStackTrace()));
+            System.err.print("Exception in thread \"main\" ");
+            cause.printStackTrace();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            status = 1;
+            System.err.println("cannot run " + name + ": " + e);
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            ROUTE.set(previous);
+            self.setContextClassLoader(previousContext);
+        }
+
+        String trailer = finish(report, trailer(status, t0, compiled ? "compiled" : "cached"));
+        // Get the next run's loader ready now that the response is out
+        DemoLoader spare = new DemoLoader(demo.classes).preload();
+        synchronized (demo) {
+            if (demo.classes == spare.classes) demo.next = spare;
+        }
+        return trailer;
+    }
+
+    static String finish(PrintStream report, String trailer) {
+        report.println(trailer);
+        report.flush();
+        return trailer;
+    }
+
+    // Drops the reflection and daemon frames below the demo's main, so traces read like `java Demo`'s
+    static StackTraceElement[] demoFrames(StackTraceElement[] frames) {
+        for (int i = 0; i < frames.length; i++) {
+            String c = frames[i].getClassName();
+            if (c.startsWith("sun.reflect.") || c.startsWith("jdk.internal.reflect.") || c.equals("java.lang.reflect.Method")) {
+                return Arrays.copyOf(frames, i);
+            }
+        }
+        return frames;
+    }
+
+    static String trailer(int status, long t0, String how) {
+        return String.format("-- exit %d in %.1f ms (%s)", status, (System.nanoTime() - t0) / 1e6, how);
+    }
+
+    void serve(Socket socket) {
+        try (Socket s = socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = new BufferedOutputStream(s.getOutputStream());
+            String line = in.readLine();
+            String[] words = line == null ? new String[0] : line.trim().split("\\s+");
+            if (words.length == 0 || words[0].isEmpty()) return;
+            if (words[0].equals("list")) {
+                scan();
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<String, Path> e : new TreeMap<>(index).entrySet()) {
+                    sb.append(e.getKey()).append("  ").append(root.relativize(e.getValue())).append('\n');
+                }
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            } else if (words[0].equals("stop")) {
+                out.write("stopping\n".getBytes(StandardCharsets.UTF_8));
+                stop();
+            } else {
+                String trailer = run(words[0], Arrays.copyOfRange(words, 1, words.length), out);
+                if (log) console.println(words[0] + " " + trailer);
+            }
+            out.flush();
+        } catch (IOException e) {
+            console.println("request failed: " + e);
+        }
+    }
+
+    // Binds 127.0.0.1:port (0 picks a free port) and accepts on a background thread; returns the bound port
+    int start(int port) throws IOException {
+        installRouting();
+        scan();
+        ServerSocket ss = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        server = ss;
+        Thread acceptor = new Thread(() -> {
+            while (!ss.isClosed()) {
+                try {
+                    Socket s = ss.accept();
+                    workers.execute(() -> serve(s));
+                } catch (IOException e) {
+                    if (!ss.isClosed()) console.println("accept failed: " + e);
+                }
+            }
+        }, "demo-daemon");
+        acceptor.start();
+        return ss.getLocalPort();
+    }
+
+    void stop() throws IOException {
+        ServerSocket ss = server;
+        if (ss != null) ss.close();
+        workers.shutdown();
+    }
+
+    // ---- Client ---------------------------------------------------------------------------------------
+
+    // Sends one request line and copies the response to out; returns the number of bytes received
+    static long request(int port, String line, OutputStream out) throws IOException {
+        try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            s.setTcpNoDelay(true);
+            s.getOutputStream().write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            s.getOutputStream().flush();
+            InputStream in = s.getInputStream();
+            byte[] buf = new byte[8192];
+            long total = 0;
+            for (int n; (n = in.read(buf)) > 0; total += n) out.write(buf, 0, n);
+            out.flush();
+            return total;
+        }
+    }
+
+    // ---- Benchmark ------------------------------------------------------------------------------------
+
+    // Short demos only: the labs run for seconds, which would hide the startup cost being measured
+    static final String[] BENCH_DEMOS = {
+            "HelloWorld", "StaticAndThisDemo", "EqualityDemo", "StringsAndStringBuilderDemo",
+            "LambdaAndPredicateDemo", "PolymorphismAndCastingDemo", "TryWithResourcesSuppressedDemo"
+    };
+
+    static long median(long[] xs) {
+        long[] s = xs.clone();
+        Arrays.sort(s);
+        return s[s.length / 2];
+    }
+
+    // Runs `java -cp classes name` and returns its wall time in ns; the output goes to out
+    static long coldRun(Path classes, String name, ByteArrayOutputStream out) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        long t0 = System.nanoTime();
+        Process p = new ProcessBuilder(java, "-cp", classes.toString(), name).redirectErrorStream(true).start();
+        InputStream in = p.getInputStream();
+        byte[] buf = new byte[8192];
+        for (int n; (n = in.read(buf)) > 0; ) out.write(buf, 0, n);
+        p.waitFor();
+        return System.nanoTime() - t0;
+    }
+
+    // Output to compare: without the daemon's trailer, and with identity hashes (Object@1b6d3586) masked
+    static String comparable(String output) {
+        int cut = output.lastIndexOf("-- exit ");
+        return (cut >= 0 ? output.substring(0, cut) : output).replaceAll("@[0-9a-f]{4,8}\\b", "@#");
+    }
+
+    static void bench(int runs, Path root) throws Exception {
+        DemoDaemon daemon = new DemoDaemon(root);
+        daemon.log = false;
+        int port = daemon.start(0);
+        Path classes = Files.createTempDirectory("demo-daemon-bench");
+        System.out.println("Cold: a new JVM per run (classes compiled beforehand). Warm: requests to the daemon on port "
+                + port + ".");
+        System.out.println(runs + " runs per demo; medians in ms.");
+        System.out.printf("%-32s %10s %16s %10s %8s  %s%n", "demo", "cold", "first (compile)", "warm", "speedup", "output");
+        List<Long> allCold = new ArrayList<>(), allWarm = new ArrayList<>();
+        try {
+            for (String name : BENCH_DEMOS) {
+                Path source = daemon.find(name);
+                if (source == null) continue;
+                for (Map.Entry<String, byte[]> e : daemon.compile(source).entrySet()) {
+                    Files.write(classes.resolve(e.getKey() + ".class"), e.getValue());
+                }
+
+                long[] cold = new long[runs];
+                ByteArrayOutputStream coldOut = new ByteArrayOutputStream();
+                for (int r = 0; r < runs; r++) {
+                    coldOut.reset();
+                    cold[r] = coldRun(classes, name, coldOut);
+                }
+
+                ByteArrayOutputStream warmOut = new ByteArrayOutputStream();
+                long t0 = System.nanoTime();
+                request(port, name, warmOut);
+                long first = System.nanoTime() - t0;
+                long[] warm = new long[runs];
+                for (int r = 0; r < runs; r++) {
+                    warmOut.reset();
+                    long t = System.nanoTime();
+                    request(port, name, warmOut);
+                    warm[r] = System.nanoTime() - t;
+                }
+
+                boolean same = comparable(coldOut.toString("UTF-8")).equals(comparable(warmOut.toString("UTF-8")));
+                long c = median(cold), w = median(warm);
+                allCold.add(c);
+                allWarm.add(w);
+                System.out.printf("%-32s %10.1f %16.1f %10.2f %7.0fx  %s%n", name, c / 1e6, first / 1e6, w / 1e6,
+                        (double) c / w, same ? "same" : "differs");
+            }
+        } finally {
+            daemon.stop();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(classes)) {
+                for (Path f : files) Files.delete(f);
+            }
+            Files.delete(classes);
+        }
+        long c = median(allCold.stream().mapToLong(Long::longValue).toArray());
+        long w = median(allWarm.stream().mapToLong(Long::longValue).toArray());
+        System.out.printf("%nMedian over demos: cold %.1f ms, warm %.2f ms per invocation.%n", c / 1e6, w / 1e6);
+        System.out.println("Warm times include the client's connect, the source hash check and a fresh classloader.");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--bench")) {
+            int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            bench(runs, Paths.get(args.length > 2 ? args[2] : "").toAbsolutePath());
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--run")) {
+            int port = Integer.getInteger("demo.port", DEFAULT_PORT);
+            request(port, String.join(" ", Arrays.copyOfRange(args, 1, args.length)), System.out);
+            return;
+        }
+        int port = DEFAULT_PORT;
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) port = Integer.parseInt(args[++i]);
+            else rest.add(args[i]);
+        }
+        Path root = Paths.get(rest.size() > 0 ? rest.get(0) : "").toAbsolutePath();
+        DemoDaemon daemon = new DemoDaemon(root);
+        int bound = daemon.start(port);
+        console.println("DemoDaemon: " + daemon.index.size() + " demos under " + root + ", listening on 127.0.0.1:" + bound);
+        daemon.workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+}
@@ -0,0 +1,522 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import sun.misc.Unsafe;
+
+// Measures what objects of the Class Design and Encapsulation demo types really cost on the heap:
+//   - shallow size (Instrumentation.getObjectSize) and field layout: header, each field's offset and size,
+//     alignment gaps and trailing padding, including hidden fields inherited from superclasses (FieldHidingAndFinalDemo)
+//   - deep and retained size of an object graph. Retained means "freed if this root went away": objects that are
+//     also reachable from another root (such as a shared "Alice" string literal) are reported as shared instead
+//   - a heap summary: millions of each demo type allocated, then a histogram by class and the retained bytes per
+//     demo type, cross-checked against the heap usage the JVM reports
+// Field offsets come from sun.misc.Unsafe (Java 8 has no other public API for them), and object graphs are walked
+// with Unsafe reads, so JDK-internal fields are followed without reflective access checks.
+//
+// Demo classes are compiled from <root>/*/CodeExamples/<Demo>.java into a temporary directory, one classloader per
+// demo, and are named <Demo>:<Class> (top-level or nested). JDK classes can be named directly (java.util.Date).
+//
+// Usage (from the repository root, after `javac -d misc misc/FootprintAgent.java`):
+//   java -cp misc FootprintAgent [root]                            layout and sizes of the default demo types
+//   java -cp misc FootprintAgent <Demo>:<Class>|<class> ... [root] the same for chosen types
+//   java -cp misc FootprintAgent --heap [perType] [root]           heap summary (default 1,000,000 of each type)
+// Without the agent loaded, main packs misc/FootprintAgent.jar (Premain-Class: FootprintAgent) and runs itself again
+// in a child JVM with -javaagent. Other programs can load the same jar and call FootprintAgent.deepSize(...).
+public class FootprintAgent {
+
+    static final String JAR_NAME = "FootprintAgent.jar";
+
+    static final String[] DEFAULT_TYPES = {
+            "EncapsulationImmutableDefensiveCopyDemo:Person",
+            "PolymorphismAndCastingDemo:Primate",
+            "PolymorphismAndCastingDemo:Lemur",
+            "ConstructorsAndSuperDemo:Mammal",
+            "ConstructorsAndSuperDemo:Dog",
+            "FieldHidingAndFinalDemo:Base",
+            "FieldHidingAndFinalDemo:Sub"
+    };
+
+    private static volatile Instrumentation instrumentation;
+
+    public static void premain(String args, Instrumentation inst) { instrumentation = inst; }
+
+    public static void agentmain(String args, Instrumentation inst) { instrumentation = inst; }
+
+    static Instrumentation inst() {
+        Instrumentation inst = instrumentation;
+        if (inst == null) throw new IllegalStateException("start the JVM with -javaagent:" + JAR_NAME);
+        return inst;
+    }
+
+    public static long shallowSize(Object o) { return inst().getObjectSize(o); }
+
+    // ---- Field layout ---------------------------------------------------------------------------------
+
+    private static final Unsafe UNSAFE;
+    static {
+        try {
+            Field f = Unsafe.class.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            UNSAFE = (Unsafe) f.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static final class OneInt { int x; }
+
+    // The first field of a one-int class sits right after the header: 12 bytes with compressed class pointers, else 16
+    static final long HEADER_SIZE;
+    static {
+        try {
+            HEADER_SIZE = UNSAFE.objectFieldOffset(OneInt.class.getDeclaredField("x"));
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    static final int REFERENCE_SIZE = Unsafe.ARRAY_OBJECT_INDEX_SCALE;   // 4 with compressed oops, else 8
+
+    static int sizeOf(Class<?> type) {
+        if (!type.isPrimitive()) return REFERENCE_SIZE;
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        return 1;
+    }
+
+    static final class Slot {
+        final long offset;
+        final int size;
+        final Field field;   // null for the header and for gaps
+        final String note;
+        Slot(long offset, int size, Field field, String note) {
+            this.offset = offset; this.size = size; this.field = field; this.note = note;
+        }
+    }
+
+    // Instance fields of type and all its superclasses, by offset, with the gaps and tail padding between them
+    static List<Slot> layout(Class<?> type, long shallow) {
+        List<Field> fields = new ArrayList<>();
+        Map<String, List<Class<?>>> declaredBy = new HashMap<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers())) continue;
+                fields.add(f);
+                declaredBy.computeIfAbsent(f.getName(), k -> new ArrayList<>()).add(c);
+            }
+        }
+        fields.sort(Comparator.comparingLong(UNSAFE::objectFieldOffset));
+
+        List<Slot> slots = new ArrayList<>();
+        slots.add(new Slot(0, (int) HEADER_SIZE, null, "(object header)"));
+        long at = HEADER_SIZE;
+        for (Field f : fields) {
+            long offset = UNSAFE.objectFieldOffset(f);
+            if (offset > at) slots.add(new Slot(at, (int) (offset - at), null, "(alignment gap)"));
+            List<Class<?>> owners = declaredBy.get(f.getName());
+            String note = "";
+            if (owners.size() > 1) {
+                // owners run from the most derived class up, so the first one is the field the object's own type sees
+                note = owners.get(0) == f.getDeclaringClass()
+                        ? "hides " + shortName(owners.get(1)) + "." + f.getName()
+                        : "hidden by " + shortName(owners.get(0)) + "." + f.getName();
+            }
+            slots.add(new Slot(offset, sizeOf(f.getType()), f, note));
+            at = offset + sizeOf(f.getType());
+        }
+        if (shallow > at) slots.add(new Slot(at, (int) (shallow - at), null, "(padding to 8-byte alignment)"));
+        return slots;
+    }
+
+    static String shortName(Class<?> c) {
+        String n = c.getName();
+        return n.substring(Math.max(n.lastIndexOf('.'), n.lastIndexOf('$')) + 1);
+    }
+
+    // ---- Object graphs --------------------------------------------------------------------------------
+
+    private static final Map<Class<?>, long[]> REFERENCE_OFFSETS = new HashMap<>();
+
+    static synchronized long[] referenceOffsets(Class<?> type) {
+        long[] offsets = REFERENCE_OFFSETS.get(type);
+        if (offsets == null) {
+            List<Long> list = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers()) && !f.getType().isPrimitive()) list.add(UNSAFE.objectFieldOffset(f));
+                }
+            }
+            offsets = list.stream().mapToLong(Long::longValue).toArray();
+            REFERENCE_OFFSETS.put(type, offsets);
+        }
+        return offsets;
+    }
+
+    // Classes (and what hangs off them) belong to the runtime, not to any one object
+    static boolean followed(Object o) { return o != null && !(o instanceof Class) && !(o instanceof ClassLoader); }
+
+    static void pushChildren(Object o, ArrayDeque<Object> stack) {
+        Class<?> c = o.getClass();
+        if (c.isArray()) {
+            if (!c.getComponentType().isPrimitive()) {
+                for (Object e : (Object[]) o) if (followed(e)) stack.push(e);
+            }
+            return;
+        }
+        for (long offset : referenceOffsets(c)) {
+            Object child = UNSAFE.getObject(o, offset);
+            if (followed(child)) stack.push(child);
+        }
+    }
+
+    // Everything reachable from root (Class objects excluded), each object counted once
+    public static long deepSize(Object root) {
+        IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<>();
+        ArrayDeque<Object> stack = new ArrayDeque<>();
+        long bytes = 0;
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Object o = stack.pop();
+            if (seen.put(o, Boolean.TRUE) != null) continue;
+            bytes += shallowSize(o);
+            pushChildren(o, stack);
+        }
+        return bytes;
+    }
+
+    static final Object SHARED = new Object();
+
+    // Reachable object -> the only root that reaches it, or SHARED when several do. An object reachable from exactly
+    // one root is freed with that root, so summing by owner gives each root's retained size. Roots are walked in turn;
+    // a walk that meets another root's object marks it and everything below it SHARED, and stops at SHARED objects
+    // (their subtrees are already marked).
+    static IdentityHashMap<Object, Object> owners(Object[] roots) {
+        IdentityHashMap<Object, Object> owner = new IdentityHashMap<>();
+        ArrayDeque<Object> stack = new ArrayDeque<>();
+        for (Object root : roots) {
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Object o = stack.pop();
+                Object current = owner.get(o);
+                if (current == root || current == SHARED) continue;
+                owner.put(o, current == null ? root : SHARED);
+                pushChildren(o, stack);
+            }
+        }
+        return owner;
+    }
+
+    // ---- Demo classes and sample objects --------------------------------------------------------------
+
+    private final Path root;
+    private final Map<String, ClassLoader> demoLoaders = new HashMap<>();
+    private final List<Path> tempDirs = new ArrayList<>();
+
+    FootprintAgent(Path root) { this.root = root; }
+
+    Path findDemo(String demo) throws IOException {
+        try (DirectoryStream<Path> chapters = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path chapter : chapters) {
+                Path f = chapter.resolve("CodeExamples").resolve(demo + ".java");
+                if (Files.isRegularFile(f)) return f;
+            }
+        }
+        throw new IOException("no CodeExamples/" + demo + ".java under " + root);
+    }
+
+    // Each demo is compiled on its own and gets its own loader: several demos declare classes with the same name
+    ClassLoader demoLoader(String demo) throws IOException {
+        ClassLoader loader = demoLoaders.get(demo);
+        if (loader != null) return loader;
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) throw new IOException("no Java compiler in this runtime; run with a JDK");
+        Path out = Files.createTempDirectory("footprint-" + demo);
+        tempDirs.add(out);
+        int status = javac.run(null, null, null, "-nowarn", "-d", out.toString(), findDemo(demo).toString());
+        if (status != 0) throw new IOException("compiling " + demo + " failed");
+        loader = new URLClassLoader(new URL[] { out.toUri().toURL() }, FootprintAgent.class.getClassLoader());
+        demoLoaders.put(demo, loader);
+        return loader;
+    }
+
+    // "Demo:Class" (top-level class in Demo.java, or Demo's nested class) or a fully qualified class name
+    Class<?> resolve(String spec) throws IOException, ClassNotFoundException {
+        int colon = spec.indexOf(':');
+        if (colon < 0) return Class.forName(spec);
+        String demo = spec.substring(0, colon), name = spec.substring(colon + 1);
+        ClassLoader loader = demoLoader(demo);
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            return Class.forName(demo + "$" + name.replace('.', '$'), false, loader);
+        }
+    }
+
+    void cleanUp() throws IOException {
+        for (Path dir : tempDirs) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path f : files) Files.delete(f);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    // Argument values in the spirit of the demos; null when there's no sensible sample for a type
+    static Object sampleValue(Class<?> t) {
+        if (t == String.class) return "Alice";
+        if (t == int.class) return 10;
+        if (t == long.class) return 10L;
+        if (t == double.class) return 1.0;
+        if (t == boolean.class) return true;
+        if (t == char.class) return 'A';
+        if (t == Date.class) return new Date(0L);
+        if (t == int[].class) return new int[] { 90, 80, 70 };
+        if (t == String[].class) return new String[] { "Alice" };
+        if (t == Object.class) return new Object();
+        return null;
+    }
+
+    static final PrintStream DISCARD = new PrintStream(new OutputStream() {
+        @Override public void write(int b) { }
+        @Override public void write(byte[] b, int off, int len) { }
+    });
+
+    // Creates an instance through a real constructor (the no-arg one if any, else the longest one whose parameters
+    // all have sample values), so defensive copies and initializers run. Constructors' console output is dropped.
+    static Object sample(Class<?> type) throws ReflectiveOperationException {
+        Constructor<?> best = null;
+        for (Constructor<?> c : type.getDeclaredConstructors()) {
+            boolean usable = true;
+            for (Class<?> p : c.getParameterTypes()) usable &= sampleValue(p) != null;
+            if (!usable) continue;
+            if (best == null || c.getParameterCount() == 0
+                    || (best.getParameterCount() > 0 && c.getParameterCount() > best.getParameterCount())) best = c;
+        }
+        if (best == null) return UNSAFE.allocateInstance(type);   // fields left at their defaults
+        Object[] args = new Object[best.getParameterCount()];
+        for (int i = 0; i < args.length; i++) args[i] = sampleValue(best.getParameterTypes()[i]);
+        best.setAccessible(true);
+        PrintStream out = System.out;
+        System.setOut(DISCARD);
+        try {
+            return best.newInstance(args);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    static String describe(Class<?> type) {
+        if (type.isArray()) return describe(type.getComponentType()) + "[]";
+        return type.isPrimitive() || type.getName().startsWith("java.") ? type.getSimpleName() : shortName(type);
+    }
+
+    // ---- Reports --------------------------------------------------------------------------------------
+
+    void report(String spec) throws Exception {
+        Class<?> type = resolve(spec);
+        Object a = sample(type), b = sample(type);
+        long shallow = shallowSize(a);
+        System.out.println(spec + "  (" + describe(type) + ", superclass " + describe(type.getSuperclass()) + ")");
+        System.out.println("  offset  size  field");
+        long fieldBytes = 0, waste = 0;
+        for (Slot s : layout(type, shallow)) {
+            String text;
+            if (s.field == null) {
+                text = s.note;
+                if (s.offset > 0) waste += s.size;
+            } else {
+                text = describe(s.field.getType()) + " " + shortName(s.field.getDeclaringClass()) + "." + s.field.getName()
+                        + (s.note.isEmpty() ? "" : "   <- " + s.note);
+                fieldBytes += s.size;
+            }
+            System.out.printf("  %6d  %4d  %s%n", s.offset, s.size, text);
+        }
+        System.out.printf("  shallow %d B = header %d + fields %d + gaps/padding %d  (%.0f%% overhead)%n",
+                shallow, HEADER_SIZE, fieldBytes, waste, 100.0 * (shallow - fieldBytes) / shallow);
+
+        // Two samples, so anything they share (literals, common constants) shows up as shared rather than retained
+        IdentityHashMap<Object, Object> owner = owners(new Object[] { a, b });
+        long retained = 0, shared = 0;
+        int retainedObjects = 0;
+        Map<String, long[]> parts = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> e : owner.entrySet()) {
+            long size = shallowSize(e.getKey());
+            if (e.getValue() == a) {
+                retained += size;
+                retainedObjects++;
+                parts.computeIfAbsent(describe(e.getKey().getClass()), k -> new long[2])[0] += size;
+            } else if (e.getValue() == SHARED) {
+                shared += size;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, long[]> e : parts.entrySet()) sb.append(sb.length() == 0 ? "" : ", ").append(e.getKey()).append(' ').append(e.getValue()[0]);
+        System.out.printf("  deep %d B; retained %d B in %d object(s) (%s); shared with other instances %d B%n%n",
+                deepSize(a), retained, retainedObjects, sb, shared);
+    }
+
+    static final class TypeTotal {
+        long roots, retained;
+    }
+
+    void heapSummary(List<String> specs, int perType) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        long t0 = System.nanoTime();
+        Object[] roots = new Object[specs.size() * perType];
+        int n = 0;
+        for (String spec : specs) {
+            Class<?> type = resolve(spec);
+            for (int i = 0; i < perType; i++) roots[n++] = sample(type);
+        }
+        System.gc();
+        long after = memory.getHeapMemoryUsage().getUsed();
+        System.out.printf("Allocated %,d of each of %d types in %.1f s; heap grew by %.1f MB (GC-reported)%n",
+                perType, specs.size(), (System.nanoTime() - t0) / 1e9, (after - before) / 1e6);
+
+        t0 = System.nanoTime();
+        IdentityHashMap<Object, Object> owner = owners(roots);
+        Map<Class<?>, TypeTotal> byRootType = new LinkedHashMap<>();
+        for (Object r : roots) byRootType.computeIfAbsent(r.getClass(), k -> new TypeTotal()).roots++;
+        Map<Class<?>, long[]> histogram = new HashMap<>();   // class -> {count, bytes}
+        long total = 0, shared = 0;
+        for (Map.Entry<Object, Object> e : owner.entrySet()) {
+            Object o = e.getKey();
+            long size = shallowSize(o);
+            long[] h = histogram.computeIfAbsent(o.getClass(), k -> new long[2]);
+            h[0]++;
+            h[1] += size;
+            total += size;
+            if (e.getValue() == SHARED) shared += size;
+            else byRootType.get(e.getValue().getClass()).retained += size;
+        }
+        // The roots array itself is on the heap too, and part of what the GC measured
+        long rootsArray = shallowSize(roots);
+        System.out.printf("Walked %,d objects in %.1f s: %.1f MB reachable + %.1f MB for the roots array = %.1f MB%n%n",
+                owner.size(), (System.nanoTime() - t0) / 1e9, total / 1e6, rootsArray / 1e6, (total + rootsArray) / 1e6);
+
+        System.out.println("Retained by demo type:");
+        System.out.printf("  %-28s %12s %10s %12s %7s%n", "type", "instances", "B each", "MB total", "share");
+        List<Map.Entry<Class<?>, TypeTotal>> types = new ArrayList<>(byRootType.entrySet());
+        types.sort((x, y) -> Long.compare(y.getValue().retained, x.getValue().retained));
+        for (Map.Entry<Class<?>, TypeTotal> e : types) {
+            TypeTotal t = e.getValue();
+            System.out.printf("  %-28s %,12d %10.1f %12.1f %6.1f%%%n", describe(e.getKey()), t.roots,
+                    (double) t.retained / t.roots, t.retained / 1e6, 100.0 * t.retained / total);
+        }
+        System.out.printf("  %-28s %12s %10s %12.3f %6.1f%%%n%n", "(shared between roots)", "", "", shared / 1e6, 100.0 * shared / total);
+
+        System.out.println("Histogram by class (like jmap -histo, for just these objects):");
+        System.out.printf("  %-28s %12s %12s %10s%n", "class", "objects", "MB", "B/object");
+        List<Map.Entry<Class<?>, long[]>> rows = new ArrayList<>(histogram.entrySet());
+        rows.sort((x, y) -> Long.compare(y.getValue()[1], x.getValue()[1]));
+        for (Map.Entry<Class<?>, long[]> e : rows) {
+            long[] h = e.getValue();
+            System.out.printf("  %-28s %,12d %12.1f %10.1f%n", describe(e.getKey()), h[0], h[1] / 1e6, (double) h[1] / h[0]);
+        }
+    }
+
+    // ---- Launcher -------------------------------------------------------------------------------------
+
+    static void packJar(File classDir, File jar) throws IOException {
+        File[] classes = classDir.listFiles((dir, name) -> name.endsWith(".class")
+                && (name.startsWith("FootprintAgent.") || name.startsWith("FootprintAgent$")));
+        if (classes == null || classes.length == 0) throw new IOException("FootprintAgent.class not found in " + classDir);
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(new Attributes.Name("Premain-Class"), "FootprintAgent");
+        attributes.put(new Attributes.Name("Agent-Class"), "FootprintAgent");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+            for (File f : classes) {
+                out.putNextEntry(new JarEntry(f.getName()));
+                out.write(Files.readAllBytes(f.toPath()));
+                out.closeEntry();
+            }
+        }
+    }
+
+    // Re-runs main in a child JVM with the agent loaded; the heap summary gets a larger heap
+    static int relaunch(String[] args) throws IOException, InterruptedException {
+        File classDir = new File(System.getProperty("java.class.path").split(File.pathSeparator)[0]).getAbsoluteFile();
+        File jar = new File(classDir, JAR_NAME);
+        File self = new File(classDir, "FootprintAgent.class");
+        if (!jar.isFile() || jar.lastModified() < self.lastModified()) packJar(classDir, jar);
+        List<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cmd.add("-javaagent:" + jar.getPath());
+        if (args.length > 0 && args[0].equals("--heap")) cmd.add("-Xmx3g");
+        cmd.add("-cp");
+        cmd.add(classDir.getPath());
+        cmd.add("FootprintAgent");
+        cmd.addAll(Arrays.asList(args));
+        return new ProcessBuilder(cmd).inheritIO().start().waitFor();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (instrumentation == null) {
+            System.exit(relaunch(args));
+        }
+        boolean heap = args.length > 0 && args[0].equals("--heap");
+        int perType = 1_000_000;
+        List<String> specs = new ArrayList<>();
+        Path root = Paths.get("").toAbsolutePath();
+        for (int i = heap ? 1 : 0; i < args.length; i++) {
+            String a = args[i];
+            if (heap && a.matches("\\d+")) perType = Integer.parseInt(a);
+            else if (!a.contains(":") && Files.isDirectory(Paths.get(a))) root = Paths.get(a).toAbsolutePath();
+            else specs.add(a);
+        }
+        if (specs.isEmpty()) specs.addAll(Arrays.asList(DEFAULT_TYPES));
+
+        FootprintAgent agent = new FootprintAgent(root);
+        int status = 0;
+        try {
+            System.out.println("JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                    + ", object header " + HEADER_SIZE + " B, references " + REFERENCE_SIZE + " B, objects aligned to 8 B");
+            System.out.println();
+            if (heap) {
+                agent.heapSummary(specs, perType);
+            } else {
+                for (String spec : specs) agent.report(spec);
+            }
+        } catch (ClassNotFoundException e) {
+            System.err.println("no such class: " + e.getMessage() + " (name demo types as <Demo>:<Class>)");
+            status = 1;
+        } finally {
+            agent.cleanUp();
+        }
+        if (status != 0) System.exit(status);
+    }
+}
@@ -0,0 +1,529 @@
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Flags the exam traps from "Gotcha Rules.md" and the chapter notes in real Java sources:
+//   SWITCH_ON_WRAPPER          switch (x) where x is an Integer/Character/... (null -> NullPointerException)
+//   LIST_REMOVE_INT            list.remove(1) on a List<Integer> removes by index, not by value
+//   IGNORED_STRING_RESULT      s.concat(..); s.trim(); ... on its own: Strings are immutable, result is lost
+//   STRING_REFERENCE_EQUALITY  == / != on Strings compares references, not contents
+//   STRINGBUILDER_EQUALS       sb.equals(..) on a StringBuilder is reference equality
+// Each file is tokenized in one streaming pass (no AST, no whole-file String); files are scanned in parallel
+// on a work-stealing pool. The rules are heuristics over the last few tokens plus the declared types seen so far.
+//
+// Usage (from the repository root):
+//   java -cp misc GotchaLint [root]            scan every .java file under root (default: current directory)
+//   java -cp misc GotchaLint --self-test [root] check rule snippets and the expected findings in the chapter CodeExamples
+//   java -cp misc GotchaLint --bench [lines] [root]  replicate the examples to ~lines (default 1,000,000) and time a scan
+public class GotchaLint {
+
+    static final class Finding implements Comparable<Finding> {
+        final Path file;
+        final int line;
+        final String rule;
+        final String message;
+        Finding(Path file, int line, String rule, String message) {
+            this.file = file; this.line = line; this.rule = rule; this.message = message;
+        }
+        public int compareTo(Finding o) {
+            int c = file.compareTo(o.file);
+            return c != 0 ? c : Integer.compare(line, o.line);
+        }
+        @Override public String toString() { return file + ":" + line + ": " + rule + " " + message; }
+    }
+
+    static final class FileResult {
+        final List<Finding> findings;
+        final int lines;
+        final long tokens;
+        FileResult(List<Finding> findings, int lines, long tokens) { this.findings = findings; this.lines = lines; this.tokens = tokens; }
+    }
+
+    // ---- Tokenizer ------------------------------------------------------------------------------------
+
+    static final int IDENT = 1, NUMBER = 2, STRING = 3, CHAR = 4, OP = 5;
+
+    // Tokens are reused from a small ring, so the only per-token allocation is an identifier's text
+    static final class Token {
+        int kind;
+        String text;   // identifier or keyword text; operator text for OP; null for literals
+        boolean intLiteral;
+        int line;
+
+        boolean is(String s) { return text != null && text.equals(s); }
+        boolean isOp(String s) { return kind == OP && text.equals(s); }
+    }
+
+    // Operators are interned from this table instead of allocating a String per occurrence
+    static final String[] TWO_CHAR_OPS = {
+            "==", "!=", "<=", ">=", "&&", "||", "++", "--", "->", "::",
+            "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^="
+    };
+    static final String[] ONE_CHAR_OPS = new String[128];
+    static {
+        for (char c : "(){}[];,.@=<>!~?:+-*/&|^%".toCharArray()) ONE_CHAR_OPS[c] = String.valueOf(c).intern();
+    }
+
+    static final class Tokenizer {
+        private final Reader in;
+        private final char[] buf = new char[16 * 1024];
+        private int pos, limit;
+        private final StringBuilder word = new StringBuilder(64);
+        int line = 1;
+
+        Tokenizer(Reader in) { this.in = in; }
+
+        private int peek() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) { limit = 0; return -1; }
+            }
+            return buf[pos];
+        }
+
+        private int next() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                pos++;
+                if (c == '\n') line++;
+            }
+            return c;
+        }
+
+        // Fills t with the next token; returns false at end of input
+        boolean advance(Token t) throws IOException {
+            while (true) {
+                int c = next();
+                if (c < 0) return false;
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') continue;
+                t.line = line;
+                t.intLiteral = false;
+                if (c == '/') {
+                    int d = peek();
+                    if (d == '/') { skipLineComment(); continue; }
+                    if (d == '*') { next(); skipBlockComment(); continue; }
+                }
+                if (Character.isJavaIdentifierStart(c)) {
+                    word.setLength(0);
+                    word.append((char) c);
+                    int d;
+                    while ((d = peek()) >= 0 && Character.isJavaIdentifierPart(d)) word.append((char) next());
+                    t.kind = IDENT;
+                    t.text = word.toString();
+                    return true;
+                }
+                if (c >= '0' && c <= '9') {
+                    boolean integral = true;
+                    boolean hex = c == '0' && (peek() == 'x' || peek() == 'X');
+                    int d;
+                    while ((d = peek()) >= 0 && (Character.isLetterOrDigit(d) || d == '_' || d == '.')) {
+                        if (d == '.' || d == 'l' || d == 'L' || (!hex && (d == 'f' || d == 'F' || d == 'd' || d == 'D' || d == 'e' || d == 'E'))) {
+                            integral = false;
+                        }
+                        next();
+                    }
+                    t.kind = NUMBER;
+                    t.text = null;
+                    t.intLiteral = integral;
+                    return true;
+                }
+                if (c == '"' || c == '\'') {
+                    skipQuoted(c);
+                    t.kind = c == '"' ? STRING : CHAR;
+                    t.text = null;
+                    return true;
+                }
+                t.kind = OP;
+                t.text = operator((char) c);
+                return true;
+            }
+        }
+
+        private String operator(char c) throws IOException {
+            int d = peek();
+            if (d >= 0) {
+                for (String op : TWO_CHAR_OPS) {
+                    if (op.charAt(0) == c && op.charAt(1) == d) {
+                        next();
+                        return op;
+                    }
+                }
+            }
+            String s = c < 128 ? ONE_CHAR_OPS[c] : null;
+            return s != null ? s : String.valueOf(c);
+        }
+
+        private void skipLineComment() throws IOException {
+            int c;
+            while ((c = peek()) >= 0 && c != '\n') next();
+        }
+
+        private void skipBlockComment() throws IOException {
+            int prev = 0, c;
+            while ((c = next()) >= 0) {
+                if (prev == '*' && c == '/') return;
+                prev = c;
+            }
+        }
+
+        private void skipQuoted(int quote) throws IOException {
+            int c;
+            while ((c = next()) >= 0 && c != '\n') {
+                if (c == '\\') next();
+                else if (c == quote) return;
+            }
+        }
+    }
+
+    // ---- Rules ------------------------------------------------------------------------------------------
+
+    static final Set<String> WRAPPERS = new HashSet<>(Arrays.asList("Integer", "Character", "Byte", "Short", "Long"));
+    static final Set<String> INT_LIKE = new HashSet<>(Arrays.asList("int", "short", "byte", "char"));
+    static final Set<String> LIST_TYPES = new HashSet<>(Arrays.asList("List", "ArrayList", "LinkedList", "Collection"));
+    static final Set<String> STRING_RESULT_METHODS = new HashSet<>(Arrays.asList(
+            "concat", "trim", "toUpperCase", "toLowerCase", "replace", "substring", "intern", "strip"));
+
+    // What the linter knows about a variable name in the current file (scopes are not tracked)
+    static final int WRAPPER = 1, STRING_VAR = 2, STRINGBUILDER = 3, INT_VAR = 4, INT_LIST = 5;
+
+    static final class FileLinter {
+        private final Path file;
+        private final List<Finding> findings = new ArrayList<>();
+        private final Map<String, Integer> declared = new HashMap<>();
+        private final Token[] ring = new Token[8];
+        private long count;
+
+        // Ignored-result state machine: receiver -> '.' -> method -> '(' ... ')' -> ';'
+        private int ignoredState;
+        private int ignoredDepth;
+        private int ignoredLine;
+        private String ignoredMethod;
+
+        FileLinter(Path file) {
+            this.file = file;
+            for (int i = 0; i < ring.length; i++) ring[i] = new Token();
+        }
+
+        Token nextSlot() { return ring[(int) (count & 7)]; }
+
+        private Token back(int k) {
+            if (k > count - 1 || k >= ring.length) return EMPTY;
+            return ring[(int) ((count - 1 - k) & 7)];
+        }
+
+        private boolean declaredAs(Token t, int kind) {
+            if (t.kind != IDENT) return false;
+            Integer k = declared.get(t.text);
+            return k != null && k == kind;
+        }
+
+        private void report(int line, String rule, String message) { findings.add(new Finding(file, line, rule, message)); }
+
+        // Called after the tokenizer has filled nextSlot()
+        void accept() {
+            count++;
+            Token t = back(0);
+            Token p1 = back(1);
+
+            if (t.kind == IDENT) recordDeclaration(t, p1);
+
+            if (t.isOp(")") && p1.kind == IDENT && back(2).isOp("(") && back(3).is("switch") && declaredAs(p1, WRAPPER)) {
+                report(t.line, "SWITCH_ON_WRAPPER", "switch on wrapper '" + p1.text + "' throws NullPointerException when it is null");
+            }
+
+            if (t.isOp(")") && back(2).isOp("(") && back(3).is("remove") && back(4).isOp(".") && declaredAs(back(5), INT_LIST)
+                    && ((p1.kind == NUMBER && p1.intLiteral) || declaredAs(p1, INT_VAR))) {
+                report(t.line, "LIST_REMOVE_INT", back(5).text + ".remove(int) removes by index; use remove(Integer.valueOf(..)) to remove a value");
+            }
+
+            // Decided one token after the right operand: a string only counts when it is the whole operand, so
+            // n == "abc".length() is not reported (the token after it is '.', or the one before the left is '.'/')')
+            Token op = back(2);
+            if (op.isOp("==") || op.isOp("!=")) {
+                Token left = back(3), right = p1, beforeLeft = back(4);
+                boolean wholeLeft = !beforeLeft.isOp(".") && !beforeLeft.isOp(")");
+                boolean wholeRight = !t.isOp(".");
+                boolean literal = (wholeLeft && left.kind == STRING && !right.is("null"))
+                        || (wholeRight && right.kind == STRING && !left.is("null"));
+                boolean variables = wholeLeft && wholeRight && declaredAs(left, STRING_VAR) && declaredAs(right, STRING_VAR);
+                if (literal || variables) {
+                    report(right.line, "STRING_REFERENCE_EQUALITY", op.text + " on Strings compares references; use equals()");
+                }
+            }
+
+            if (t.isOp("(") && p1.is("equals") && back(2).isOp(".") && declaredAs(back(3), STRINGBUILDER)) {
+                report(t.line, "STRINGBUILDER_EQUALS", "StringBuilder.equals is reference equality; compare toString() values");
+            }
+
+            trackIgnoredResult(t, p1);
+        }
+
+        private void recordDeclaration(Token t, Token p1) {
+            // "Type name": two identifiers in a row is a declaration (field, local or parameter)
+            if (p1.kind == IDENT) {
+                if (WRAPPERS.contains(p1.text)) declared.put(t.text, WRAPPER);
+                else if (p1.is("String")) declared.put(t.text, STRING_VAR);
+                else if (p1.is("StringBuilder")) declared.put(t.text, STRINGBUILDER);
+                else if (INT_LIKE.contains(p1.text)) declared.put(t.text, INT_VAR);
+                else if (declared.containsKey(t.text) && !isKeyword(p1.text)) declared.remove(t.text); // redeclared as another type
+            } else if (p1.isOp(">") && back(2).is("Integer") && back(3).isOp("<") && LIST_TYPES.contains(back(4).text)) {
+                declared.put(t.text, INT_LIST);
+            }
+        }
+
+        private void trackIgnoredResult(Token t, Token p1) {
+            switch (ignoredState) {
+                case 0:
+                    if (declaredAs(t, STRING_VAR) && (p1.isOp(";") || p1.isOp("{") || p1.isOp("}") || p1.is("else") || count == 1)) {
+                        ignoredState = 1;
+                    }
+                    return;
+                case 1:
+                    ignoredState = t.isOp(".") ? 2 : 0;
+                    return;
+                case 2:
+                    if (t.kind == IDENT && STRING_RESULT_METHODS.contains(t.text)) {
+                        ignoredState = 3;
+                        ignoredMethod = t.text;
+                        ignoredLine = t.line;
+                    } else {
+                        ignoredState = 0;
+                    }
+                    return;
+                case 3:
+                    if (t.isOp("(")) {
+                        ignoredState = 4;
+                        ignoredDepth = 1;
+                    } else {
+                        ignoredState = 0;
+                    }
+                    return;
+                case 4:
+                    if (t.isOp("(")) ignoredDepth++;
+                    else if (t.isOp(")") && --ignoredDepth == 0) ignoredState = 5;
+                    return;
+                default:
+                    if (t.isOp(";")) {
+                        report(ignoredLine, "IGNORED_STRING_RESULT",
+                                "result of String." + ignoredMethod + "() is discarded; Strings are immutable");
+                    }
+                    ignoredState = 0;
+            }
+        }
+    }
+
+    static final Token EMPTY = new Token();
+
+    static boolean isKeyword(String s) {
+        return s.equals("return") || s.equals("new") || s.equals("throw") || s.equals("case") || s.equals("else")
+                || s.equals("instanceof") || s.equals("final") || s.equals("static") || s.equals("private")
+                || s.equals("public") || s.equals("protected");
+    }
+
+    static FileResult lint(Path file) throws IOException {
+        FileLinter linter = new FileLinter(file);
+        long tokens = 0;
+        int lines;
+        try (Reader r = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            Tokenizer tok = new Tokenizer(r);
+            while (tok.advance(linter.nextSlot())) {
+                linter.accept();
+                tokens++;
+            }
+            lines = tok.line;
+        }
+        return new FileResult(linter.findings, lines, tokens);
+    }
+
+    // ---- Driver -----------------------------------------------------------------------------------------
+
+    static List<Path> javaFiles(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path name = dir.getFileName();
+                return !dir.equals(root) && name != null && name.toString().startsWith(".")
+                        ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+            @Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (file.toString().endsWith(".java")) files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    static final class ScanResult {
+        final List<Finding> findings = new ArrayList<>();
+        int files;
+        long lines;
+        long tokens;
+        long nanos;
+    }
+
+    static ScanResult scan(List<Path> files) throws IOException, InterruptedException {
+        ScanResult result = new ScanResult();
+        long t0 = System.nanoTime();
+        // Work-stealing: idle workers take queued files from busy ones, so a few huge files do not stall the scan
+        ExecutorService pool = Executors.newWorkStealingPool();
+        try {
+            List<Callable<FileResult>> tasks = new ArrayList<>(files.size());
+            for (Path f : files) tasks.add(() -> lint(f));
+            for (Future<FileResult> f : pool.invokeAll(tasks)) {
+                FileResult r = f.get();
+                result.findings.addAll(r.findings);
+                result.lines += r.lines;
+                result.tokens += r.tokens;
+                result.files++;
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("scan failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        result.nanos = System.nanoTime() - t0;
+        Collections.sort(result.findings);
+        return result;
+    }
+
+    static void printSummary(ScanResult r) {
+        double seconds = r.nanos / 1e9;
+        System.out.printf("%d findings in %d files, %d lines, %d tokens: %.2f s (%.0f lines/s)%n",
+                r.findings.size(), r.files, r.lines, r.tokens, seconds, r.lines / seconds);
+    }
+
+    // Expected findings in the chapter examples: file name -> rules that must be reported at least once
+    static final String[][] EXPECTED = {
+            { "SwitchDemo.java", "SWITCH_ON_WRAPPER" },
+            { "ArrayListAndAutoboxingDemo.java", "LIST_REMOVE_INT" },
+            { "StringsAndStringBuilderDemo.java", "IGNORED_STRING_RESULT", "STRING_REFERENCE_EQUALITY", "STRINGBUILDER_EQUALS" },
+            { "EqualityDemo.java", "STRING_REFERENCE_EQUALITY", "STRINGBUILDER_EQUALS" },
+    };
+    // Files that demonstrate the correct idiom and must stay clean
+    static final String[] CLEAN = { "HelloWorld.java", "LoopsAndLabelsDemo.java", "TernaryDemo.java" };
+
+    // Small sources and the rules each must produce (none for the last two)
+    static final String[][] SNIPPETS = {
+            { "class A { boolean f(String s) { return s == \"abc\"; } }", "STRING_REFERENCE_EQUALITY" },
+            { "class A { boolean f(String s, String t) { return s != t; } }", "STRING_REFERENCE_EQUALITY" },
+            { "class A { boolean f(int n) { return n == \"abc\".length(); } }" },
+            { "class A { boolean f(String s, int n) { return \"abc\".length() == n && s.length() == n; } }" },
+    };
+
+    static boolean selfTest(Path root) throws IOException, InterruptedException {
+        boolean ok = true;
+        Path snippet = Files.createTempFile("gotcha-lint", ".java");
+        try {
+            for (String[] e : SNIPPETS) {
+                Files.write(snippet, e[0].getBytes(StandardCharsets.UTF_8));
+                Set<String> got = new HashSet<>();
+                for (Finding f : lint(snippet).findings) got.add(f.rule);
+                Set<String> want = new HashSet<>(Arrays.asList(e).subList(1, e.length));
+                if (!got.equals(want)) {
+                    System.out.println("SNIPPET  " + e[0] + ": expected " + want + ", got " + got);
+                    ok = false;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(snippet);
+        }
+
+        List<Path> corpus = new ArrayList<>();
+        for (Path f : javaFiles(root)) if (f.getParent().getFileName().toString().equals("CodeExamples")) corpus.add(f);
+        ScanResult r = scan(corpus);
+        Map<String, Set<String>> byFile = new HashMap<>();
+        for (Finding f : r.findings) {
+            byFile.computeIfAbsent(f.file.getFileName().toString(), k -> new HashSet<>()).add(f.rule);
+            System.out.println(root.relativize(f.file) + ":" + f.line + ": " + f.rule + " " + f.message);
+        }
+        for (String[] e : EXPECTED) {
+            Set<String> got = byFile.getOrDefault(e[0], Collections.<String>emptySet());
+            for (int i = 1; i < e.length; i++) {
+                if (!got.contains(e[i])) {
+                    System.out.println("MISSING  " + e[0] + ": expected " + e[i]);
+                    ok = false;
+                }
+            }
+        }
+        for (String clean : CLEAN) {
+            if (byFile.containsKey(clean)) {
+                System.out.println("UNEXPECTED  " + clean + ": " + byFile.get(clean));
+                ok = false;
+            }
+        }
+        printSummary(r);
+        System.out.println(ok ? "self-test passed" : "self-test FAILED");
+        return ok;
+    }
+
+    // Copies the example sources into a temp directory until it holds about targetLines lines, then scans it
+    static void bench(Path root, long targetLines) throws IOException, InterruptedException {
+        List<Path> sources = javaFiles(root);
+        if (sources.isEmpty()) throw new IOException("no .java files under " + root);
+        List<byte[]> contents = new ArrayList<>();
+        long linesPerRound = 0;
+        for (Path f : sources) {
+            byte[] bytes = Files.readAllBytes(f);
+            contents.add(bytes);
+            for (byte b : bytes) if (b == '\n') linesPerRound++;
+        }
+        Path dir = Files.createTempDirectory("gotcha-lint-bench");
+        List<Path> subdirs = new ArrayList<>();
+        List<Path> copies = new ArrayList<>();
+        try {
+            long lines = 0;
+            for (int round = 0; lines < targetLines; round++) {
+                Path sub = Files.createDirectory(dir.resolve("r" + round));
+                subdirs.add(sub);
+                for (int i = 0; i < contents.size(); i++) copies.add(Files.write(sub.resolve(i + ".java"), contents.get(i)));
+                lines += Math.max(1, linesPerRound);
+            }
+            scan(copies); // warm-up: JIT-compile the tokenizer
+            ScanResult r = scan(copies);
+            printSummary(r);
+            System.out.println("threads=" + Runtime.getRuntime().availableProcessors());
+        } finally {
+            for (Path p : copies) Files.deleteIfExists(p);
+            for (Path p : subdirs) Files.deleteIfExists(p);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--self-test")) {
+            Path root = Paths.get(args.length > 1 ? args[1] : "").toAbsolutePath();
+            if (!selfTest(root)) System.exit(1);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--bench")) {
+            long lines = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+            bench(Paths.get(args.length > 2 ? args[2] : "").toAbsolutePath(), lines);
+            return;
+        }
+        Path root = Paths.get(args.length > 0 ? args[0] : "").toAbsolutePath();
+        ScanResult r = scan(javaFiles(root));
+        for (Finding f : r.findings) System.out.println(root.relativize(f.file) + ":" + f.line + ": " + f.rule + " " + f.message);
+        printSummary(r);
+    }
+}
@@ -0,0 +1,526 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Renders the study guide as a static HTML site:
+//   index.html                      the repository README plus links to every page
+//   <chapter>.html                  a chapter's notes; each CodeExamples file is embedded, syntax-highlighted,
+//                                   and `Name.java` mentions (e.g. in "Code Examples") link to it
+//   gotcha-rules.html               misc/Gotcha Rules.md
+//   examples/<chapter>/<Name>.html  one highlighted page per example
+// Incremental: every page has a key, the SHA-256 of its inputs (the files it shows or embeds, the example link
+// table, and the renderer version). The keys of the last build are kept in <out>/.manifest, and a rebuild renders
+// only pages whose key changed, so editing one example re-renders that example's page and its chapter page.
+// Source hashing and page rendering both run in parallel.
+//
+// Usage (from the repository root):
+//   java -cp misc SiteRenderer [--force] [root] [outDir]      (defaults: current directory, site)
+public class SiteRenderer {
+    static final String VERSION = "1"; // bump when the HTML output changes, to invalidate every page
+    static final String MANIFEST = ".manifest";
+
+    enum Kind { INDEX, NOTES, EXAMPLE }
+
+    static final class Page {
+        final Kind kind;
+        final String output;        // relative to the output directory, '/'-separated
+        final Path source;          // README, notes .md or example .java
+        final String chapter;       // chapter folder name; null for index and misc pages
+        final List<Path> inputs;    // every file whose content ends up in this page
+        String key;
+
+        Page(Kind kind, String output, Path source, String chapter, List<Path> inputs) {
+            this.kind = kind; this.output = output; this.source = source; this.chapter = chapter; this.inputs = inputs;
+        }
+
+        // "../../" for examples/<chapter>/X.html, "" for top-level pages
+        String up() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < output.length(); i++) if (output.charAt(i) == '/') sb.append("../");
+            return sb.toString();
+        }
+    }
+
+    private final Path root;
+    private final Path out;
+    private final List<Page> pages = new ArrayList<>();
+    private final Map<String, String> exampleUrls = new TreeMap<>();       // "chapter/Name.java" -> output path
+    private final Map<String, String> exampleByName = new TreeMap<>();     // "Name.java" -> output path (first one)
+    private final Map<Path, String> titles = new ConcurrentHashMap<>();
+
+    SiteRenderer(Path root, Path out) {
+        this.root = root;
+        this.out = out;
+    }
+
+    // ---- site structure ----
+
+    void discover() throws IOException {
+        List<Path> notes = new ArrayList<>();
+        List<Path> chapters = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path d : dirs) {
+                if (Files.isDirectory(d.resolve("CodeExamples"))) chapters.add(d);
+            }
+        }
+        Collections.sort(chapters);
+        for (Path chapterDir : chapters) {
+            String chapter = chapterDir.getFileName().toString();
+            List<Path> examples = sortedFiles(chapterDir.resolve("CodeExamples"), "*.java");
+            List<Path> notesFiles = sortedFiles(chapterDir, "*.md");
+            for (Path example : examples) {
+                String name = example.getFileName().toString();
+                String url = "examples/" + slug(chapter) + "/" + name.replace(".java", ".html");
+                exampleUrls.put(chapter + "/" + name, url);
+                if (!exampleByName.containsKey(name)) exampleByName.put(name, url);
+                pages.add(new Page(Kind.EXAMPLE, url, example, chapter, Collections.singletonList(example)));
+            }
+            for (Path md : notesFiles) {
+                List<Path> inputs = new ArrayList<>();
+                inputs.add(md);
+                inputs.addAll(examples); // embedded, so an example edit re-renders its chapter page
+                pages.add(new Page(Kind.NOTES, slug(chapter) + ".html", md, chapter, inputs));
+                notes.add(md);
+            }
+        }
+        Path gotchas = root.resolve("misc").resolve("Gotcha Rules.md");
+        if (Files.isRegularFile(gotchas)) {
+            pages.add(new Page(Kind.NOTES, "gotcha-rules.html", gotchas, null, Collections.singletonList(gotchas)));
+            notes.add(gotchas);
+        }
+        List<Path> indexInputs = new ArrayList<>(notes); // page titles come from the notes' first headings
+        Path readme = root.resolve("README.md");
+        if (Files.isRegularFile(readme)) indexInputs.add(0, readme);
+        pages.add(new Page(Kind.INDEX, "index.html", Files.isRegularFile(readme) ? readme : null, null, indexInputs));
+    }
+
+    static List<Path> sortedFiles(Path dir, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, glob)) {
+            for (Path p : ds) if (Files.isRegularFile(p)) files.add(p);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    static String slug(String s) {
+        return s.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+
+    // ---- incremental build ----
+
+    void build(boolean force) throws IOException {
+        long t0 = System.nanoTime();
+        discover();
+
+        // Hash every input once, in parallel
+        Set<Path> allInputs = new HashSet<>();
+        for (Page p : pages) allInputs.addAll(p.inputs);
+        Map<Path, String> hashes = new ConcurrentHashMap<>();
+        allInputs.parallelStream().forEach(p -> hashes.put(p, sha256(readBytes(p))));
+        String linkTable = sha256(exampleUrls.toString().getBytes(StandardCharsets.UTF_8));
+        for (Page p : pages) {
+            StringBuilder sb = new StringBuilder(VERSION).append('\n').append(p.kind).append('\n').append(linkTable);
+            for (Path in : p.inputs) sb.append('\n').append(root.relativize(in)).append('=').append(hashes.get(in));
+            p.key = sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        Map<String, String> previous = readManifest();
+        List<Page> dirty = new ArrayList<>();
+        for (Page p : pages) {
+            if (force || !p.key.equals(previous.get(p.output)) || !Files.exists(out.resolve(p.output))) dirty.add(p);
+        }
+        AtomicInteger rendered = new AtomicInteger();
+        dirty.parallelStream().forEach(p -> {
+            write(out.resolve(p.output), render(p));
+            rendered.incrementAndGet();
+        });
+
+        // Pages whose source was deleted or renamed
+        Set<String> current = new HashSet<>();
+        for (Page p : pages) current.add(p.output);
+        int removed = 0;
+        for (String old : previous.keySet()) {
+            if (!current.contains(old) && Files.deleteIfExists(out.resolve(old))) removed++;
+        }
+        writeManifest();
+
+        System.out.printf("rendered %d of %d pages (%d unchanged, %d removed) into %s in %.0f ms%n",
+                rendered.get(), pages.size(), pages.size() - rendered.get(), removed, out, (System.nanoTime() - t0) / 1e6);
+        for (Page p : dirty) System.out.println("  " + p.output);
+    }
+
+    Map<String, String> readManifest() throws IOException {
+        Map<String, String> m = new TreeMap<>();
+        Path file = out.resolve(MANIFEST);
+        if (!Files.exists(file)) return m;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (line.startsWith("#") || tab < 0) continue;
+            m.put(line.substring(tab + 1), line.substring(0, tab));
+        }
+        return m;
+    }
+
+    // "<key>\t<output>" per page, sorted, so the manifest diffs cleanly between builds
+    void writeManifest() {
+        StringBuilder sb = new StringBuilder("# SiteRenderer page keys: sha256(inputs)\toutput\n");
+        Map<String, String> sorted = new TreeMap<>();
+        for (Page p : pages) sorted.put(p.output, p.key);
+        for (Map.Entry<String, String> e : sorted.entrySet()) sb.append(e.getValue()).append('\t').append(e.getKey()).append('\n');
+        write(out.resolve(MANIFEST), sb.toString());
+    }
+
+    // ---- rendering ----
+
+    String render(Page p) {
+        switch (p.kind) {
+            case EXAMPLE: {
+                String name = p.source.getFileName().toString();
+                String chapterPage = slug(p.chapter) + ".html";
+                String body = "<p><a href=\"" + p.up() + chapterPage + "\">&larr; " + escape(friendly(p.chapter)) + "</a></p>\n"
+                        + "<h1>" + escape(name) + "</h1>\n" + "<pre class=\"java\"><code>" + highlightJava(readText(p.source))
+                        + "</code></pre>\n";
+                return page(p, name, body);
+            }
+            case NOTES: {
+                StringBuilder body = new StringBuilder(markdown(readText(p.source), p));
+                if (p.chapter != null && p.inputs.size() > 1) {
+                    body.append("<h2 id=\"example-sources\">Example sources</h2>\n");
+                    for (Path ex : p.inputs.subList(1, p.inputs.size())) {
+                        String name = ex.getFileName().toString();
+                        String url = exampleUrls.get(p.chapter + "/" + name);
+                        body.append("<details id=\"").append(anchor(name)).append("\"><summary><code>").append(escape(name))
+                                .append("</code> &middot; <a href=\"").append(p.up()).append(url).append("\">own page</a></summary>\n")
+                                .append("<pre class=\"java\"><code>").append(highlightJava(readText(ex))).append("</code></pre></details>\n");
+                    }
+                }
+                return page(p, title(p.source), body.toString());
+            }
+            default: {
+                StringBuilder body = new StringBuilder("<nav><h2>Pages</h2>\n<ul>\n");
+                for (Page other : pages) {
+                    if (other.kind != Kind.NOTES) continue;
+                    body.append("<li><a href=\"").append(other.output).append("\">").append(escape(title(other.source)))
+                            .append("</a></li>\n");
+                }
+                body.append("</ul></nav>\n");
+                if (p.source != null) body.append(markdown(readText(p.source), p));
+                return page(p, "Java SE 8 Certification Study Guide", body.toString());
+            }
+        }
+    }
+
+    String title(Path md) {
+        return titles.computeIfAbsent(md, f -> {
+            for (String line : readText(f).split("\n")) {
+                if (line.startsWith("# ")) return line.substring(2).trim();
+            }
+            return f.getFileName().toString().replace(".md", "");
+        });
+    }
+
+    static String friendly(String chapterFolder) {
+        return chapterFolder.replaceFirst("^[0-9]+[- ]*", "");
+    }
+
+    static String anchor(String exampleName) {
+        return "src-" + exampleName.replace(".java", "");
+    }
+
+    static String page(Page p, String title, String body) {
+        return "<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>" + escape(title) + "</title>\n"
+                + "<style>\n" + CSS + "</style>\n</head>\n<body>\n<header><a href=\"" + p.up() + "index.html\">Study Guide</a></header>\n"
+                + "<main>\n" + body + "</main>\n</body>\n</html>\n";
+    }
+
+    static final String CSS =
+            "body{font:16px/1.5 system-ui,sans-serif;margin:0;color:#222}main{max-width:60rem;margin:0 auto;padding:1rem}\n"
+            + "header{background:#2b4c7e;padding:.5rem 1rem}header a{color:#fff;text-decoration:none;font-weight:bold}\n"
+            + "pre{background:#f6f8fa;padding:.75rem;overflow:auto;border-radius:4px}code{font:14px/1.4 ui-monospace,monospace}\n"
+            + "table{border-collapse:collapse}td,th{border:1px solid #ccc;padding:.25rem .5rem}details{margin:.5rem 0}\n"
+            + ".kw{color:#a626a4;font-weight:bold}.str{color:#50a14f}.com{color:#8a8f98;font-style:italic}.num{color:#986801}"
+            + ".ann{color:#c18401}\n";
+
+    // ---- Markdown (the subset these notes use) ----
+
+    static final Pattern HEADING = Pattern.compile("^(#{1,6})\\s+(.*)$");
+    static final Pattern LIST_ITEM = Pattern.compile("^(\\s*)([-*]|\\d+\\.)\\s+(.*)$");
+    static final Pattern LINK = Pattern.compile("\\[([^\\]]+)\\]\\(([^)\\s]+)\\)");
+    static final Pattern BOLD = Pattern.compile("\\*\\*(.+?)\\*\\*");
+    static final Pattern ITALIC = Pattern.compile("(?<![\\w*])\\*(?![\\s*])(.+?)(?<![\\s*])\\*(?![\\w*])");
+
+    String markdown(String text, Page p) {
+        String[] lines = text.replace("\r", "").split("\n", -1);
+        StringBuilder html = new StringBuilder();
+        StringBuilder para = new StringBuilder();
+        List<Integer> listIndents = new ArrayList<>(); // open lists, innermost last
+        List<String> listTags = new ArrayList<>();
+        int i = 0;
+        while (i < lines.length) {
+            String line = lines[i];
+            String trimmed = line.trim();
+            Matcher item = LIST_ITEM.matcher(line);
+            boolean isItem = item.matches() && !trimmed.equals("---");
+            if (trimmed.isEmpty() || trimmed.startsWith("```") || trimmed.startsWith("|") || HEADING.matcher(trimmed).matches()
+                    || trimmed.matches("-{3,}") || isItem) {
+                flushParagraph(html, para, p);
+            }
+            if (!isItem && !trimmed.isEmpty() && !(listIndents.size() > 0 && line.startsWith(" ") && !trimmed.startsWith("```"))) {
+                closeLists(html, listIndents, listTags, -1);
+            }
+            if (trimmed.startsWith("```")) {
+                String lang = trimmed.substring(3).trim();
+                StringBuilder code = new StringBuilder();
+                for (i++; i < lines.length && !lines[i].trim().startsWith("```"); i++) code.append(lines[i]).append('\n');
+                i++;
+                html.append("<pre").append(lang.isEmpty() ? "" : " class=\"" + escape(lang) + "\"").append("><code>")
+                        .append(lang.equals("java") ? highlightJava(code.toString()) : escape(code.toString())).append("</code></pre>\n");
+                continue;
+            }
+            if (trimmed.startsWith("|")) {
+                i = table(lines, i, html, p);
+                continue;
+            }
+            Matcher h = HEADING.matcher(trimmed);
+            if (h.matches()) {
+                int level = h.group(1).length();
+                html.append("<h").append(level).append(" id=\"").append(slug(h.group(2))).append("\">")
+                        .append(inline(h.group(2), p)).append("</h").append(level).append(">\n");
+            } else if (trimmed.matches("-{3,}")) {
+                html.append("<hr>\n");
+            } else if (isItem) {
+                int indent = item.group(1).replace("\t", "    ").length();
+                String tag = item.group(2).endsWith(".") ? "ol" : "ul";
+                closeLists(html, listIndents, listTags, indent);
+                int top = listIndents.size() - 1;
+                if (top < 0 || indent > listIndents.get(top)) {
+                    if (top >= 0) html.setLength(html.length() - "</li>\n".length()); // nest inside the previous item
+                    html.append('<').append(tag).append(">\n");
+                    listIndents.add(indent);
+                    listTags.add(tag);
+                }
+                html.append("<li>").append(inline(item.group(3), p)).append("</li>\n");
+            } else if (!trimmed.isEmpty() && listIndents.size() > 0 && line.startsWith(" ")) {
+                // indented continuation of the previous list item
+                html.setLength(html.length() - "</li>\n".length());
+                html.append(' ').append(inline(trimmed, p)).append("</li>\n");
+            } else if (!trimmed.isEmpty()) {
+                para.append(para.length() > 0 ? "\n" : "").append(trimmed);
+            }
+            i++;
+        }
+        flushParagraph(html, para, p);
+        closeLists(html, listIndents, listTags, -1);
+        return html.toString();
+    }
+
+    // Closes every open list nested deeper than indent (all of them for -1)
+    private static void closeLists(StringBuilder html, List<Integer> indents, List<String> tags, int indent) {
+        while (!indents.isEmpty() && indents.get(indents.size() - 1) > indent) {
+            indents.remove(indents.size() - 1);
+            html.append("</").append(tags.remove(tags.size() - 1)).append(">\n");
+            if (!indents.isEmpty()) html.append("</li>\n"); // the item the closed list was nested in
+        }
+    }
+
+    private void flushParagraph(StringBuilder html, StringBuilder para, Page p) {
+        if (para.length() == 0) return;
+        html.append("<p>").append(inline(para.toString(), p).replace("\n", "<br>\n")).append("</p>\n");
+        para.setLength(0);
+    }
+
+    private int table(String[] lines, int i, StringBuilder html, Page p) {
+        html.append("<table>\n");
+        boolean header = true;
+        for (; i < lines.length && lines[i].trim().startsWith("|"); i++) {
+            String row = lines[i].trim();
+            if (row.matches("\\|[\\s:|-]+\\|?")) continue; // |---|---| separator
+            String[] cells = row.replaceAll("^\\||\\|$", "").split("\\|");
+            html.append("<tr>");
+            for (String cell : cells) {
+                String tag = header ? "th" : "td";
+                html.append('<').append(tag).append('>').append(inline(cell.trim(), p)).append("</").append(tag).append('>');
+            }
+            html.append("</tr>\n");
+            header = false;
+        }
+        html.append("</table>\n");
+        return i;
+    }
+
+    // Code spans first (their content is literal), then links, bold and italics on the escaped rest
+    String inline(String text, Page p) {
+        StringBuilder sb = new StringBuilder();
+        String[] parts = text.split("`", -1);
+        for (int k = 0; k < parts.length; k++) {
+            boolean code = k % 2 == 1 && k < parts.length - 1;
+            if (code) {
+                String url = exampleUrl(parts[k].trim(), p);
+                String span = "<code>" + escape(parts[k]) + "</code>";
+                sb.append(url != null ? "<a href=\"" + url + "\">" + span + "</a>" : span);
+            } else {
+                String s = escape(k % 2 == 1 ? "`" + parts[k] : parts[k]);
+                Matcher m = LINK.matcher(s);
+                StringBuffer linked = new StringBuffer();
+                while (m.find()) {
+                    String target = m.group(2);
+                    String url = exampleUrl(target.substring(target.lastIndexOf('/') + 1), p);
+                    if (url == null && target.endsWith(".md")) url = notesUrl(target, p);
+                    m.appendReplacement(linked, Matcher.quoteReplacement("<a href=\"" + (url != null ? url : target) + "\">"
+                            + m.group(1) + "</a>"));
+                }
+                m.appendTail(linked);
+                s = BOLD.matcher(linked.toString()).replaceAll("<strong>$1</strong>");
+                s = ITALIC.matcher(s).replaceAll("<em>$1</em>");
+                sb.append(s);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Link for "Name.java": the embedded copy on the same chapter page, else the example's own page
+    String exampleUrl(String name, Page p) {
+        if (!name.matches("[A-Za-z0-9_$]+\\.java")) return null;
+        if (p.kind == Kind.NOTES && p.chapter != null && exampleUrls.containsKey(p.chapter + "/" + name)) return "#" + anchor(name);
+        String url = exampleByName.get(name);
+        return url == null ? null : p.up() + url;
+    }
+
+    // Link to another notes file, e.g. "../misc/Gotcha Rules.md" -> "gotcha-rules.html"; null if not rendered
+    String notesUrl(String target, Page p) {
+        if (p.source == null) return null;
+        Path resolved = p.source.getParent().resolve(target.replace("%20", " ")).normalize();
+        for (Page other : pages) {
+            if (other.kind == Kind.NOTES && other.source.equals(resolved)) return p.up() + other.output;
+        }
+        return null;
+    }
+
+    // ---- Java highlighting ----
+
+    static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+            "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+            "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+            "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+            "throw", "throws", "transient", "try", "void", "volatile", "while", "true", "false", "null", "var"));
+
+    static String highlightJava(String src) {
+        StringBuilder sb = new StringBuilder(src.length() + src.length() / 2);
+        int n = src.length();
+        int i = 0;
+        while (i < n) {
+            char c = src.charAt(i);
+            int start = i;
+            String cls = null;
+            if (c == '/' && i + 1 < n && src.charAt(i + 1) == '/') {
+                while (i < n && src.charAt(i) != '\n') i++;
+                cls = "com";
+            } else if (c == '/' && i + 1 < n && src.charAt(i + 1) == '*') {
+                int end = src.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                cls = "com";
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < n && src.charAt(i) != c && src.charAt(i) != '\n') i += src.charAt(i) == '\\' ? 2 : 1;
+                i = Math.min(n, i + 1);
+                cls = "str";
+            } else if (Character.isDigit(c)) {
+                while (i < n && (Character.isLetterOrDigit(src.charAt(i)) || src.charAt(i) == '_' || src.charAt(i) == '.')) i++;
+                cls = "num";
+            } else if (c == '@' && i + 1 < n && Character.isJavaIdentifierStart(src.charAt(i + 1))) {
+                i++;
+                while (i < n && Character.isJavaIdentifierPart(src.charAt(i))) i++;
+                cls = "ann";
+            } else if (Character.isJavaIdentifierStart(c)) {
+                while (i < n && Character.isJavaIdentifierPart(src.charAt(i))) i++;
+                if (KEYWORDS.contains(src.substring(start, i))) cls = "kw";
+            } else {
+                i++;
+            }
+            String token = escape(src.substring(start, i));
+            if (cls == null) sb.append(token);
+            else sb.append("<span class=\"").append(cls).append("\">").append(token).append("</span>");
+        }
+        return sb.toString();
+    }
+
+    // ---- small helpers ----
+
+    static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static byte[] readBytes(Path p) {
+        try {
+            return Files.readAllBytes(p);
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read " + p, e);
+        }
+    }
+
+    static String readText(Path p) {
+        return new String(readBytes(p), StandardCharsets.UTF_8);
+    }
+
+    static void write(Path file, String content) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("cannot write " + file, e);
+        }
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : digest) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JRE ships SHA-256
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean force = false;
+        List<String> rest = new ArrayList<>();
+        for (String a : args) {
+            if (a.equals("--force")) force = true;
+            else rest.add(a);
+        }
+        Path root = Paths.get(rest.size() > 0 ? rest.get(0) : "").toAbsolutePath();
+        Path out = rest.size() > 1 ? Paths.get(rest.get(1)).toAbsolutePath() : root.resolve("site");
+        new SiteRenderer(root, out).build(force);
+    }
+}